@@ -0,0 +1,541 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This is the CombatBenchmarks class - it measures the combat hot paths. Run it with
+ * 'mvn -Pbench verify', optionally passing -Dbench.filter=name to run only the benchmarks whose name contains it
+ * @author Oscar Allen
+ */
+public class CombatBenchmarks {
+    private static final int[] DOCKED_SHIPS = {0, 10, 100, 1_000, 10_000};
+    private static final int[] FLEET_SIZES = {10, 1_000, 100_000, 1_000_000};
+    private static final long JOURNAL_RECORDS = 1 << 22;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int GRID_SIDE = 32;
+
+    private static String filter = System.getProperty("bench.filter", "");
+    private static MicroBenchmark harness = new MicroBenchmark(
+            Integer.getInteger("bench.warmup", 3),
+            Integer.getInteger("bench.iterations", 5),
+            Long.getLong("bench.millis", 500));
+
+    public static void main(String[] args) {
+        starshipAttack();
+        starshipTakeDamage();
+        starbaseGetCurrentDefence();
+        fleetMobilise();
+        fleetMobiliseWrecked();
+        fleetAttackTarget();
+        combatJournalRecord();
+        worldSnapshotLoad();
+        stateWriterWrite();
+        metricsOverhead();
+        starbaseContention();
+        scriptRunnerRun();
+        sectorGraphTravel();
+        scenarioRepeat();
+        offHeapStore();
+        targetSelection();
+        shardedTick();
+        siegeFastForward();
+    }
+
+    private static boolean enabled(String name) {
+        return name.contains(filter);
+    }
+
+    private static void starshipAttack() {
+        String name = "Starship.attack";
+        if (!enabled(name)) return;
+
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 1);
+        Fleet defenders = new Fleet(world, "Defender", 1, 1);
+        Starship attacker = attackers.getShips().getFirst();
+        Starship target = defenders.getShips().getFirst();
+        ShipStore targetStore = defenders.getStore();
+
+        harness.measure(name, "-", () -> {
+            attacker.attack(target);
+            if (target.isDestroyed()) {
+                targetStore.setHealth(target.getSlot(), ShipStats.STANDARD.maxHealth());
+                targetStore.setCrew(target.getSlot(), ShipStats.STANDARD.maxCrew());
+            }
+            return target.getCurrentHealth();
+        });
+    }
+
+    private static void starshipTakeDamage() {
+        String name = "Starship.takeDamage";
+        if (!enabled(name)) return;
+
+        Starship ship = new Starship(new ShipStore(new World(), 1), 1);
+        ShipStore store = ship.getStore();
+
+        harness.measure(name, "-", () -> {
+            ship.takeDamage(7);
+            if (ship.isDestroyed()) {
+                store.setHealth(ship.getSlot(), ShipStats.STANDARD.maxHealth());
+                store.setCrew(ship.getSlot(), ShipStats.STANDARD.maxCrew());
+            }
+            return ship.getCurrentHealth();
+        });
+    }
+
+    private static void starbaseGetCurrentDefence() {
+        String name = "Starbase.getCurrentDefence";
+        if (!enabled(name)) return;
+
+        for (int docked : DOCKED_SHIPS) {
+            Fleet fleet = new Fleet(new World(), "Defender", 1, docked);
+            Starbase base = fleet.getStarbases().getFirst();
+            base.dockAll(fleet.getShips());
+
+            harness.measure(name, docked, base::getCurrentDefence);
+        }
+    }
+
+    private static void fleetMobilise() {
+        String name = "Fleet.mobilise";
+        if (!enabled(name)) return;
+
+        for (int size : FLEET_SIZES) {
+            Fleet fleet = new Fleet(new World(), "Attacker", 1, size);
+            int[] sector = {1};
+
+            harness.measure(name, size, () -> {
+                sector[0] = 3 - sector[0];
+                fleet.mobilise(sector[0]);
+                return sector[0];
+            });
+        }
+    }
+
+    /**
+     * Mobilises a Fleet after nine in ten of its ships have been destroyed, to compare with Fleet.mobilise on a whole Fleet
+     */
+
+    private static void fleetMobiliseWrecked() {
+        String name = "Fleet.mobilise.wrecked";
+        if (!enabled(name)) return;
+
+        for (int size : FLEET_SIZES) {
+            Fleet fleet = new Fleet(new World(), "Attacker", 1, size);
+            for (int i = 0; i < size; i++) {
+                if (i % 10 != 0) fleet.getShips().get(i).takeDamage(ShipStats.STANDARD.maxHealth());
+            }
+            int[] sector = {1};
+
+            harness.measure(name, size, () -> {
+                sector[0] = 3 - sector[0];
+                fleet.mobilise(sector[0]);
+                return sector[0];
+            });
+        }
+    }
+
+    private static void fleetAttackTarget() {
+        String name = "Fleet.attackTarget";
+        if (!enabled(name)) return;
+
+        for (int size : FLEET_SIZES) {
+            World world = new World();
+            Fleet attackers = new Fleet(world, "Attacker", 1, size);
+            Fleet defenders = new Fleet(world, "Defender", 1, 0);
+            Starbase base = defenders.getStarbases().getFirst();
+
+            harness.measure(name, size, () -> {
+                attackers.attackTarget(base);
+                return base.getCurrentHealth();
+            });
+        }
+    }
+
+    private static void combatJournalRecord() {
+        String name = "CombatJournal.record";
+        if (!enabled(name)) return;
+
+        try {
+            Path file = Files.createTempFile("combat", ".journal");
+            CombatJournal[] journal = {CombatJournal.create(file)};
+            long[] tick = {0};
+
+            harness.measure(name, "-", () -> {
+                journal[0].record(tick[0]++, 1, 2, CombatJournal.STARSHIP, 5, 95);
+                if (journal[0].size() == JOURNAL_RECORDS) {
+                    try {
+                        journal[0].close();
+                        journal[0] = CombatJournal.create(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return (int) tick[0];
+            });
+
+            journal[0].close();
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void worldSnapshotLoad() {
+        String name = "WorldSnapshot.load";
+        if (!enabled(name)) return;
+
+        try {
+            Path file = Files.createTempFile("world", ".snapshot");
+            for (int size : FLEET_SIZES) {
+                World world = new World();
+                new Fleet(world, "Attacker", 1, size);
+                new Fleet(world, "Defender", 2, size / 10);
+                WorldSnapshot.save(world, file);
+
+                harness.measure(name, size, () -> {
+                    try {
+                        return WorldSnapshot.load(file).getFleets().size();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void stateWriterWrite() {
+        String name = "StateWriter.write";
+        if (!enabled(name)) return;
+
+        for (int size : FLEET_SIZES) {
+            Fleet fleet = new Fleet(new World(), "Attacker", 1, size);
+            StateWriter writer = new StateWriter(new BufferedWriter(Writer.nullWriter()), StateWriter.Format.JSON);
+
+            harness.measure(name, size, () -> {
+                try {
+                    writer.write(fleet);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return size;
+            });
+        }
+    }
+
+    private static void metricsOverhead() {
+        String name = "Fleet.attackTarget+metrics";
+        if (!enabled(name)) return;
+
+        for (int size : new int[]{1, 10}) {
+            World world = new World();
+            Fleet attackers = new Fleet(world, "Attacker", 1, size);
+            Fleet defenders = new Fleet(world, "Defender", 1, 0);
+            Starbase base = defenders.getStarbases().getFirst();
+            world.enableMetrics("bench-" + size);
+
+            harness.measure(name, size, () -> {
+                attackers.attackTarget(base);
+                return base.getCurrentHealth();
+            });
+            world.disableMetrics();
+        }
+    }
+
+    /**
+     * Many threads damaging one Starbase: compare-and-set in concurrent combat against a lock around the plain update
+     */
+
+    private static void starbaseContention() {
+        String name = "Starbase.takeDamage";
+        if (!enabled(name)) return;
+
+        for (int threads : THREAD_COUNTS) {
+            World concurrent = new World();
+            concurrent.setConcurrentCombat(true);
+            Starbase casBase = new Starbase(concurrent, 1, 1, DockingBay.UNLIMITED, Integer.MAX_VALUE);
+            harness.measureThreads(name + ".cas", threads, () -> {
+                casBase.takeDamage(1);
+                return 1;
+            });
+
+            Starbase lockedBase = new Starbase(new World(), 1, 1, DockingBay.UNLIMITED, Integer.MAX_VALUE);
+            harness.measureThreads(name + ".synchronized", threads, () -> {
+                synchronized (lockedBase) {
+                    lockedBase.takeDamage(1);
+                }
+                return 1;
+            });
+        }
+    }
+
+    /**
+     * Runs a script of 100,000 commands held in memory in a new World, so the time is parsing and game logic rather than disk
+     */
+
+    private static void scriptRunnerRun() {
+        String name = "ScriptRunner.run";
+        if (!enabled(name)) return;
+
+        StringBuilder text = new StringBuilder("fleet Attacker 1 10\nfleet Defender 1 10\n");
+        for (int i = 0; i < 20_000; i++) {
+            text.append("fire Attacker ").append(i % 10).append(" Defender base\n");
+            text.append("dock Defender ").append(i % 10).append("\nundock Defender ").append(i % 10).append('\n');
+            text.append("repair Defender ").append(i % 10).append("\nturn\n");
+        }
+        byte[] script = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        harness.measure(name, script.length, () -> {
+            try {
+                return (int) new ScriptRunner(new World()).run(new ByteArrayInputStream(script)).commands();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * One turn of travel for a Fleet spread over a 32 x 32 grid of sectors, heading for opposite corners in turn,
+     * followed by the share of route lookups that were answered from the cache
+     */
+
+    private static void sectorGraphTravel() {
+        String name = "World.advanceTurn+travel";
+        if (!enabled(name)) return;
+
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            SectorGraph graph = new SectorGraph();
+            for (int row = 0; row < GRID_SIDE; row++) {
+                for (int column = 0; column < GRID_SIDE; column++) {
+                    int sector = row * GRID_SIDE + column + 1;
+                    if (column + 1 < GRID_SIDE) graph.connect(sector, sector + 1, 1 + (row + column) % 3);
+                    if (row + 1 < GRID_SIDE) graph.connect(sector, sector + GRID_SIDE, 1 + (row * column) % 3);
+                }
+            }
+
+            World world = new World();
+            world.setSectorGraph(graph);
+            Fleet fleet = new Fleet(world, "Traveller", 1, size);
+            ShipStore store = fleet.getStore();
+            for (int slot = 0; slot < size; slot++) {
+                store.ship(slot).moveSector(1 + (slot * 7919) % (GRID_SIDE * GRID_SIDE));
+            }
+            int[] corners = {1, GRID_SIDE * GRID_SIDE};
+            int[] corner = {0};
+            fleet.mobilise(corners[corner[0]]);
+
+            harness.measure(name, size, () -> {
+                world.advanceTurn();
+                Starship first = store.ship(0);
+                if (first.getSector() == first.getDestination()) {
+                    corner[0] = 1 - corner[0];
+                    fleet.mobilise(corners[corner[0]]);
+                }
+                return first.getSector();
+            });
+
+            long lookups = graph.getCacheHits() + graph.getCacheMisses();
+            System.out.printf("  route lookups %d, cache hit rate %.4f%%%n", lookups, graph.getCacheHits() * 100.0 / lookups);
+        }
+    }
+
+    /**
+     * Runs the same battle over and over, in a new World each time and in a World reset by a WorldArena. The B/op column
+     * is the allocation rate check: the arena should allocate nothing once it is warm
+     */
+
+    private static void scenarioRepeat() {
+        String name = "Scenario.repeat";
+        if (!enabled(name)) return;
+
+        for (int size : new int[]{10, 1_000}) {
+            Consumer<World> scenario = world -> {
+                new Fleet(world, "Attacker", 1, size);
+                new Fleet(world, "Defender", 2, size);
+            };
+
+            harness.measure(name + ".new", size, () -> {
+                World world = new World();
+                scenario.accept(world);
+                return playBattle(world);
+            });
+
+            WorldArena arena = new WorldArena(scenario);
+            harness.measure(name + ".arena", size, () -> {
+                World world = arena.acquire();
+                int health = playBattle(world);
+                arena.release(world);
+                return health;
+            });
+        }
+    }
+
+    /**
+     * The attackers fly to the defenders, destroy their Starbase and some ships, and the survivors dock and repair
+     */
+
+    private static int playBattle(World world) {
+        Fleet attackers = world.getFleets().get(0);
+        Fleet defenders = world.getFleets().get(1);
+        Starbase base = defenders.getStarbases().getFirst();
+        List<Starship> ships = defenders.getShips();
+
+        attackers.mobilise(2);
+        for (int i = 0; i < ships.size(); i += 2) {
+            attackers.attackTarget(ships.get(i));
+        }
+        while (!base.isDestroyed()) {
+            attackers.attackTarget(base);
+        }
+        Starbase attackerBase = attackers.getStarbases().getFirst();
+        for (int i = 1; i < ships.size(); i += 2) {
+            Starship ship = ships.get(i);
+            ship.moveSector(1);
+            ship.dockWithStarbase(attackerBase);
+            ship.repair();
+        }
+        for (int turn = 0; turn < 5; turn++) {
+            world.advanceTurn();
+        }
+        return attackerBase.getCurrentHealth();
+    }
+
+    /**
+     * Mobilises and attacks with fleets held off the heap, up to sizes that would need gigabytes of Starship objects on it.
+     * Compare with Fleet.mobilise and Fleet.attackTarget at the sizes they share
+     */
+
+    private static void offHeapStore() {
+        String name = "OffHeapStore";
+        if (!enabled(name)) return;
+
+        for (int size : new int[]{1_000_000, 10_000_000}) {
+            try (OffHeapStore store = OffHeapStore.allocate(new World(), ShipStats.STANDARD, size, 1)) {
+                store.addShips("Attacker", 1, size);
+                OffHeapStarbase base = store.starbase(store.addStarbase("Defender", 1, 0));
+                int[] sector = {1};
+
+                harness.measure(name + ".mobilise", size, () -> {
+                    sector[0] = 3 - sector[0];
+                    return (int) store.mobilise("Attacker", sector[0]);
+                });
+                store.mobilise("Attacker", 1);
+                harness.measure(name + ".attack", size, () -> (int) store.attack("Attacker", base));
+            }
+        }
+    }
+
+    /**
+     * Moves an enemy ship in or out of a sector and finds the weakest enemy left there, with a TargetSelector and with a
+     * scan of the sector's targets
+     */
+
+    private static void targetSelection() {
+        String name = "TargetSelector.weakest";
+        if (!enabled(name)) return;
+
+        for (int size : new int[]{10, 1_000, 100_000}) {
+            World world = new World();
+            Fleet attackers = new Fleet(world, "Attacker", 1, 1);
+            Fleet defenders = new Fleet(world, "Defender", 1, size);
+            List<Starship> ships = defenders.getShips();
+            for (int i = 0; i < size; i++) {
+                ships.get(i).takeDamage(i % 90);
+            }
+            int attackerFleet = attackers.getFleetId();
+            int[] next = {0};
+
+            harness.measure(name + ".scan", size, () -> {
+                Starship moved = ships.get(next[0]++ % size);
+                moved.moveSector(3 - moved.getSector());
+                Targetable weakest = null;
+                for (Targetable target : defenders.getTargetsInSector(1)) {
+                    if (weakest == null || target.getCurrentHealth() < weakest.getCurrentHealth()) weakest = target;
+                }
+                return weakest.getCurrentHealth();
+            });
+
+            TargetSelector selector = new TargetSelector(TargetSelector.Priority.WEAKEST);
+            world.setTargetSelector(selector);
+            harness.measure(name + ".selector", size, () -> {
+                Starship moved = ships.get(next[0]++ % size);
+                moved.moveSector(3 - moved.getSector());
+                return selector.select(1, attackerFleet).getCurrentHealth();
+            });
+        }
+    }
+
+    /**
+     * Plays turns of a battle spread over 8 sectors on 1, 2 and 4 ShardWorker processes, with a scout fleet crossing to
+     * another sector, and usually another shard, every tick. Scaling needs as many free cores as shards
+     */
+
+    private static void shardedTick() {
+        String name = "ShardCoordinator.tick";
+        if (!enabled(name)) return;
+
+        ShipStats sturdy = new ShipStats(30, 10, 10, 100_000);
+        for (int shards : new int[]{1, 2, 4}) {
+            try (ShardCoordinator coordinator = ShardCoordinator.launch(shards, "-Xmx512m")) {
+                int red = coordinator.addFleet("Red", sturdy);
+                int blue = coordinator.addFleet("Blue", sturdy);
+                int scouts = coordinator.addFleet("Scouts", sturdy);
+                for (int sector = 0; sector < 8; sector++) {
+                    coordinator.addShips(red, sector, 25_000);
+                    coordinator.addShips(blue, sector, 25_000);
+                }
+                coordinator.addShips(scouts, 0, 1_000);
+
+                harness.measure(name, shards, () -> {
+                    try {
+                        coordinator.mobilise(scouts, (int) (coordinator.getTicks() + 1) % 8);
+                        coordinator.tick();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return coordinator.getLiveShipCount(red);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Besieges a fresh Starbase until it is destroyed, round by round and with Fleet.fastForward()
+     */
+
+    private static void siegeFastForward() {
+        String name = "Fleet.siege";
+        if (!enabled(name)) return;
+
+        for (int health : new int[]{500, 100_000, 10_000_000}) {
+            World world = new World();
+            Fleet attackers = new Fleet(world, "Attacker", 1, 100);
+
+            harness.measure(name + ".rounds", health, () -> {
+                Starbase base = new Starbase(world, 1, 1, DockingBay.UNLIMITED, health);
+                int rounds = 0;
+                while (!base.isDestroyed()) {
+                    attackers.attackTarget(base);
+                    rounds++;
+                }
+                return rounds;
+            });
+            harness.measure(name + ".fastForward", health, () -> {
+                Starbase base = new Starbase(world, 1, 1, DockingBay.UNLIMITED, health);
+                return attackers.fastForward(base, Integer.MAX_VALUE).rounds();
+            });
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * This is the MicroBenchmark class - a small measurement harness that reports the throughput and allocation rate
+ * of an operation after a warm-up period
+ * @author Oscar Allen
+ */
+public class MicroBenchmark {
+    private static volatile int sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private int warmupIterations;
+    private int measurementIterations;
+    private long iterationNanos;
+
+    /**
+     * The result of measuring one operation
+     * @param name
+     * @param param
+     * @param opsPerSecond
+     * @param bytesPerOp
+     */
+
+    public record Result(String name, String param, double opsPerSecond, double bytesPerOp) {
+        @Override
+        public String toString() {
+            return String.format("%-36s %12s %16.1f ops/s %12.1f B/op", name, param, opsPerSecond, bytesPerOp);
+        }
+    }
+
+    /**
+     * Initialises the harness
+     * @param warmupIterations
+     * @param measurementIterations
+     * @param iterationMillis length of each iteration
+     */
+
+    public MicroBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    /**
+     * Measures an operation. The value it returns is consumed so the JIT cannot remove the work
+     * @param name
+     * @param param
+     * @param op
+     * @return result
+     */
+
+    public Result measure(String name, Object param, IntSupplier op) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op);
+        }
+
+        long ops = 0;
+        long nanos = 0;
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] measured = iteration(op);
+            ops += measured[0];
+            nanos += measured[1];
+        }
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        Result result = new Result(name, String.valueOf(param), ops * 1e9 / nanos, (double) bytes / ops);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Measures an operation run by several threads at once, reporting the combined throughput. Allocation is not measured
+     * @param name
+     * @param threads
+     * @param op
+     * @return result
+     */
+
+    public Result measureThreads(String name, int threads, IntSupplier op) {
+        for (int i = 0; i < warmupIterations; i++) {
+            threadedIteration(threads, op);
+        }
+
+        long ops = 0;
+        long nanos = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] measured = threadedIteration(threads, op);
+            ops += measured[0];
+            nanos += measured[1];
+        }
+
+        Result result = new Result(name, threads + " threads", ops * 1e9 / nanos, Double.NaN);
+        System.out.println(result);
+        return result;
+    }
+
+    private long[] threadedIteration(int threads, IntSupplier op) {
+        LongAdder ops = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    return;
+                }
+                long[] measured = iteration(op);
+                ops.add(measured[0]);
+            }));
+        }
+
+        long begin;
+        try {
+            start.await();
+            begin = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("benchmark threads failed", e);
+        }
+        return new long[]{ops.sum(), System.nanoTime() - begin};
+    }
+
+    /**
+     * Runs the operation in batches until the iteration time is used up
+     * @return operations and nanoseconds taken
+     */
+
+    private long[] iteration(IntSupplier op) {
+        int consumed = 0;
+        long ops = 0;
+        int batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++) {
+                consumed += op.getAsInt();
+            }
+            ops += batch;
+            if (batch < 1 << 16) batch <<= 1;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        sink = consumed;
+        return new long[]{ops, elapsed};
+    }
+}
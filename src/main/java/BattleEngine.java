@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This is the BattleEngine class - it resolves fleet attacks in ticks of two phases. First every attack is
+ * worked out in parallel against a frozen snapshot of the world, then the damage is applied target by target
+ * in the order the attacks were given, so the outcome does not depend on thread scheduling
+ * @author Oscar Allen
+ */
+public class BattleEngine {
+    private static final int NO_HIT = 0;
+    private static final int THRESHOLD = 1024;
+
+    private World world;
+    private ForkJoinPool pool;
+    private List<Order> orders = new ArrayList<>();
+    private long ticks;
+
+    private record Order(Fleet fleet, Targetable target) {
+    }
+
+    /**
+     * Initialises the BattleEngine for the default World on the common ForkJoin pool
+     */
+
+    public BattleEngine() {
+        this(World.DEFAULT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialises the BattleEngine for the default World on the given ForkJoin pool
+     * @param pool
+     */
+
+    public BattleEngine(ForkJoinPool pool) {
+        this(World.DEFAULT, pool);
+    }
+
+    /**
+     * Initialises the BattleEngine for the given World on the given ForkJoin pool
+     * @param world whose turn advances at the end of every tick
+     * @param pool
+     */
+
+    public BattleEngine(World world, ForkJoinPool pool) {
+        this.world = Objects.requireNonNull(world);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Queues an attack by a Fleet on a target, to be resolved on the next tick
+     * @param fleet
+     * @param target
+     * @see Fleet#attackTarget(Targetable)
+     */
+
+    public void order(Fleet fleet, Targetable target) {
+        fleet.getStore().getWorld().checkSameWorld(target);
+        orders.add(new Order(fleet, target));
+    }
+
+    /**
+     * Gets the number of ticks resolved so far
+     * @return ticks
+     */
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Resolves every queued attack, then advances the World by one turn. Ships under repair do not attack, exactly as with
+     * Fleet.attackTarget, but every hit is calculated from the attack and defence strengths at the start of the tick
+     * @return number of hits applied
+     */
+
+    public int tick() {
+        List<Order> tickOrders = orders;
+        orders = new ArrayList<>();
+        ticks++;
+
+        int count = tickOrders.size();
+        ShipStore[] stores = new ShipStore[count];
+        int[][] attackers = new int[count][];
+        int[] defence = new int[count];
+        int[] targetFleet = new int[count];
+        int[] offsets = new int[count + 1];
+
+        for (int o = 0; o < count; o++) {
+            Order order = tickOrders.get(o);
+            stores[o] = order.fleet().getStore();
+            boolean friendly = order.fleet().getFleetId() == order.target().getFleetId();
+            attackers[o] = friendly ? new int[0] : stores[o].attackersOf(order.target());
+            defence[o] = order.target().getCurrentDefence();
+            targetFleet[o] = order.target().getFleetId();
+            offsets[o + 1] = offsets[o] + attackers[o].length;
+        }
+
+        int[] damage = new int[offsets[count]];
+        pool.invoke(new DamageTask(stores, attackers, defence, targetFleet, offsets, damage, 0, count));
+
+        CombatJournal journal = world.getJournal();
+        int hits = 0;
+        for (int o = 0; o < count; o++) {
+            Targetable target = tickOrders.get(o).target();
+            int orderHits = 0;
+            long orderDamage = 0;
+            for (int k = 0; k < attackers[o].length; k++) {
+                int hit = damage[offsets[o] + k];
+                if (hit != NO_HIT) {
+                    target.takeDamage(hit);
+                    if (journal != null) journal.recordHit(world.getTurn(), stores[o].id(attackers[o][k]), target, hit);
+                    orderHits++;
+                    orderDamage += hit;
+                }
+            }
+
+            FleetMetrics metrics = world.fleetMetrics(tickOrders.get(o).fleet().getFleetId());
+            if (metrics != null) metrics.attacked(orderHits, orderDamage);
+            hits += orderHits;
+        }
+        world.advanceTurn();
+        return hits;
+    }
+
+    /**
+     * Works out the damage of each attacker against the snapshot, splitting the orders between pool threads.
+     * It only reads ship state, so the attacks can be computed in any order
+     */
+
+    private static class DamageTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private transient ShipStore[] stores;
+        private int[][] attackers;
+        private int[] defence;
+        private int[] targetFleet;
+        private int[] offsets;
+        private int[] damage;
+        private int from;
+        private int to;
+
+        DamageTask(ShipStore[] stores, int[][] attackers, int[] defence, int[] targetFleet, int[] offsets, int[] damage, int from, int to) {
+            this.stores = stores;
+            this.attackers = attackers;
+            this.defence = defence;
+            this.targetFleet = targetFleet;
+            this.offsets = offsets;
+            this.damage = damage;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && offsets[to] - offsets[from] > THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DamageTask(stores, attackers, defence, targetFleet, offsets, damage, from, mid),
+                        new DamageTask(stores, attackers, defence, targetFleet, offsets, damage, mid, to));
+                return;
+            }
+
+            for (int o = from; o < to; o++) {
+                ShipStore store = stores[o];
+                int[] slots = attackers[o];
+                int start = offsets[o];
+                if (slots.length > THRESHOLD && to - from == 1) {
+                    splitOrder(store, slots, o, start);
+                    continue;
+                }
+                for (int k = 0; k < slots.length; k++) {
+                    damage[start + k] = hit(store, slots[k], o);
+                }
+            }
+        }
+
+        /**
+         * Splits a single large order over its attackers
+         */
+
+        private void splitOrder(ShipStore store, int[] slots, int o, int start) {
+            List<RecursiveAction> parts = new ArrayList<>();
+            for (int lo = 0; lo < slots.length; lo += THRESHOLD) {
+                int first = lo;
+                int last = Math.min(lo + THRESHOLD, slots.length);
+                parts.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        for (int k = first; k < last; k++) {
+                            damage[start + k] = hit(store, slots[k], o);
+                        }
+                    }
+                });
+            }
+            invokeAll(parts);
+        }
+
+        private int hit(ShipStore store, int slot, int o) {
+            if (store.skipTurns(slot) > 0 || store.fleet(slot) == targetFleet[o]) return NO_HIT;
+
+            return Math.max(store.atkStrength(slot) - defence[o], 5);
+        }
+    }
+}
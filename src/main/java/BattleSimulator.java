@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This is the BattleSimulator class - it runs many independent sieges of a Starbase concurrently on virtual threads,
+ * each in a World of its own, and aggregates the outcomes into a SimulationReport
+ * @author Oscar Allen
+ */
+public class BattleSimulator {
+
+    /**
+     * A siege scenario. The attacking Fleet starts in sector 1 and mobilises to the defending Fleet's Starbase in sector 2.
+     * Each run gives every attacking ship a random amount of damage up to maxInitialDamage and docks a random number
+     * of defending ships, up to maxDockedShips, before the siege starts
+     * @param attackerShips
+     * @param defenderShips
+     * @param maxDockedShips
+     * @param maxInitialDamage
+     * @param maxRounds after which the attackers give up
+     */
+
+    public record Scenario(int attackerShips, int defenderShips, int maxDockedShips, int maxInitialDamage, int maxRounds) {
+        public Scenario {
+            if (attackerShips < 0 || defenderShips < 0 || maxDockedShips < 0 || maxInitialDamage < 0 || maxRounds < 0) {
+                throw new IllegalArgumentException("scenario values must not be negative");
+            }
+        }
+    }
+
+    private int parallelism;
+
+    /**
+     * Initialises the BattleSimulator with a parallelism of the number of processors
+     */
+
+    public BattleSimulator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initialises the BattleSimulator. Runs are split into four chunks per unit of parallelism, each chunk played on a virtual thread
+     * @param parallelism
+     */
+
+    public BattleSimulator(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the scenario the given number of times. Run i is seeded from seed and i, so a report can be reproduced
+     * whatever the parallelism
+     * @param scenario
+     * @param runs
+     * @param seed
+     * @return report
+     */
+
+    public SimulationReport simulate(Scenario scenario, int runs, long seed) {
+        int chunks = Math.max(1, Math.min(runs, parallelism * 4));
+        List<Future<SimulationReport>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < chunks; c++) {
+                int from = (int) ((long) runs * c / chunks);
+                int to = (int) ((long) runs * (c + 1) / chunks);
+                futures.add(executor.submit(() -> simulateRange(scenario, from, to, seed)));
+            }
+        }
+
+        SimulationReport report = new SimulationReport(scenario.maxRounds(), scenario.attackerShips());
+        for (Future<SimulationReport> future : futures) {
+            try {
+                report.merge(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("simulation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("simulation run failed", e.getCause());
+            }
+        }
+        return report;
+    }
+
+    private static SimulationReport simulateRange(Scenario scenario, int from, int to, long seed) {
+        SimulationReport report = new SimulationReport(scenario.maxRounds(), scenario.attackerShips());
+        for (int run = from; run < to; run++) {
+            simulateOnce(scenario, new Random(seed * 31 + run), report);
+        }
+        return report;
+    }
+
+    /**
+     * Plays out one siege. Each round the attacking Fleet attacks the Starbase, then the defending Fleet attacks
+     * the first live attacking ship in the sector
+     */
+
+    static void simulateOnce(Scenario scenario, Random random, SimulationReport report) {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, scenario.attackerShips());
+        Fleet defenders = new Fleet(world, "Defender", 2, scenario.defenderShips());
+        Starbase base = defenders.getStarbases().getFirst();
+
+        if (scenario.maxInitialDamage() > 0) {
+            for (Starship ship : attackers.getShips()) {
+                int damage = random.nextInt(scenario.maxInitialDamage() + 1);
+                if (damage > 0) ship.takeDamage(damage);
+            }
+        }
+
+        int docked = Math.min(random.nextInt(scenario.maxDockedShips() + 1), scenario.defenderShips());
+        base.dockAll(defenders.getShips().subList(0, docked));
+
+        attackers.mobilise(base.getSector());
+
+        int rounds = 0;
+        while (!base.isDestroyed() && rounds < scenario.maxRounds()) {
+            Starship defenderTarget = firstShip(attackers.getTargetsInSector(base.getSector()));
+            if (defenderTarget == null) break;
+
+            rounds++;
+            attackers.attackTarget(base);
+            defenders.attackTarget(defenderTarget);
+            world.advanceTurn();
+        }
+
+        report.record(base.isDestroyed(), rounds, attackers.getLiveShipCount());
+    }
+
+    private static Starship firstShip(List<Targetable> targets) {
+        for (Targetable target : targets) {
+            if (target instanceof Starship ship) return ship;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This is the CombatJournal class - an append-only file of fixed-size binary hit records written through a memory-mapped
+ * window, so logging a hit is a handful of buffer writes. The record count in the header is brought up to date whenever
+ * the window moves, on flush() and on close(), and a reader finds any records written after it by their attacker id, so a
+ * journal that was never closed can still be read. A journal has a single writer and is not thread-safe
+ * @author Oscar Allen
+ * @see CombatJournalReader
+ */
+public class CombatJournal implements AutoCloseable {
+    static final int MAGIC = 0x434A4E4C;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+
+    static final int TICK = 0;
+    static final int ATTACKER_ID = 8;
+    static final int TARGET_ID = 12;
+    static final int DAMAGE = 16;
+    static final int RESULTING_HEALTH = 20;
+    static final int TARGET_TYPE = 24;
+
+    static final byte STARSHIP = 0;
+    static final byte STARBASE = 1;
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long records;
+
+    private CombatJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a new, empty journal file, replacing any file already at the path
+     * @param path
+     * @return journal
+     * @throws IOException if the file cannot be created
+     */
+
+    public static CombatJournal create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        CombatJournal journal = new CombatJournal(channel);
+        journal.map(0);
+        journal.window.putInt(0, MAGIC);
+        journal.window.putShort(4, VERSION);
+        journal.window.putShort(6, (short) RECORD_SIZE);
+        journal.window.putLong(8, 0);
+        return journal;
+    }
+
+    /**
+     * Records a hit on a target, with the target's health after the hit
+     * @param tick the game turn of the hit
+     * @param attackerId
+     * @param target
+     * @param damage
+     */
+
+    public void recordHit(long tick, int attackerId, Targetable target, int damage) {
+        byte targetType = target instanceof Starbase || target instanceof OffHeapStarbase ? STARBASE : STARSHIP;
+        record(tick, attackerId, target.getId(), targetType, damage, target.getCurrentHealth());
+    }
+
+    /**
+     * Appends one record
+     * @param tick
+     * @param attackerId
+     * @param targetId
+     * @param targetType STARSHIP or STARBASE
+     * @param damage
+     * @param resultingHealth
+     */
+
+    public void record(long tick, int attackerId, int targetId, byte targetType, int damage, int resultingHealth) {
+        long position = HEADER_SIZE + records * RECORD_SIZE;
+        if (position + RECORD_SIZE > windowStart + WINDOW_SIZE) {
+            try {
+                map(position);
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not extend combat journal", e);
+            }
+        }
+
+        int offset = (int) (position - windowStart);
+        window.putLong(offset + TICK, tick);
+        window.putInt(offset + ATTACKER_ID, attackerId);
+        window.putInt(offset + TARGET_ID, targetId);
+        window.putInt(offset + DAMAGE, damage);
+        window.putInt(offset + RESULTING_HEALTH, resultingHealth);
+        window.put(offset + TARGET_TYPE, targetType);
+        records++;
+    }
+
+    /**
+     * Gets the number of records written
+     * @return records
+     */
+
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Forces the records written so far, and their count, out to the storage device
+     */
+
+    public void flush() {
+        window.force();
+        try {
+            writeCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not flush combat journal", e);
+        }
+    }
+
+    /**
+     * Writes the record count into the header, trims the file to the records written and closes it
+     * @throws IOException if the file cannot be written
+     */
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+
+        window.force();
+        writeCount();
+        window = null;
+
+        channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+        channel.close();
+    }
+
+    /**
+     * Writes the number of records into the header and forces it out
+     */
+
+    private void writeCount() throws IOException {
+        ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, records);
+        channel.write(count, 8);
+        channel.force(false);
+    }
+
+    private void map(long position) throws IOException {
+        if (window != null) {
+            window.force();
+            writeCount();
+        }
+
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
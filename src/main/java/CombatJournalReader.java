@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * This is the CombatJournalReader class - it decodes a CombatJournal file. Run it as a program to print a journal
+ * as CSV: java CombatJournalReader combat.journal
+ * @author Oscar Allen
+ * @see CombatJournal
+ */
+public class CombatJournalReader implements AutoCloseable {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private FileChannel channel;
+    private long records;
+    private MappedByteBuffer window;
+    private long windowStart = -1;
+
+    /**
+     * A decoded journal record
+     * @param tick
+     * @param attackerId
+     * @param targetId
+     * @param targetIsStarbase
+     * @param damage
+     * @param resultingHealth
+     */
+
+    public record Hit(long tick, int attackerId, int targetId, boolean targetIsStarbase, int damage, int resultingHealth) {
+    }
+
+    /**
+     * Opens a journal file and checks its header
+     * @param path
+     * @throws IOException if the file cannot be read or is not a combat journal
+     */
+
+    public CombatJournalReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() < CombatJournal.HEADER_SIZE) {
+            channel.close();
+            throw new IOException("not a combat journal: " + path);
+        }
+
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CombatJournal.HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != CombatJournal.MAGIC || header.getShort(4) != CombatJournal.VERSION
+                || header.getShort(6) != CombatJournal.RECORD_SIZE) {
+            channel.close();
+            throw new IOException("not a version " + CombatJournal.VERSION + " combat journal: " + path);
+        }
+
+        long recordsInFile = (channel.size() - CombatJournal.HEADER_SIZE) / CombatJournal.RECORD_SIZE;
+        long recordCount = Math.max(0, Math.min(header.getLong(8), recordsInFile));
+        // a closed journal is trimmed to its records; one that was not has records after the count, and then zeros
+        this.records = recordCount < recordsInFile ? countWritten(recordCount, recordsInFile) : recordCount;
+    }
+
+    /**
+     * Counts the records of a journal that was not closed, up to the first one with no attacker, since ship ids start at 1
+     * @param from the number of records known to have been written
+     * @param recordsInFile
+     * @return records
+     * @throws IOException if the file cannot be read
+     */
+
+    private long countWritten(long from, long recordsInFile) throws IOException {
+        long count = from;
+        while (count < recordsInFile) {
+            long position = CombatJournal.HEADER_SIZE + count * CombatJournal.RECORD_SIZE;
+            long length = Math.min(WINDOW_SIZE, channel.size() - position) / CombatJournal.RECORD_SIZE * CombatJournal.RECORD_SIZE;
+            MappedByteBuffer scan = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            scan.order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = 0; offset < length; offset += CombatJournal.RECORD_SIZE) {
+                if (scan.getInt(offset + CombatJournal.ATTACKER_ID) == 0) return count;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of records in the journal
+     * @return records
+     */
+
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Decodes the record at the given index
+     * @param index
+     * @return hit
+     * @throws IOException if the file cannot be read
+     */
+
+    public Hit get(long index) throws IOException {
+        if (index < 0 || index >= records) throw new IndexOutOfBoundsException("record " + index + " of " + records);
+
+        long position = CombatJournal.HEADER_SIZE + index * CombatJournal.RECORD_SIZE;
+        if (windowStart < 0 || position < windowStart || position + CombatJournal.RECORD_SIZE > windowStart + window.capacity()) {
+            windowStart = position;
+            long length = Math.min(WINDOW_SIZE, channel.size() - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        int offset = (int) (position - windowStart);
+        return new Hit(
+                window.getLong(offset + CombatJournal.TICK),
+                window.getInt(offset + CombatJournal.ATTACKER_ID),
+                window.getInt(offset + CombatJournal.TARGET_ID),
+                window.get(offset + CombatJournal.TARGET_TYPE) == CombatJournal.STARBASE,
+                window.getInt(offset + CombatJournal.DAMAGE),
+                window.getInt(offset + CombatJournal.RESULTING_HEALTH));
+    }
+
+    /**
+     * Decodes every record in order
+     * @param action
+     * @throws IOException if the file cannot be read
+     */
+
+    public void forEach(Consumer<Hit> action) throws IOException {
+        for (long i = 0; i < records; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java CombatJournalReader <journal file>");
+            System.exit(2);
+        }
+
+        try (CombatJournalReader reader = new CombatJournalReader(Path.of(args[0]))) {
+            StringBuilder line = new StringBuilder();
+            System.out.println("tick,attackerId,targetType,targetId,damage,resultingHealth");
+            reader.forEach(hit -> {
+                line.setLength(0);
+                line.append(hit.tick()).append(',')
+                        .append(hit.attackerId()).append(',')
+                        .append(hit.targetIsStarbase() ? "starbase" : "starship").append(',')
+                        .append(hit.targetId()).append(',')
+                        .append(hit.damage()).append(',')
+                        .append(hit.resultingHealth());
+                System.out.println(line);
+            });
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is the DockingBay class - it holds the Starships docked in a Starbase, keyed on ship id
+ * so that docking, undocking and membership checks take constant time. A ship's entry is kept after it undocks and reused
+ * when it docks again, so docking the same ships over and over does not allocate
+ * @author Oscar Allen
+ */
+public class DockingBay {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final int ABSENT = -1;
+
+    private int capacity;
+    private List<Starship> ships = new ArrayList<>();
+    private Map<Starship, Position> positions = new HashMap<>();
+
+    /**
+     * Where a ship sits in the bay, or ABSENT
+     */
+
+    private static class Position {
+        private int index = ABSENT;
+    }
+
+    /**
+     * Initialises a DockingBay with no capacity limit
+     */
+
+    public DockingBay() {
+        this(UNLIMITED);
+    }
+
+    /**
+     * Initialises a DockingBay that holds at most the given number of Starships
+     * @param capacity
+     */
+
+    public DockingBay(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a Starship to the bay provided it is not already in it and the bay is not full
+     * @param ship
+     * @return true if the ship was added
+     */
+
+    public boolean add(Starship ship) {
+        if (isFull()) return false;
+
+        Position position = positions.get(ship);
+        if (position == null) {
+            position = new Position();
+            positions.put(ship, position);
+        }
+        if (position.index != ABSENT) return false;
+
+        position.index = ships.size();
+        ships.add(ship);
+        return true;
+    }
+
+    /**
+     * Removes a Starship from the bay, moving the last ship in the bay into its place
+     * @param ship
+     * @return true if the ship was in the bay
+     */
+
+    public boolean remove(Starship ship) {
+        Position position = positions.get(ship);
+        if (position == null || position.index == ABSENT) return false;
+
+        Starship last = ships.removeLast();
+        if (position.index < ships.size()) {
+            ships.set(position.index, last);
+            positions.get(last).index = position.index;
+        }
+        position.index = ABSENT;
+        return true;
+    }
+
+    /**
+     * Checks if a Starship is in the bay
+     * @param ship
+     * @return true or false
+     */
+
+    public boolean contains(Starship ship) {
+        Position position = positions.get(ship);
+        return position != null && position.index != ABSENT;
+    }
+
+    /**
+     * Undocks every ship at once, without touching the ships themselves
+     * @see Starbase#reset(Starbase.Checkpoint)
+     */
+
+    void clear() {
+        for (int i = 0; i < ships.size(); i++) {
+            positions.get(ships.get(i)).index = ABSENT;
+        }
+        ships.clear();
+    }
+
+    /**
+     * Checks if the bay has reached its capacity
+     * @return true or false
+     */
+
+    public boolean isFull() {
+        return ships.size() >= capacity;
+    }
+
+    /**
+     * Gets the maximum number of Starships the bay can hold
+     * @return capacity
+     */
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of Starships in the bay
+     * @return size
+     */
+
+    public int size() {
+        return ships.size();
+    }
+
+    /**
+     * Gets a read-only view of the Starships in the bay
+     * @return ships
+     */
+
+    public List<Starship> getShips() {
+        return Collections.unmodifiableList(ships);
+    }
+}
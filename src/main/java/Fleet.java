@@ -1,6 +1,5 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * This is the Fleet object class
@@ -9,45 +8,118 @@ import java.util.Objects;
 public class Fleet {
 
     private String playerName;
-    private List<Starship> ships = new ArrayList<>();
+    private int fleetId;
+    private ShipStore store;
     private List<Starbase> starbases = new ArrayList<>();
 
     /**
-     * Initialises the Fleet - creating a Starbase and the required number of Ships in the specified Sector
+     * Initialises the Fleet in the default World - creating a Starbase and the required number of Ships in the specified Sector
      * @param playerName
      * @param sector
      * @param numberOfStarships
      */
 
     public Fleet(String playerName, int sector, int numberOfStarships) {
+        this(World.DEFAULT, playerName, sector, numberOfStarships);
+    }
+
+    /**
+     * Initialises the Fleet in the given World - creating a Starbase and the required number of Ships in the specified Sector
+     * @param world
+     * @param playerName
+     * @param sector
+     * @param numberOfStarships
+     */
+
+    public Fleet(World world, String playerName, int sector, int numberOfStarships) {
+        this(world, ShipStats.STANDARD, playerName, sector, numberOfStarships);
+    }
+
+    /**
+     * Initialises the Fleet in the given World with Ships of the given class
+     * @param world
+     * @param shipClass
+     * @param playerName
+     * @param sector
+     * @param numberOfStarships
+     */
+
+    public Fleet(World world, ShipStats shipClass, String playerName, int sector, int numberOfStarships) {
         this.playerName = playerName;
+        this.fleetId = world.getFleetRegistry().register(playerName);
+        this.store = new ShipStore(world, shipClass, numberOfStarships);
+        world.addFleet(this);
 
-        Starbase starbase = new Starbase(sector);
+        Starbase starbase = new Starbase(world, sector, DockingBay.UNLIMITED);
         addStarbase(starbase);
 
         for (int i = 0; i < numberOfStarships; i++) {
-            Starship starship = new Starship(sector);
+            Starship starship = new Starship(store, sector);
             addShip(starship);
         }
     }
 
     /**
-     * Adds a ship to the Fleet
+     * Initialises a Fleet around a store of Ships that already exist, without a Starbase
+     * @param world
+     * @param playerName
+     * @param store
+     * @see WorldSnapshot#load(java.nio.file.Path)
+     */
+
+    Fleet(World world, String playerName, ShipStore store) {
+        this.playerName = playerName;
+        this.fleetId = world.getFleetRegistry().register(playerName);
+        this.store = store;
+        world.addFleet(this);
+    }
+
+    /**
+     * Gets the name of the player that owns the Fleet
+     * @return playerName
+     */
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * Gets the id of the Fleet in its World
+     * @return fleetId
+     * @see FleetRegistry
+     */
+
+    public int getFleetId() {
+        return fleetId;
+    }
+
+    /**
+     * Adds a ship to the Fleet, moving its state into the Fleet's store if it lives elsewhere
      * @param ship
+     * @see ShipStore#adopt(Starship)
      */
 
     public void addShip(Starship ship) {
-        ships.add(ship);
-        ship.setFleet(playerName);
+        store.adopt(ship);
+        store.setFleet(ship.getSlot(), fleetId);
     }
 
     /**
-     * Gets the list of Ships in the Fleet
+     * Gets a read-only view of the Ships in the Fleet
      * @return ships
      */
 
     public List<Starship> getShips() {
-        return ships;
+        return store.ships();
+    }
+
+    /**
+     * Gets the store holding the state of every Ship in the Fleet
+     * @return store
+     */
+
+    public ShipStore getStore() {
+        return store;
     }
 
     /**
@@ -58,6 +130,9 @@ public class Fleet {
     public void addStarbase(Starbase starbase) {
         starbases.add(starbase);
         starbase.setFleet(playerName);
+        starbase.setSectorIndex(store.getSectorIndex());
+        TargetSelector selector = store.getWorld().getTargetSelector();
+        if (selector != null) selector.add(starbase);
     }
 
     /**
@@ -70,38 +145,140 @@ public class Fleet {
     }
 
     /**
-     * Mobilises the fleet by moving all undocked ships into the specified sector
+     * Gets the Fleet's live Ships and Starbases in a sector, without scanning the whole Fleet
      * @param sector
+     * @return targets
+     * @see SectorIndex#getTargets(int)
+     */
+
+    public List<Targetable> getTargetsInSector(int sector) {
+        return store.getSectorIndex().getTargets(sector);
+    }
+
+    /**
+     * Gets the number of Ships in the Fleet that are not destroyed, without walking the Fleet
+     * @return liveShipCount
+     */
+
+    public int getLiveShipCount() {
+        return store.getLiveCount();
+    }
+
+    /**
+     * Gets the total health of the Ships in the Fleet, without walking the Fleet
+     * @return totalHealth
+     */
+
+    public long getTotalHealth() {
+        return store.getTotalHealth();
+    }
+
+    /**
+     * Gets the total attack strength of the Fleet's live Ships in a sector, docked or not, without walking the Fleet
+     * @param sector
+     * @return strength
+     */
+
+    public long getStrengthInSector(int sector) {
+        return store.getStrength(sector);
+    }
+
+    /**
+     * Mobilises the fleet by moving all live, undocked ships into the specified sector; destroyed ships stay where they are.
+     * If the World has a SectorGraph the ships are instead set on course for the sector, and travel there along the quickest
+     * route as turns pass
+     * @param sector
+     * @see World#setSectorGraph(SectorGraph)
      */
 
     public void mobilise(int sector){
-        for (Starship ship : ships) {
-            if (!ship.isDocked()) {
-                ship.moveSector(sector);
-            }
+        SectorGraph graph = store.getWorld().getSectorGraph();
+        if (graph != null) {
+            if (!graph.contains(sector)) throw new IllegalArgumentException("sector " + sector + " is not in the sector graph");
+
+            store.setCourse(sector);
+            return;
+        }
+
+        FleetMetrics metrics = store.getWorld().fleetMetrics(fleetId);
+        if (metrics == null) {
+            store.mobilise(sector);
+            return;
         }
+
+        long start = System.nanoTime();
+        int moved = store.mobilise(sector);
+        metrics.getMobiliseLatency().record(System.nanoTime() - start);
+        metrics.moved(moved);
+    }
+
+    /**
+     * Moves the Fleet's travelling ships one turn along their routes
+     * @param graph
+     * @see World#advanceTurn()
+     */
+
+    void advanceCourse(SectorGraph graph) {
+        int moved = store.advanceCourses(graph);
+        FleetMetrics metrics = store.getWorld().fleetMetrics(fleetId);
+        if (metrics != null) metrics.moved(moved);
     }
 
     /**
-     * Every Ship in the Fleet attacks the chosen target, provided it is undocked, in the same sector and in a different Fleet
+     * Every live Ship in the target's sector attacks the chosen target, provided it is undocked and in a different Fleet
      * @param target
      */
 
     public void attackTarget(Targetable target) {
-        if (Objects.equals(playerName, target.getFleet())) return;
+        store.getWorld().checkSameWorld(target);
+        if (fleetId == target.getFleetId()) return;
 
-        for (Starship ship : ships) {
-            if (!ship.isDocked() && ship.getSector() == target.getSector()) {
-                ship.attack(target);
-            }
+        FleetMetrics metrics = store.getWorld().fleetMetrics(fleetId);
+        if (metrics == null) {
+            store.attack(target, null);
+            return;
         }
+
+        long start = System.nanoTime();
+        store.attack(target, metrics);
+        metrics.getAttackTargetLatency().record(System.nanoTime() - start);
+    }
+
+    /**
+     * Attacks the target again and again until it is destroyed or maxRounds rounds have been played, leaving the target
+     * and the World exactly as that many calls to attackTarget() would, without playing every round
+     * @param target
+     * @param maxRounds
+     * @return the rounds played and the target's health and crew losses
+     * @see Siege#fastForward(Fleet, Targetable, int)
+     */
+
+    public Siege.Result fastForward(Targetable target, int maxRounds) {
+        return Siege.fastForward(this, target, maxRounds);
+    }
+
+    /**
+     * Every live Ship in a sector attacks the best enemy target there, as chosen by the World's TargetSelector
+     * @param sector
+     * @return the target attacked, or null if there was no enemy target in the sector
+     * @throws IllegalStateException if the World has no TargetSelector
+     * @see World#setTargetSelector(TargetSelector)
+     */
+
+    public Targetable attackBestTarget(int sector) {
+        TargetSelector selector = store.getWorld().getTargetSelector();
+        if (selector == null) throw new IllegalStateException("the World has no TargetSelector");
+
+        Targetable target = selector.select(sector, fleetId);
+        if (target != null) attackTarget(target);
+        return target;
     }
 
     @Override
     public String toString() {
         return "Fleet{" +
                 "playerName='" + playerName + '\'' +
-                ", ships=" + ships +
+                ", ships=" + getShips() +
                 ", starbases=" + starbases +
                 '}';
     }
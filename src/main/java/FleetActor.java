@@ -0,0 +1,224 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * This is the FleetActor class - it owns a Fleet and runs every command on the Fleet's Ships and Starbases through a
+ * single mailbox, so any number of players can send commands at once without locks. An attack on another Fleet is a
+ * chain of messages: the defender reports where the target is, the attacker works out its volley, and the defender
+ * applies the hits, so each Fleet's state is only ever touched by its own mailbox
+ * @author Oscar Allen
+ * @see FleetActors
+ */
+public class FleetActor {
+    private FleetActors system;
+    private Fleet fleet;
+    private Mailbox mailbox;
+
+    /**
+     * Initialises the actor for a Fleet
+     * @param system the actor belongs to
+     * @param fleet
+     * @param mailbox
+     */
+
+    FleetActor(FleetActors system, Fleet fleet, Mailbox mailbox) {
+        this.system = system;
+        this.fleet = fleet;
+        this.mailbox = mailbox;
+    }
+
+    /**
+     * Gets the Fleet. Its state should only be read directly once every command sent to it has completed
+     * @return fleet
+     */
+
+    public Fleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Runs any function against the Fleet in its mailbox
+     * @param query
+     * @return future result
+     */
+
+    public <T> CompletableFuture<T> ask(Function<Fleet, T> query) {
+        return mailbox.ask(() -> query.apply(fleet));
+    }
+
+    /**
+     * Mobilises the Fleet
+     * @param sector
+     * @return future completed once the Fleet has moved
+     * @see Fleet#mobilise(int)
+     */
+
+    public CompletableFuture<Void> mobilise(int sector) {
+        return mailbox.ask(() -> {
+            fleet.mobilise(sector);
+            return null;
+        });
+    }
+
+    /**
+     * Moves one of the Fleet's Ships
+     * @param ship
+     * @param sector
+     * @return future completed once the Ship has moved
+     * @see Starship#moveSector(int)
+     */
+
+    public CompletableFuture<Void> moveSector(Starship ship, int sector) {
+        return mailbox.ask(() -> {
+            owned(ship).moveSector(sector);
+            return null;
+        });
+    }
+
+    /**
+     * Docks one of the Fleet's Ships with one of its Starbases
+     * @param ship
+     * @param base
+     * @return future true if the ship is docked
+     * @see Starship#dockWithStarbase(Starbase)
+     */
+
+    public CompletableFuture<Boolean> dock(Starship ship, Starbase base) {
+        return mailbox.ask(() -> {
+            if (!fleet.getStarbases().contains(base)) throw new IllegalArgumentException(base + " is not in " + fleet.getPlayerName() + "'s fleet");
+
+            owned(ship).dockWithStarbase(base);
+            return ship.isDocked();
+        });
+    }
+
+    /**
+     * Undocks one of the Fleet's Ships
+     * @param ship
+     * @return future true if the ship is undocked
+     * @see Starship#unDockWithStarbase()
+     */
+
+    public CompletableFuture<Boolean> undock(Starship ship) {
+        return mailbox.ask(() -> {
+            owned(ship).unDockWithStarbase();
+            return !ship.isDocked();
+        });
+    }
+
+    /**
+     * Repairs one of the Fleet's docked Ships, scheduling the end of the repair through the World's mailbox
+     * @param ship
+     * @return future true if the repair started
+     * @see Starship#repair()
+     */
+
+    public CompletableFuture<Boolean> repair(Starship ship) {
+        return mailbox.ask(() -> {
+            int turns = owned(ship).startRepair();
+            if (turns > 0) system.scheduleRepair(ship, turns);
+            return turns > 0;
+        });
+    }
+
+    /**
+     * Every live, undocked Ship of the Fleet in the target's sector attacks a target in another Fleet, as
+     * Fleet.attackTarget() does. If the defender moves the target, or it is destroyed, while the attacker works out its
+     * volley, the volley misses
+     * @param defender actor of the Fleet the target belongs to
+     * @param target
+     * @return future health of the target after the attack, completed with whatever a step of the attack threw
+     * @see Fleet#attackTarget(Targetable)
+     */
+
+    public CompletableFuture<Integer> attack(FleetActor defender, Targetable target) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        defender.mailbox.tell(completing(result, () -> {
+            if (!defender.owns(target)) {
+                result.completeExceptionally(new IllegalArgumentException(target + " is not in " + defender.fleet.getPlayerName() + "'s fleet"));
+                return;
+            }
+            int targetSector = target.getSector();
+            int targetFleet = target.getFleetId();
+            if (targetFleet == fleet.getFleetId()) {
+                result.complete(target.getCurrentHealth());
+                return;
+            }
+
+            mailbox.tell(completing(result, () -> {
+                int[] volley = fleet.getStore().volley(targetSector, targetFleet);
+                defender.mailbox.tell(completing(result,
+                        () -> result.complete(defender.takeVolley(fleet, volley, target, targetSector, targetFleet))));
+            }));
+        }));
+        return result;
+    }
+
+    /**
+     * Wraps one step of a chain of messages so that anything it throws completes the chain's future
+     * @param result of the chain
+     * @param step
+     * @return message
+     */
+
+    private static Runnable completing(CompletableFuture<?> result, Runnable step) {
+        return () -> {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Applies an attacking Fleet's volley to a target in this Fleet, one hit at a time as ShipStore.attack() does.
+     * The volley was worked out for where the target was when the attack began, so it misses if the target has since
+     * moved, changed fleet or been destroyed
+     * @param attacker
+     * @param volley attack strengths
+     * @param target
+     * @param targetSector the volley was worked out for
+     * @param targetFleet the volley was worked out for
+     * @return health of the target after the volley
+     */
+
+    private int takeVolley(Fleet attacker, int[] volley, Targetable target, int targetSector, int targetFleet) {
+        if (target.getSector() != targetSector || target.getFleetId() != targetFleet || target.isDestroyed()) {
+            return target.getCurrentHealth();
+        }
+
+        long damage = 0;
+        for (int strength : volley) {
+            int hit = Math.max(strength - target.getCurrentDefence(), 5);
+            target.takeDamage(hit);
+            damage += hit;
+        }
+
+        FleetMetrics metrics = fleet.getStore().getWorld().fleetMetrics(attacker.getFleetId());
+        if (metrics != null) metrics.attacked(volley.length, damage);
+        return target.getCurrentHealth();
+    }
+
+    private boolean owns(Targetable target) {
+        if (target instanceof Starship ship) return ship.getStore() == fleet.getStore();
+        return fleet.getStarbases().contains(target);
+    }
+
+    private Starship owned(Starship ship) {
+        if (!owns(ship)) throw new IllegalArgumentException(ship + " is not in " + fleet.getPlayerName() + "'s fleet");
+        return ship;
+    }
+
+    /**
+     * Clears a Ship's repair once its turns have passed
+     * @param ship
+     */
+
+    void finishRepair(Starship ship) {
+        mailbox.tell(ship::finishRepair);
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This is the FleetActors class - it gives every Fleet in a World a FleetActor, and the World itself a mailbox for the
+ * repair timers and the turn. Once the actors are created, the World should only be changed through them.
+ * Hits are not journalled, so the World must not have a CombatJournal, and Fleets move straight to their sector, so it
+ * must not have a SectorGraph
+ * @author Oscar Allen
+ */
+public class FleetActors {
+    private World world;
+    private Mailbox worldMailbox;
+    private List<FleetActor> actors = new ArrayList<>();
+    private Map<ShipStore, FleetActor> byStore = new HashMap<>();
+
+    /**
+     * Creates actors for every Fleet in the World, running on the common ForkJoin pool
+     * @param world
+     */
+
+    public FleetActors(World world) {
+        this(world, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates actors for every Fleet in the World, running on the given executor
+     * @param world
+     * @param executor
+     */
+
+    public FleetActors(World world, Executor executor) {
+        if (world.getJournal() != null) throw new IllegalStateException("hits cannot be journalled from fleet actors");
+        if (world.getSectorGraph() != null) throw new IllegalStateException("fleet actors cannot follow a sector graph");
+        world.checkKeepsFleets();
+
+        this.world = world;
+        this.worldMailbox = new Mailbox(executor);
+        for (Fleet fleet : world.getFleets()) {
+            FleetActor actor = new FleetActor(this, fleet, new Mailbox(executor));
+            actors.add(actor);
+            byStore.put(fleet.getStore(), actor);
+        }
+    }
+
+    /**
+     * Gets the actor of a Fleet
+     * @param fleet
+     * @return actor
+     */
+
+    public FleetActor actorOf(Fleet fleet) {
+        FleetActor actor = byStore.get(fleet.getStore());
+        if (actor == null) throw new IllegalArgumentException(fleet.getPlayerName() + "'s fleet has no actor");
+        return actor;
+    }
+
+    /**
+     * Gets a read-only list of every actor, in the order their Fleets were created
+     * @return actors
+     */
+
+    public List<FleetActor> getActors() {
+        return Collections.unmodifiableList(actors);
+    }
+
+    /**
+     * Advances the World by one turn. Repairs that are due are finished in their Fleet's mailbox, ahead of any command
+     * sent to that Fleet after the returned future completes
+     * @return future turn
+     */
+
+    public CompletableFuture<Long> endTurn() {
+        return worldMailbox.ask(() -> {
+            world.advanceTurn(ship -> byStore.get(ship.getStore()).finishRepair(ship));
+            return world.getTurn();
+        });
+    }
+
+    /**
+     * Schedules the end of a repair in the World's mailbox
+     * @param ship
+     * @param turns
+     */
+
+    void scheduleRepair(Starship ship, int turns) {
+        worldMailbox.tell(() -> world.getRepairScheduler().schedule(ship, turns));
+    }
+}
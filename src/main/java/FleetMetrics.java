@@ -0,0 +1,165 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the FleetMetrics class - it counts what one Fleet's Starships do and times its attackTarget() and mobilise() calls.
+ * The counters are striped LongAdders, so they can be read over JMX while the simulation runs without slowing it down
+ * @author Oscar Allen
+ * @see GameMetrics
+ */
+public class FleetMetrics implements FleetMetricsMXBean {
+    private String fleetName;
+
+    private LongAdder attacks = new LongAdder();
+    private LongAdder damageDealt = new LongAdder();
+    private LongAdder shipsDestroyed = new LongAdder();
+    private LongAdder docks = new LongAdder();
+    private LongAdder undocks = new LongAdder();
+    private LongAdder repairs = new LongAdder();
+    private LongAdder sectorMoves = new LongAdder();
+    private LatencyHistogram attackTargetLatency = new LatencyHistogram();
+    private LatencyHistogram mobiliseLatency = new LatencyHistogram();
+
+    /**
+     * Initialises the metrics of a Fleet with every count at 0
+     * @param fleetName
+     */
+
+    public FleetMetrics(String fleetName) {
+        this.fleetName = fleetName;
+    }
+
+    void attacked(int hits, long damage) {
+        if (hits == 0) return;
+
+        attacks.add(hits);
+        damageDealt.add(damage);
+    }
+
+    void shipDestroyed() {
+        shipsDestroyed.increment();
+    }
+
+    void docked() {
+        docks.increment();
+    }
+
+    void undocked() {
+        undocks.increment();
+    }
+
+    void repaired() {
+        repairs.increment();
+    }
+
+    void moved(int ships) {
+        if (ships > 0) sectorMoves.add(ships);
+    }
+
+    /**
+     * Gets the histogram of Fleet.attackTarget() times
+     * @return attackTargetLatency
+     */
+
+    public LatencyHistogram getAttackTargetLatency() {
+        return attackTargetLatency;
+    }
+
+    /**
+     * Gets the histogram of Fleet.mobilise() times
+     * @return mobiliseLatency
+     */
+
+    public LatencyHistogram getMobiliseLatency() {
+        return mobiliseLatency;
+    }
+
+    @Override
+    public String getFleetName() {
+        return fleetName;
+    }
+
+    @Override
+    public long getAttacks() {
+        return attacks.sum();
+    }
+
+    @Override
+    public long getDamageDealt() {
+        return damageDealt.sum();
+    }
+
+    @Override
+    public long getShipsDestroyed() {
+        return shipsDestroyed.sum();
+    }
+
+    @Override
+    public long getDocks() {
+        return docks.sum();
+    }
+
+    @Override
+    public long getUndocks() {
+        return undocks.sum();
+    }
+
+    @Override
+    public long getRepairs() {
+        return repairs.sum();
+    }
+
+    @Override
+    public long getSectorMoves() {
+        return sectorMoves.sum();
+    }
+
+    @Override
+    public long getAttackTargetCalls() {
+        return attackTargetLatency.getCount();
+    }
+
+    @Override
+    public double getAttackTargetMeanNanos() {
+        return attackTargetLatency.getMean();
+    }
+
+    @Override
+    public long getAttackTargetP50Nanos() {
+        return attackTargetLatency.getPercentile(50);
+    }
+
+    @Override
+    public long getAttackTargetP99Nanos() {
+        return attackTargetLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getAttackTargetMaxNanos() {
+        return attackTargetLatency.getMax();
+    }
+
+    @Override
+    public long getMobiliseCalls() {
+        return mobiliseLatency.getCount();
+    }
+
+    @Override
+    public double getMobiliseMeanNanos() {
+        return mobiliseLatency.getMean();
+    }
+
+    @Override
+    public long getMobiliseP50Nanos() {
+        return mobiliseLatency.getPercentile(50);
+    }
+
+    @Override
+    public long getMobiliseP99Nanos() {
+        return mobiliseLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getMobiliseMaxNanos() {
+        return mobiliseLatency.getMax();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * This is the FleetMetricsMXBean interface - the per-Fleet counters and latencies published over JMX
+ * @author Oscar Allen
+ * @see FleetMetrics
+ */
+public interface FleetMetricsMXBean {
+    /**
+     * Gets the name of the Fleet
+     * @return fleetName
+     */
+    String getFleetName();
+
+    /**
+     * Gets the number of hits made by the Fleet's Starships
+     * @return attacks
+     */
+    long getAttacks();
+
+    /**
+     * Gets the total damage dealt by the Fleet's Starships
+     * @return damageDealt
+     */
+    long getDamageDealt();
+
+    /**
+     * Gets the number of the Fleet's Starships that have been destroyed
+     * @return shipsDestroyed
+     */
+    long getShipsDestroyed();
+
+    /**
+     * Gets the number of times a Starship of the Fleet has docked
+     * @return docks
+     */
+    long getDocks();
+
+    /**
+     * Gets the number of times a Starship of the Fleet has undocked
+     * @return undocks
+     */
+    long getUndocks();
+
+    /**
+     * Gets the number of repairs started on the Fleet's Starships
+     * @return repairs
+     */
+    long getRepairs();
+
+    /**
+     * Gets the number of times a Starship of the Fleet has changed sector
+     * @return sectorMoves
+     */
+    long getSectorMoves();
+
+    /**
+     * Gets the number of Fleet.attackTarget() calls timed
+     * @return calls
+     */
+    long getAttackTargetCalls();
+
+    /**
+     * Gets the mean time taken by Fleet.attackTarget()
+     * @return nanoseconds
+     */
+    double getAttackTargetMeanNanos();
+
+    /**
+     * Gets the median time taken by Fleet.attackTarget()
+     * @return nanoseconds
+     */
+    long getAttackTargetP50Nanos();
+
+    /**
+     * Gets the 99th percentile time taken by Fleet.attackTarget()
+     * @return nanoseconds
+     */
+    long getAttackTargetP99Nanos();
+
+    /**
+     * Gets the longest time taken by Fleet.attackTarget()
+     * @return nanoseconds
+     */
+    long getAttackTargetMaxNanos();
+
+    /**
+     * Gets the number of Fleet.mobilise() calls timed
+     * @return calls
+     */
+    long getMobiliseCalls();
+
+    /**
+     * Gets the mean time taken by Fleet.mobilise()
+     * @return nanoseconds
+     */
+    double getMobiliseMeanNanos();
+
+    /**
+     * Gets the median time taken by Fleet.mobilise()
+     * @return nanoseconds
+     */
+    long getMobiliseP50Nanos();
+
+    /**
+     * Gets the 99th percentile time taken by Fleet.mobilise()
+     * @return nanoseconds
+     */
+    long getMobiliseP99Nanos();
+
+    /**
+     * Gets the longest time taken by Fleet.mobilise()
+     * @return nanoseconds
+     */
+    long getMobiliseMaxNanos();
+}
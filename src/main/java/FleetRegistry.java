@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is the FleetRegistry class - it gives each fleet name in a World a compact int id, so ownership checks
+ * compare ints and names are only looked up for display
+ * @author Oscar Allen
+ */
+public class FleetRegistry {
+    /**
+     * The id of Starships and Starbases that do not belong to a fleet
+     */
+    public static final int NO_FLEET = -1;
+
+    private List<String> names = new ArrayList<>();
+    private Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Gets the id of a fleet name, registering it if it is new
+     * @param name
+     * @return id, or NO_FLEET for null
+     */
+
+    public int register(String name) {
+        if (name == null) return NO_FLEET;
+
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a fleet name that is already registered
+     * @param name
+     * @return id
+     * @throws IllegalArgumentException if no fleet has the name
+     */
+
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id == null) throw new IllegalArgumentException("no fleet named " + name);
+
+        return id;
+    }
+
+    /**
+     * Gets the name of a fleet id
+     * @param id
+     * @return name, or null for NO_FLEET
+     */
+
+    public String nameOf(int id) {
+        return id == NO_FLEET ? null : names.get(id);
+    }
+
+    /**
+     * Gets the number of registered fleets
+     * @return size
+     */
+
+    public int size() {
+        return names.size();
+    }
+}
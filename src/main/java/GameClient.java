@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * This is the GameClient class - a blocking connection to a GameServer that sends one command at a time.
+ * A client is not thread-safe; give each thread its own
+ * @author Oscar Allen
+ * @see GameProtocol
+ */
+public class GameClient implements AutoCloseable {
+    private SocketChannel channel;
+    private ByteBuffer request = ByteBuffer.allocate(GameProtocol.MAX_REQUEST_SIZE);
+    private ByteBuffer response = ByteBuffer.allocate(GameProtocol.RESPONSE_SIZE);
+
+    /**
+     * Connects to a server
+     * @param host
+     * @param port
+     * @throws IOException if the server cannot be reached
+     */
+
+    public GameClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Starts a new match of two Fleets, Player 1 in sector 1 and Player 2 in sector 2
+     * @param shipsPerFleet up to GameProtocol.MAX_SHIPS_PER_FLEET
+     * @return matchId
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public int createMatch(int shipsPerFleet) throws IOException {
+        return send(GameProtocol.CREATE_MATCH, shipsPerFleet);
+    }
+
+    /**
+     * Mobilises a player's Fleet
+     * @param matchId
+     * @param player 0 or 1
+     * @param sector
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public void mobilise(int matchId, int player, int sector) throws IOException {
+        send(GameProtocol.MOBILISE, matchId, player, sector);
+    }
+
+    /**
+     * Has a player's Fleet attack one of the other player's Ships, or their Starbase
+     * @param matchId
+     * @param player 0 or 1
+     * @param targetPlayer 0 or 1
+     * @param targetShip index of the ship, or GameProtocol.STARBASE
+     * @return target health after the attack
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public int attack(int matchId, int player, int targetPlayer, int targetShip) throws IOException {
+        return send(GameProtocol.ATTACK, matchId, player, targetPlayer, targetShip);
+    }
+
+    /**
+     * Docks one of a player's Ships with the Fleet's Starbase
+     * @param matchId
+     * @param player
+     * @param ship index
+     * @return true if the ship is docked
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public boolean dock(int matchId, int player, int ship) throws IOException {
+        return send(GameProtocol.DOCK, matchId, player, ship) == 1;
+    }
+
+    /**
+     * Undocks one of a player's Ships
+     * @param matchId
+     * @param player
+     * @param ship index
+     * @return true if the ship is undocked
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public boolean undock(int matchId, int player, int ship) throws IOException {
+        return send(GameProtocol.UNDOCK, matchId, player, ship) == 1;
+    }
+
+    /**
+     * Repairs one of a player's docked Ships
+     * @param matchId
+     * @param player
+     * @param ship index
+     * @return true if the ship is under repair
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public boolean repair(int matchId, int player, int ship) throws IOException {
+        return send(GameProtocol.REPAIR, matchId, player, ship) == 1;
+    }
+
+    /**
+     * Advances a match by one turn
+     * @param matchId
+     * @return turn
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public int endTurn(int matchId) throws IOException {
+        return send(GameProtocol.END_TURN, matchId);
+    }
+
+    /**
+     * Ends a match
+     * @param matchId
+     * @throws IOException if the connection fails or the server rejects the command
+     */
+
+    public void closeMatch(int matchId) throws IOException {
+        send(GameProtocol.CLOSE_MATCH, matchId);
+    }
+
+    private int send(byte opcode, int... arguments) throws IOException {
+        GameProtocol.putRequest(request, opcode, arguments);
+        GameProtocol.writeFully(channel, request);
+
+        response.clear();
+        if (!GameProtocol.readFully(channel, response)) throw new IOException("server closed the connection");
+        byte status = response.get(0);
+        int value = response.getInt(1);
+        if (status != GameProtocol.OK) throw new IOException("server rejected command " + opcode + " with status " + status);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
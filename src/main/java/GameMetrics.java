@@ -0,0 +1,163 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This is the GameMetrics class - it holds the FleetMetrics of every fleet in a World and publishes each of them as
+ * an MBean named rsm:type=FleetMetrics,world="name",fleet="name". The metrics of every fleet already registered are
+ * published when the metrics are enabled, and those of each Fleet created afterwards as it is created, so counting
+ * never publishes anything
+ * @author Oscar Allen
+ * @see World#enableMetrics(String)
+ */
+public class GameMetrics implements AutoCloseable {
+    static final String DOMAIN = "rsm";
+
+    private String worldName;
+    private FleetRegistry registry;
+    private MBeanServer server;
+    private volatile FleetMetrics[] fleets = new FleetMetrics[0];
+    private List<ObjectName> registered = new ArrayList<>();
+
+    /**
+     * Initialises the metrics of a World and publishes those of every fleet registered so far to the given MBean server
+     * @param worldName used in the MBean names, so it must be unique among Worlds publishing to the server
+     * @param registry of the World's fleets
+     * @param server to publish to, or null to keep the metrics private
+     * @throws IllegalStateException if metrics are already published under the world name
+     */
+
+    GameMetrics(String worldName, FleetRegistry registry, MBeanServer server) {
+        this.worldName = worldName;
+        this.registry = registry;
+        this.server = server;
+        if (server != null) checkWorldNameIsFree();
+        try {
+            publishRegistered();
+        } catch (IllegalStateException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Initialises the metrics of a World, publishing them to the platform MBean server
+     * @param worldName
+     * @param registry
+     * @throws IllegalStateException if metrics are already published under the world name
+     */
+
+    GameMetrics(String worldName, FleetRegistry registry) {
+        this(worldName, registry, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Gets the name of the World the metrics belong to
+     * @return worldName
+     */
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Gets the metrics of a fleet
+     * @param fleetId
+     * @return metrics, or null for FleetRegistry.NO_FLEET and for fleet names registered since the metrics were enabled
+     * without creating a Fleet
+     */
+
+    public FleetMetrics fleet(int fleetId) {
+        FleetMetrics[] fleets = this.fleets;
+        return fleetId < 0 || fleetId >= fleets.length ? null : fleets[fleetId];
+    }
+
+    /**
+     * Gets the name an MBean for a fleet is published under
+     * @param fleetName
+     * @return objectName
+     */
+
+    public ObjectName objectName(String fleetName) {
+        try {
+            return new ObjectName(DOMAIN + ":type=FleetMetrics,world=" + ObjectName.quote(worldName)
+                    + ",fleet=" + ObjectName.quote(fleetName));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("invalid metrics name for fleet " + fleetName, e);
+        }
+    }
+
+    /**
+     * Checks that no metrics are published under the world name yet
+     * @throws IllegalStateException if there are
+     */
+
+    private void checkWorldNameIsFree() {
+        try {
+            ObjectName pattern = new ObjectName(DOMAIN + ":type=FleetMetrics,world=" + ObjectName.quote(worldName) + ",*");
+            if (!server.queryNames(pattern, null).isEmpty()) {
+                throw new IllegalStateException("metrics are already published for a world named " + worldName);
+            }
+        } catch (JMException e) {
+            throw new IllegalArgumentException("invalid metrics name for world " + worldName, e);
+        }
+    }
+
+    /**
+     * Removes every MBean this World published
+     */
+
+    @Override
+    public synchronized void close() {
+        if (server == null) return;
+
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already gone
+            }
+        }
+        registered.clear();
+    }
+
+    /**
+     * Creates and publishes the metrics of every fleet registered since the last call
+     * @throws IllegalStateException if an MBean of the same name is already published
+     * @see World#addFleet(Fleet)
+     */
+
+    synchronized void publishRegistered() {
+        int from = fleets.length;
+        if (from == registry.size()) return;
+
+        FleetMetrics[] grown = new FleetMetrics[registry.size()];
+        System.arraycopy(fleets, 0, grown, 0, from);
+        int id = from;
+        try {
+            for (; id < grown.length; id++) {
+                grown[id] = new FleetMetrics(registry.nameOf(id));
+                publish(grown[id]);
+            }
+        } finally {
+            // only the metrics that were published
+            fleets = id == grown.length ? grown : Arrays.copyOf(grown, id);
+        }
+    }
+
+    private void publish(FleetMetrics metrics) {
+        if (server == null) return;
+
+        ObjectName name = objectName(metrics.getFleetName());
+        try {
+            server.registerMBean(metrics, name);
+            registered.add(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not publish metrics as " + name, e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+/**
+ * This is the GameProtocol class - the framing shared by GameServer and GameClient. A request is one length byte, an opcode
+ * byte and the opcode's int arguments. A response is a status byte and one int value
+ * @author Oscar Allen
+ */
+public final class GameProtocol {
+    static final byte CREATE_MATCH = 1;
+    static final byte MOBILISE = 2;
+    static final byte ATTACK = 3;
+    static final byte DOCK = 4;
+    static final byte UNDOCK = 5;
+    static final byte REPAIR = 6;
+    static final byte END_TURN = 7;
+    static final byte CLOSE_MATCH = 8;
+
+    static final byte OK = 0;
+    static final byte UNKNOWN_MATCH = 1;
+    static final byte BAD_ARGUMENT = 2;
+    static final byte BAD_COMMAND = 3;
+
+    static final int STARBASE = -1;
+    static final int MAX_SHIPS_PER_FLEET = 10_000;
+    static final int MAX_ARGUMENTS = 4;
+    static final int MAX_REQUEST_SIZE = 2 + MAX_ARGUMENTS * Integer.BYTES;
+    static final int RESPONSE_SIZE = 1 + Integer.BYTES;
+
+    private GameProtocol() {
+    }
+
+    /**
+     * Gets the number of int arguments an opcode takes
+     * @param opcode
+     * @return arguments, or -1 for an unknown opcode
+     */
+
+    static int arguments(byte opcode) {
+        return switch (opcode) {
+            case CREATE_MATCH, END_TURN, CLOSE_MATCH -> 1;
+            case MOBILISE, DOCK, UNDOCK, REPAIR -> 3;
+            case ATTACK -> 4;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Writes a request into the buffer, ready to be sent
+     * @param buffer at least MAX_REQUEST_SIZE bytes
+     * @param opcode
+     * @param arguments
+     */
+
+    static void putRequest(ByteBuffer buffer, byte opcode, int... arguments) {
+        buffer.clear();
+        buffer.put((byte) (1 + arguments.length * Integer.BYTES));
+        buffer.put(opcode);
+        for (int argument : arguments) {
+            buffer.putInt(argument);
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes a response into the buffer, ready to be sent
+     * @param buffer at least RESPONSE_SIZE bytes
+     * @param status
+     * @param value
+     */
+
+    static void putResponse(ByteBuffer buffer, byte status, int value) {
+        buffer.clear();
+        buffer.put(status);
+        buffer.putInt(value);
+        buffer.flip();
+    }
+
+    /**
+     * Reads from the channel until the buffer is full
+     * @param channel
+     * @param buffer
+     * @return false if the channel was closed before anything was read
+     * @throws IOException if the channel fails or closes part way through
+     */
+
+    static boolean readFully(ByteChannel channel, ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == start) return false;
+                throw new EOFException("connection closed part way through a frame");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the whole buffer to the channel
+     * @param channel
+     * @param buffer
+     * @throws IOException if the channel fails
+     */
+
+    static void writeFully(ByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the GameServer class - a headless server that hosts many matches at once. Each match is two Fleets in a World of
+ * its own, and each connection is served by a virtual thread that reads GameProtocol frames from a blocking NIO channel.
+ * Commands for the same match from different connections are applied one at a time, and a match is dropped when the
+ * connection that created it closes. Run it with: java GameServer [port]
+ * @author Oscar Allen
+ * @see GameClient
+ */
+public class GameServer implements AutoCloseable {
+    static final String[] PLAYERS = {"Player 1", "Player 2"};
+    private static final int BACKLOG = 4096;
+
+    private ServerSocketChannel server;
+    private ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private Map<Integer, Match> matches = new ConcurrentHashMap<>();
+    private AtomicInteger matchIds = new AtomicInteger();
+
+    /**
+     * A match in progress. Its World is not thread-safe, so every command takes the lock
+     */
+
+    private static class Match {
+        private World world = new World();
+        private Fleet[] fleets = new Fleet[PLAYERS.length];
+        private ReentrantLock lock = new ReentrantLock();
+
+        Match(int shipsPerFleet) {
+            for (int player = 0; player < fleets.length; player++) {
+                fleets[player] = new Fleet(world, PLAYERS[player], player + 1, shipsPerFleet);
+            }
+        }
+    }
+
+    /**
+     * Starts a server listening on the loopback address
+     * @param port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+
+    public GameServer(int port) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        sessions.submit(this::acceptConnections);
+    }
+
+    /**
+     * Gets the port the server is listening on
+     * @return port
+     */
+
+    public int getPort() {
+        return ((InetSocketAddress) server.socket().getLocalSocketAddress()).getPort();
+    }
+
+    /**
+     * Gets the number of matches in progress
+     * @return matches
+     */
+
+    public int getMatchCount() {
+        return matches.size();
+    }
+
+    /**
+     * Stops accepting connections, closes every open connection and drops every match
+     * @throws IOException if the listening socket cannot be closed
+     */
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        sessions.shutdownNow();
+        matches.clear();
+    }
+
+    private void acceptConnections() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel connection = server.accept();
+                connection.socket().setTcpNoDelay(true);
+                connections.add(connection);
+                sessions.submit(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("GameServer could not accept a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Answers one connection's requests in order until it closes
+     * @param connection
+     */
+
+    private void serve(SocketChannel connection) {
+        ByteBuffer request = ByteBuffer.allocate(GameProtocol.MAX_REQUEST_SIZE);
+        ByteBuffer response = ByteBuffer.allocate(GameProtocol.RESPONSE_SIZE);
+        int[] arguments = new int[GameProtocol.MAX_ARGUMENTS];
+        List<Integer> created = new ArrayList<>();
+
+        try (connection) {
+            while (true) {
+                request.clear().limit(1);
+                if (!GameProtocol.readFully(connection, request)) return;
+
+                int length = request.get(0) & 0xFF;
+                if (length < 1 || length > GameProtocol.MAX_REQUEST_SIZE - 1) return;
+                request.clear().limit(length);
+                if (!GameProtocol.readFully(connection, request)) return;
+                request.flip();
+
+                byte opcode = request.get();
+                int count = GameProtocol.arguments(opcode);
+                if (count < 0 || length != 1 + count * Integer.BYTES) {
+                    GameProtocol.putResponse(response, GameProtocol.BAD_COMMAND, opcode);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        arguments[i] = request.getInt();
+                    }
+                    execute(opcode, arguments, response, created);
+                }
+                GameProtocol.writeFully(connection, response);
+            }
+        } catch (IOException e) {
+            // the client went away
+        } finally {
+            connections.remove(connection);
+            for (Integer matchId : created) {
+                matches.remove(matchId);
+            }
+        }
+    }
+
+    /**
+     * Runs one command and writes its response
+     * @param opcode
+     * @param arguments
+     * @param response
+     * @param created the ids of the matches the connection created and has not closed
+     */
+
+    void execute(byte opcode, int[] arguments, ByteBuffer response, List<Integer> created) {
+        if (opcode == GameProtocol.CREATE_MATCH) {
+            if (arguments[0] < 0 || arguments[0] > GameProtocol.MAX_SHIPS_PER_FLEET) {
+                GameProtocol.putResponse(response, GameProtocol.BAD_ARGUMENT, arguments[0]);
+                return;
+            }
+            int matchId = matchIds.incrementAndGet();
+            matches.put(matchId, new Match(arguments[0]));
+            created.add(matchId);
+            GameProtocol.putResponse(response, GameProtocol.OK, matchId);
+            return;
+        }
+
+        Match match = opcode == GameProtocol.CLOSE_MATCH ? matches.remove(arguments[0]) : matches.get(arguments[0]);
+        if (match == null) {
+            GameProtocol.putResponse(response, GameProtocol.UNKNOWN_MATCH, arguments[0]);
+            return;
+        }
+        if (opcode == GameProtocol.CLOSE_MATCH) created.remove(Integer.valueOf(arguments[0]));
+
+        match.lock.lock();
+        try {
+            int value = apply(match, opcode, arguments);
+            GameProtocol.putResponse(response, GameProtocol.OK, value);
+        } catch (RuntimeException e) {
+            // a player or ship that does not exist, or a command the game cannot carry out; either way the session goes on
+            GameProtocol.putResponse(response, GameProtocol.BAD_ARGUMENT, 0);
+        } finally {
+            match.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a command to a match
+     * @return the command's result
+     * @throws IndexOutOfBoundsException if a player or ship does not exist
+     */
+
+    private int apply(Match match, byte opcode, int[] arguments) {
+        switch (opcode) {
+            case GameProtocol.MOBILISE -> {
+                match.fleets[arguments[1]].mobilise(arguments[2]);
+                return 0;
+            }
+            case GameProtocol.ATTACK -> {
+                Fleet fleet = match.fleets[arguments[2]];
+                Targetable target = arguments[3] == GameProtocol.STARBASE
+                        ? fleet.getStarbases().getFirst()
+                        : fleet.getShips().get(arguments[3]);
+                match.fleets[arguments[1]].attackTarget(target);
+                return target.getCurrentHealth();
+            }
+            case GameProtocol.DOCK -> {
+                Fleet fleet = match.fleets[arguments[1]];
+                Starship ship = fleet.getShips().get(arguments[2]);
+                ship.dockWithStarbase(fleet.getStarbases().getFirst());
+                return ship.isDocked() ? 1 : 0;
+            }
+            case GameProtocol.UNDOCK -> {
+                Starship ship = match.fleets[arguments[1]].getShips().get(arguments[2]);
+                ship.unDockWithStarbase();
+                return ship.isDocked() ? 0 : 1;
+            }
+            case GameProtocol.REPAIR -> {
+                Starship ship = match.fleets[arguments[1]].getShips().get(arguments[2]);
+                ship.repair();
+                return ship.isUnderRepair() ? 1 : 0;
+            }
+            case GameProtocol.END_TURN -> {
+                match.world.advanceTurn();
+                return (int) match.world.getTurn();
+            }
+            case GameProtocol.CLOSE_MATCH -> {
+                return (int) match.world.getTurn();
+            }
+            default -> throw new IllegalStateException("unhandled opcode " + opcode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        try (GameServer server = new GameServer(port)) {
+            System.out.println("GameServer listening on localhost:" + server.getPort());
+            Thread.currentThread().join();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the LatencyHistogram class - it counts durations in log-linear buckets that are fixed when it is created,
+ * so recording is a couple of atomic increments and never allocates. Values under 64ns are exact and larger values are
+ * kept to within about 3%. It can be recorded to and read from different threads at the same time
+ * @author Oscar Allen
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+    private static final int EXACT_BITS = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = EXACT_LIMIT + (Long.SIZE - 1 - EXACT_BITS) * SUB_BUCKETS;
+
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private LongAdder count = new LongAdder();
+    private LongAdder total = new LongAdder();
+    private AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration
+     * @param nanos negative values are recorded as 0
+     */
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        total.add(nanos);
+
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+        }
+    }
+
+    /**
+     * Gets the number of durations recorded
+     * @return count
+     */
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the durations recorded
+     * @return mean in nanoseconds, or 0 if nothing has been recorded
+     */
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * Gets the longest duration recorded
+     * @return max in nanoseconds
+     */
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the duration that the given percentage of recorded durations are at or below, rounded up to the top of its bucket
+     * @param percentile between 0 and 100
+     * @return nanoseconds, or 0 if nothing has been recorded
+     */
+
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            recorded += counts.get(i);
+        }
+        if (recorded == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Works out which bucket a value falls in. Values below EXACT_LIMIT get a bucket each; above that each power of two
+     * is split into SUB_BUCKETS buckets
+     * @param value at least 0
+     * @return bucket
+     */
+
+    static int bucket(long value) {
+        if (value < EXACT_LIMIT) return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_LIMIT + (exponent - EXACT_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the smallest value that falls in a bucket
+     * @param bucket
+     * @return value
+     */
+
+    static long lowerBound(int bucket) {
+        if (bucket < EXACT_LIMIT) return bucket;
+
+        int exponent = (bucket - EXACT_LIMIT) / SUB_BUCKETS + EXACT_BITS;
+        int sub = (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This is the LoadTestClient class - it opens many connections to a GameServer, each playing its own match on a virtual
+ * thread, and reports commands per second and command latency. Run it with:
+ * java LoadTestClient [connections] [seconds] [port]. Without a port it starts a server in the same JVM
+ * @author Oscar Allen
+ */
+public class LoadTestClient {
+    private static final int SHIPS_PER_FLEET = 10;
+
+    private String host;
+    private int port;
+
+    /**
+     * Initialises a load test against the server at host:port
+     * @param host
+     * @param port
+     */
+
+    public LoadTestClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * The outcome of a load test
+     * @param commands sent
+     * @param nanos the test ran for
+     * @param latency of every command
+     */
+
+    public record Result(long commands, long nanos, LatencyHistogram latency) {
+
+        /**
+         * Gets the number of commands answered per second
+         * @return commandsPerSecond
+         */
+
+        public double commandsPerSecond() {
+            return commands * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commands in %.1fs: %.0f commands/s, latency p50 %.1fus, p99 %.1fus, max %.1fus",
+                    commands, nanos / 1e9, commandsPerSecond(),
+                    latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3, latency.getMax() / 1e3);
+        }
+    }
+
+    /**
+     * Runs the given number of connections for the given time, each repeatedly mobilising, attacking, docking,
+     * repairing and ending turns in a match of its own
+     * @param connections
+     * @param millis
+     * @return result
+     * @throws IOException if a connection fails
+     * @throws InterruptedException if interrupted while waiting for the connections to finish
+     */
+
+    public Result run(int connections, long millis) throws IOException, InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+
+        List<Future<Long>> sessions = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                sessions.add(executor.submit(() -> play(deadline, latency)));
+            }
+
+            long commands = 0;
+            for (Future<Long> session : sessions) {
+                commands += session.get();
+            }
+            return new Result(commands, System.nanoTime() - start, latency);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private long play(long deadline, LatencyHistogram latency) throws IOException {
+        long commands = 0;
+        try (GameClient client = new GameClient(host, port)) {
+            int match = client.createMatch(SHIPS_PER_FLEET);
+            int round = 0;
+            while (System.nanoTime() < deadline) {
+                int ship = round % SHIPS_PER_FLEET;
+                long t0 = System.nanoTime();
+                client.mobilise(match, 0, 1 + (round & 1));
+                long t1 = System.nanoTime();
+                client.attack(match, 0, 1, ship);
+                long t2 = System.nanoTime();
+                client.dock(match, 1, ship);
+                long t3 = System.nanoTime();
+                client.repair(match, 1, ship);
+                long t4 = System.nanoTime();
+                client.endTurn(match);
+                long t5 = System.nanoTime();
+
+                latency.record(t1 - t0);
+                latency.record(t2 - t1);
+                latency.record(t3 - t2);
+                latency.record(t4 - t3);
+                latency.record(t5 - t4);
+                commands += 5;
+                round++;
+            }
+            client.closeMatch(match);
+        }
+        return commands;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+
+        GameServer server = args.length > 2 ? null : new GameServer(0);
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : server.getPort();
+        try {
+            Result result = new LoadTestClient("localhost", port).run(connections, seconds * 1000);
+            System.out.println(connections + " connections: " + result);
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * This is the Mailbox class - a queue of messages that any thread can post to but that only one thread at a time runs,
+ * in the order they were posted. It holds no thread of its own: posting to an idle mailbox hands a drain task to the
+ * executor, which runs messages in batches so one busy mailbox cannot hog a thread
+ * @author Oscar Allen
+ * @see FleetActor
+ */
+public class Mailbox {
+    private static final int BATCH = 64;
+
+    private Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+    private AtomicBoolean scheduled = new AtomicBoolean();
+    private Executor executor;
+
+    /**
+     * Initialises an empty mailbox whose messages run on the given executor
+     * @param executor
+     */
+
+    public Mailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Posts a message. A message that throws does not stop the ones after it, and what it threw is dropped, so a message
+     * that must report a failure should be posted with ask() or complete its own future
+     * @param message
+     */
+
+    public void tell(Runnable message) {
+        messages.add(message);
+        schedule();
+    }
+
+    /**
+     * Posts a message that produces a result
+     * @param message
+     * @return future completed with the result, or with whatever the message threw
+     */
+
+    public <T> CompletableFuture<T> ask(Supplier<T> message) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        tell(() -> {
+            try {
+                result.complete(message.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return result;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable message = messages.poll();
+                if (message == null) break;
+
+                try {
+                    message.run();
+                } catch (RuntimeException e) {
+                    // dropped, as tell() promises
+                }
+            }
+        } finally {
+            // even after an Error, so the messages behind it still run
+            scheduled.set(false);
+            if (!messages.isEmpty()) schedule();
+        }
+    }
+}
@@ -37,8 +37,8 @@ public class Main {
         p2Ship3.repair();
         System.out.println("Player 2 has repaired Player 2 Ship 3.");
 
-        while (!p2Base.isDestroyed()) {
-            player1Fleet.attackTarget(p2Base);
+        Siege.Result siege = player1Fleet.fastForward(p2Base, Integer.MAX_VALUE);
+        for (int round = 0; round < siege.rounds(); round++) {
             System.out.println("Player 1 Fleet has attacked Player 2 Starbase.");
         }
         System.out.println("Player 1 Fleet has destroyed Player 2 Starbase.");
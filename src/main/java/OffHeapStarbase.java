@@ -0,0 +1,156 @@
+/**
+ * This is the OffHeapStarbase class - a handle onto one Starbase record of an OffHeapStore. Its docking bay only counts
+ * the OffHeapStarships docked with it and keeps a running total of their defence
+ * @author Oscar Allen
+ * @see Starbase
+ */
+public final class OffHeapStarbase implements Targetable {
+    private final OffHeapStore store;
+    private final int index;
+
+    /**
+     * Initialises a handle onto a record of the store
+     * @param store
+     * @param index
+     * @see OffHeapStore#starbase(int)
+     */
+
+    OffHeapStarbase(OffHeapStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Gets the store holding the Starbase's record
+     * @return store
+     */
+
+    OffHeapStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the index of the Starbase's record in its store
+     * @return index
+     */
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getId() {
+        return (int) OffHeapStore.BASE_ID.get(store.starbases(), (long) index);
+    }
+
+    /**
+     * Gets the number of ships the docking bay can hold
+     * @return bayCapacity
+     */
+
+    public int getBayCapacity() {
+        return (int) OffHeapStore.BASE_BAY_CAPACITY.get(store.starbases(), (long) index);
+    }
+
+    /**
+     * Gets the number of ships docked with the Starbase
+     * @return dockedShips
+     */
+
+    public int getDockedShips() {
+        return (int) OffHeapStore.BASE_DOCKED_SHIPS.get(store.starbases(), (long) index);
+    }
+
+    /**
+     * Gets the running total of the defence of the docked ships
+     * @return totalDockedDefence
+     */
+
+    public int getTotalDockedDefence() {
+        return (int) OffHeapStore.BASE_DOCKED_DEFENCE.get(store.starbases(), (long) index);
+    }
+
+    @Override
+    public int getCurrentHealth() {
+        return (int) OffHeapStore.BASE_HEALTH.get(store.starbases(), (long) index);
+    }
+
+    @Override
+    public World getWorld() {
+        return store.getWorld();
+    }
+
+    /**
+     * Calculates the current defence strength in the same way as Starbase
+     * @return currentDefStrength
+     * @see Starbase#getCurrentDefence()
+     */
+
+    @Override
+    public int getCurrentDefence() {
+        double healthFactor = (double) getCurrentHealth() / Starbase.MAX_HEALTH;
+        double dockedBonus = (double) getTotalDockedDefence() * ((double) getDockedShips() / Starbase.MAX_DEF_STRENGTH);
+        return (int) Math.floor(Starbase.MAX_DEF_STRENGTH * healthFactor + dockedBonus);
+    }
+
+    @Override
+    public void takeDamage(int damage) {
+        store.damageStarbase(index, damage);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return getCurrentHealth() <= 0;
+    }
+
+    @Override
+    public int getSector() {
+        return (int) OffHeapStore.BASE_SECTOR.get(store.starbases(), (long) index);
+    }
+
+    /**
+     * Sets the Fleet that the Starbase belongs to. Ships already docked stay docked
+     * @param fleet
+     */
+
+    @Override
+    public void setFleet(String fleet) {
+        OffHeapStore.BASE_FLEET.set(store.starbases(), (long) index, store.getWorld().getFleetRegistry().register(fleet));
+    }
+
+    @Override
+    public String getFleet() {
+        return store.getWorld().getFleetRegistry().nameOf(getFleetId());
+    }
+
+    @Override
+    public int getFleetId() {
+        return (int) OffHeapStore.BASE_FLEET.get(store.starbases(), (long) index);
+    }
+
+    @Override
+    public String toString() {
+        return "Starbase{" +
+                "maxDefStrength=" + Starbase.MAX_DEF_STRENGTH +
+                ", maxHealth=" + Starbase.MAX_HEALTH +
+                ", currentHealth=" + getCurrentHealth() +
+                ", currentDefStrength=" + getCurrentDefence() +
+                ", fleet='" + getFleet() + '\'' +
+                ", sector=" + getSector() +
+                ", dockedShips=" + getDockedShips() +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OffHeapStarbase starbase = (OffHeapStarbase) o;
+        return store == starbase.store && index == starbase.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(index);
+    }
+}
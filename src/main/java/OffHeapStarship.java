@@ -0,0 +1,210 @@
+/**
+ * This is the OffHeapStarship class - a handle onto one Starship record of an OffHeapStore. It behaves like a Starship,
+ * except that it cannot be repaired. Handles hold no state of their own, so any number of them can be made for the same record
+ * @author Oscar Allen
+ * @see Starship
+ */
+public final class OffHeapStarship implements Targetable {
+    private final OffHeapStore store;
+    private final long index;
+
+    /**
+     * Initialises a handle onto a record of the store
+     * @param store
+     * @param index
+     * @see OffHeapStore#ship(long)
+     */
+
+    OffHeapStarship(OffHeapStore store, long index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Gets the index of the Starship's record in its store
+     * @return index
+     */
+
+    public long getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getId() {
+        return (int) OffHeapStore.SHIP_ID.get(store.ships(), index);
+    }
+
+    private long vitals() {
+        return (long) OffHeapStore.SHIP_VITALS.get(store.ships(), index);
+    }
+
+    /**
+     * Moves the Starship to a new sector provided it is not docked
+     * @param newSector
+     */
+
+    public void moveSector(int newSector) {
+        if (isDocked()) return;
+
+        OffHeapStore.SHIP_SECTOR.set(store.ships(), index, newSector);
+    }
+
+    /**
+     * Attacks the chosen target after checking that the Starship is not destroyed, not docked, in the same sector and not in the same fleet
+     * @param target to attack
+     */
+
+    public void attack(Targetable target) {
+        store.getWorld().checkSameWorld(target);
+        if (isDestroyed()) return;
+        if (isDocked()) return;
+        if (getSector() != target.getSector()) return;
+        if (getFleetId() == target.getFleetId()) return;
+
+        int damage = Math.max(getCurrentAtkStrength() - target.getCurrentDefence(), 5);
+        target.takeDamage(damage);
+
+        World world = store.getWorld();
+        if (world.getJournal() != null) world.getJournal().recordHit(world.getTurn(), getId(), target, damage);
+    }
+
+    /**
+     * Docks the Starship with a Starbase of the same store provided it is in the same sector and fleet, neither is
+     * destroyed, the ship is not currently docked and the bay has room
+     * @param base to dock with
+     * @return true if the ship was docked
+     */
+
+    public boolean dockWithStarbase(OffHeapStarbase base) {
+        if (base.getStore() != store) throw new IllegalArgumentException("the Starbase belongs to another store");
+        if (isDocked()) return false;
+        if (isDestroyed() || base.isDestroyed()) return false;
+        if (getSector() != base.getSector()) return false;
+        if (getFleetId() != base.getFleetId()) return false;
+        if (base.getDockedShips() >= base.getBayCapacity()) return false;
+
+        OffHeapStore.SHIP_DOCKED_BASE.set(store.ships(), index, base.getIndex());
+        OffHeapStore.BASE_DOCKED_SHIPS.set(store.starbases(), (long) base.getIndex(), base.getDockedShips() + 1);
+        store.dockedDefenceChanged(base.getIndex(), getCurrentDefence());
+        return true;
+    }
+
+    /**
+     * Undocks the Starship from its Starbase
+     */
+
+    public void unDockWithStarbase() {
+        int base = (int) OffHeapStore.SHIP_DOCKED_BASE.get(store.ships(), index);
+        if (base == OffHeapStore.NO_BASE) return;
+
+        OffHeapStore.SHIP_DOCKED_BASE.set(store.ships(), index, OffHeapStore.NO_BASE);
+        int docked = (int) OffHeapStore.BASE_DOCKED_SHIPS.get(store.starbases(), (long) base);
+        OffHeapStore.BASE_DOCKED_SHIPS.set(store.starbases(), (long) base, docked - 1);
+        store.dockedDefenceChanged(base, -getCurrentDefence());
+    }
+
+    /**
+     * Check if the Starship is docked
+     * @return isDocked
+     */
+
+    public boolean isDocked() {
+        return (int) OffHeapStore.SHIP_DOCKED_BASE.get(store.ships(), index) != OffHeapStore.NO_BASE;
+    }
+
+    /**
+     * Calculates and returns the current attack strength
+     * @return currentAtkStrength
+     */
+
+    public int getCurrentAtkStrength() {
+        return store.getStats().atkStrength(ShipStore.crewOf(vitals()));
+    }
+
+    @Override
+    public void setFleet(String fleet) {
+        if (isDocked()) unDockWithStarbase();
+        OffHeapStore.SHIP_FLEET.set(store.ships(), index, store.getWorld().getFleetRegistry().register(fleet));
+    }
+
+    @Override
+    public String getFleet() {
+        return store.getWorld().getFleetRegistry().nameOf(getFleetId());
+    }
+
+    @Override
+    public int getFleetId() {
+        return (int) OffHeapStore.SHIP_FLEET.get(store.ships(), index);
+    }
+
+    @Override
+    public int getSector() {
+        return (int) OffHeapStore.SHIP_SECTOR.get(store.ships(), index);
+    }
+
+    @Override
+    public int getCurrentDefence() {
+        long vitals = vitals();
+        return store.getStats().defStrength(ShipStore.healthOf(vitals), ShipStore.crewOf(vitals));
+    }
+
+    @Override
+    public int getCurrentHealth() {
+        return ShipStore.healthOf(vitals());
+    }
+
+    @Override
+    public World getWorld() {
+        return store.getWorld();
+    }
+
+    /**
+     * Gets the current crew
+     * @return currentCrew
+     */
+
+    public int getCurrentCrew() {
+        return ShipStore.crewOf(vitals());
+    }
+
+    @Override
+    public void takeDamage(int damage) {
+        store.takeDamage(index, damage);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return getCurrentHealth() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        ShipStats stats = store.getStats();
+        return "Starship{" +
+                "maxAtkStrength=" + stats.maxAtkStrength() +
+                ", maxDefStrength=" + stats.maxDefStrength() +
+                ", maxCrew=" + stats.maxCrew() +
+                ", maxHealth=" + stats.maxHealth() +
+                ", currentHealth=" + getCurrentHealth() +
+                ", currentCrew=" + getCurrentCrew() +
+                ", currentAtkStrength=" + getCurrentAtkStrength() +
+                ", currentDefStrength=" + getCurrentDefence() +
+                ", fleet='" + getFleet() + '\'' +
+                ", sector=" + getSector() +
+                ", isDocked=" + isDocked() +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OffHeapStarship starship = (OffHeapStarship) o;
+        return store == starship.store && index == starship.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(index);
+    }
+}
@@ -0,0 +1,579 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This is the OffHeapStore class - it keeps Starship and Starbase records outside the Java heap, in a MemorySegment with a
+ * fixed struct layout, so a World can hold hundreds of millions of ships without the garbage collector ever scanning them.
+ * The segment is either plain native memory or a memory-mapped file, which keeps the records when the store is closed and
+ * can be opened again later.
+ * <p>
+ * OffHeapStarship and OffHeapStarbase are handles onto one record, created on demand, that read and write it through
+ * VarHandles. There is no sector index or repair timer off the heap: mobilise() and attack() scan every record, which
+ * streams through memory at close to its bandwidth, and ships are not repaired. Like ShipStore, the store is not thread-safe
+ * except for damage in concurrent combat
+ * @author Oscar Allen
+ * @see World#setConcurrentCombat(boolean)
+ */
+public final class OffHeapStore implements AutoCloseable {
+    static final int MAGIC = 0x5253484F;
+    static final int VERSION = 1;
+    static final int NO_BASE = -1;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt NAME_LENGTH = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The file header
+     */
+    public static final StructLayout HEADER = MemoryLayout.structLayout(
+            INT.withName("magic"),
+            INT.withName("version"),
+            LONG.withName("shipCapacity"),
+            LONG.withName("shipCount"),
+            INT.withName("starbaseCapacity"),
+            INT.withName("starbaseCount"),
+            INT.withName("lastShipId"),
+            INT.withName("lastStarbaseId"),
+            INT.withName("maxAtkStrength"),
+            INT.withName("maxDefStrength"),
+            INT.withName("maxCrew"),
+            INT.withName("maxHealth"),
+            MemoryLayout.paddingLayout(8));
+
+    /**
+     * One Starship record. Health and crew are packed into vitals as in ShipStore, so they can be damaged with one compare-and-set
+     */
+    public static final StructLayout SHIP = MemoryLayout.structLayout(
+            LONG.withName("vitals"),
+            INT.withName("id"),
+            INT.withName("sector"),
+            INT.withName("fleet"),
+            INT.withName("dockedBase"));
+
+    /**
+     * One Starbase record
+     */
+    public static final StructLayout STARBASE = MemoryLayout.structLayout(
+            INT.withName("id"),
+            INT.withName("health"),
+            INT.withName("sector"),
+            INT.withName("fleet"),
+            INT.withName("bayCapacity"),
+            INT.withName("dockedShips"),
+            INT.withName("dockedDefence"),
+            MemoryLayout.paddingLayout(4));
+
+    /**
+     * Room for the names of the fleets, so a mapped file can be opened in another World
+     */
+    static final int NAMES_SIZE = 1 << 16;
+
+    static final VarHandle SHIP_VITALS = recordHandle(SHIP, "vitals");
+    static final VarHandle SHIP_ID = recordHandle(SHIP, "id");
+    static final VarHandle SHIP_SECTOR = recordHandle(SHIP, "sector");
+    static final VarHandle SHIP_FLEET = recordHandle(SHIP, "fleet");
+    static final VarHandle SHIP_DOCKED_BASE = recordHandle(SHIP, "dockedBase");
+
+    static final VarHandle BASE_ID = recordHandle(STARBASE, "id");
+    static final VarHandle BASE_HEALTH = recordHandle(STARBASE, "health");
+    static final VarHandle BASE_SECTOR = recordHandle(STARBASE, "sector");
+    static final VarHandle BASE_FLEET = recordHandle(STARBASE, "fleet");
+    static final VarHandle BASE_BAY_CAPACITY = recordHandle(STARBASE, "bayCapacity");
+    static final VarHandle BASE_DOCKED_SHIPS = recordHandle(STARBASE, "dockedShips");
+    static final VarHandle BASE_DOCKED_DEFENCE = recordHandle(STARBASE, "dockedDefence");
+
+    private World world;
+    private ShipStats stats;
+    private Arena arena;
+    private MemorySegment header;
+    private MemorySegment names;
+    private MemorySegment ships;
+    private MemorySegment starbases;
+    private boolean mapped;
+
+    private long shipCount;
+    private int starbaseCount;
+
+    /**
+     * Gets a VarHandle for one field of the i-th record in a table of records, taking (MemorySegment table, long i)
+     */
+
+    private static VarHandle recordHandle(StructLayout record, String field) {
+        VarHandle handle = MemoryLayout.sequenceLayout(Long.MAX_VALUE / record.byteSize(), record)
+                .varHandle(PathElement.sequenceElement(), PathElement.groupElement(field));
+        // from Java 22 layout handles take a base offset before the index; the tables always start at offset 0
+        if (handle.coordinateTypes().size() == 3) handle = MethodHandles.insertCoordinates(handle, 1, 0L);
+        return handle;
+    }
+
+    private OffHeapStore(World world, ShipStats stats, Arena arena, MemorySegment segment, long shipCapacity, int starbaseCapacity, boolean mapped) {
+        this.world = world;
+        this.stats = stats;
+        this.arena = arena;
+        this.mapped = mapped;
+
+        long shipsOffset = HEADER.byteSize() + NAMES_SIZE;
+        long starbasesOffset = shipsOffset + shipCapacity * SHIP.byteSize();
+        header = segment.asSlice(0, HEADER.byteSize());
+        names = segment.asSlice(HEADER.byteSize(), NAMES_SIZE);
+        ships = segment.asSlice(shipsOffset, shipCapacity * SHIP.byteSize());
+        starbases = segment.asSlice(starbasesOffset, starbaseCapacity * STARBASE.byteSize());
+    }
+
+    private static long byteSize(long shipCapacity, int starbaseCapacity) {
+        if (shipCapacity < 0 || starbaseCapacity < 0) throw new IllegalArgumentException("capacities must not be negative");
+
+        return HEADER.byteSize() + NAMES_SIZE + shipCapacity * SHIP.byteSize() + starbaseCapacity * STARBASE.byteSize();
+    }
+
+    /**
+     * Creates an empty store in native memory, which is freed when the store is closed
+     * @param world the ships' ids and fleets come from
+     * @param stats of the Starships' class
+     * @param shipCapacity
+     * @param starbaseCapacity
+     * @return store
+     */
+
+    public static OffHeapStore allocate(World world, ShipStats stats, long shipCapacity, int starbaseCapacity) {
+        Arena arena = Arena.ofShared();
+        MemorySegment segment = arena.allocate(byteSize(shipCapacity, starbaseCapacity), Long.BYTES);
+        OffHeapStore store = new OffHeapStore(world, stats, arena, segment, shipCapacity, starbaseCapacity, false);
+        store.writeHeader(shipCapacity, starbaseCapacity);
+        return store;
+    }
+
+    /**
+     * Creates an empty store backed by a memory-mapped file, replacing any file already at the path. The records are
+     * written to the file as they change; force() or close() make sure they have reached the disk
+     * @param world the ships' ids and fleets come from
+     * @param stats of the Starships' class
+     * @param path
+     * @param shipCapacity
+     * @param starbaseCapacity
+     * @return store
+     * @throws IOException if the file cannot be created
+     */
+
+    public static OffHeapStore create(World world, ShipStats stats, Path path, long shipCapacity, int starbaseCapacity) throws IOException {
+        long size = byteSize(shipCapacity, starbaseCapacity);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            OffHeapStore store = new OffHeapStore(world, stats, arena, segment, shipCapacity, starbaseCapacity, true);
+            store.writeHeader(shipCapacity, starbaseCapacity);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a store that was created with create() and closed. Its fleets are registered in the given World and its ids are
+     * reserved there, so new Starships and Starbases in the World do not reuse them
+     * @param world
+     * @param path
+     * @return store
+     * @throws IOException if the file cannot be read or is not an off-heap store
+     */
+
+    public static OffHeapStore open(World world, Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER.byteSize()) throw new IOException("not an off-heap store: " + path);
+
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size(), arena);
+            if (segment.get(INT, offset("magic")) != MAGIC || segment.get(INT, offset("version")) != VERSION) {
+                throw new IOException("not a version " + VERSION + " off-heap store: " + path);
+            }
+
+            long shipCapacity = segment.get(LONG, offset("shipCapacity"));
+            int starbaseCapacity = segment.get(INT, offset("starbaseCapacity"));
+            if (shipCapacity < 0 || starbaseCapacity < 0 || byteSize(shipCapacity, starbaseCapacity) != channel.size()) {
+                throw new IOException("off-heap store is truncated: " + path);
+            }
+
+            ShipStats stats = new ShipStats(segment.get(INT, offset("maxAtkStrength")), segment.get(INT, offset("maxDefStrength")),
+                    segment.get(INT, offset("maxCrew")), segment.get(INT, offset("maxHealth")));
+            OffHeapStore store = new OffHeapStore(world, stats, arena, segment, shipCapacity, starbaseCapacity, true);
+            store.shipCount = store.header.get(LONG, offset("shipCount"));
+            store.starbaseCount = store.header.get(INT, offset("starbaseCount"));
+            world.reserveIds(store.header.get(INT, offset("lastShipId")), store.header.get(INT, offset("lastStarbaseId")));
+            store.readNames();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    private static long offset(String field) {
+        return HEADER.byteOffset(PathElement.groupElement(field));
+    }
+
+    private void writeHeader(long shipCapacity, int starbaseCapacity) {
+        header.set(INT, offset("magic"), MAGIC);
+        header.set(INT, offset("version"), VERSION);
+        header.set(LONG, offset("shipCapacity"), shipCapacity);
+        header.set(INT, offset("starbaseCapacity"), starbaseCapacity);
+        header.set(INT, offset("maxAtkStrength"), stats.maxAtkStrength());
+        header.set(INT, offset("maxDefStrength"), stats.maxDefStrength());
+        header.set(INT, offset("maxCrew"), stats.maxCrew());
+        header.set(INT, offset("maxHealth"), stats.maxHealth());
+        writeCounts();
+    }
+
+    private void writeCounts() {
+        header.set(LONG, offset("shipCount"), shipCount);
+        header.set(INT, offset("starbaseCount"), starbaseCount);
+    }
+
+    /**
+     * Writes the World's fleet names, in id order, so the ids in the records can be matched to names when the file is opened
+     */
+
+    private void writeNames() {
+        FleetRegistry registry = world.getFleetRegistry();
+        long position = Integer.BYTES;
+        for (int id = 0; id < registry.size(); id++) {
+            byte[] name = registry.nameOf(id).getBytes(StandardCharsets.UTF_8);
+            if (position + Integer.BYTES + name.length > NAMES_SIZE) {
+                throw new IllegalStateException("fleet names do not fit in " + NAMES_SIZE + " bytes");
+            }
+            names.set(NAME_LENGTH, position, name.length);
+            MemorySegment.copy(name, 0, names, ValueLayout.JAVA_BYTE, position + Integer.BYTES, name.length);
+            position += Integer.BYTES + name.length;
+        }
+        names.set(INT, 0, registry.size());
+    }
+
+    /**
+     * Registers the stored fleet names in the World, and rewrites the fleet of every record if the World gave them other ids
+     */
+
+    private void readNames() throws IOException {
+        int count = names.get(INT, 0);
+        int[] ids = new int[count];
+        boolean renumbered = false;
+        long position = Integer.BYTES;
+        for (int id = 0; id < count; id++) {
+            int length = names.get(NAME_LENGTH, position);
+            if (length < 0 || position + Integer.BYTES + length > NAMES_SIZE) throw new IOException("off-heap store fleet names are corrupt");
+
+            byte[] name = new byte[length];
+            MemorySegment.copy(names, ValueLayout.JAVA_BYTE, position + Integer.BYTES, name, 0, length);
+            position += Integer.BYTES + length;
+            ids[id] = world.getFleetRegistry().register(new String(name, StandardCharsets.UTF_8));
+            renumbered |= ids[id] != id;
+        }
+        if (!renumbered) return;
+
+        for (long i = 0; i < shipCount; i++) {
+            int fleet = (int) SHIP_FLEET.get(ships, i);
+            if (fleet != FleetRegistry.NO_FLEET) SHIP_FLEET.set(ships, i, ids[fleet]);
+        }
+        for (long i = 0; i < starbaseCount; i++) {
+            int fleet = (int) BASE_FLEET.get(starbases, i);
+            if (fleet != FleetRegistry.NO_FLEET) BASE_FLEET.set(starbases, i, ids[fleet]);
+        }
+    }
+
+    /**
+     * Adds Starships at full health and crew, undocked in the given sector
+     * @param fleet the ships belong to
+     * @param sector
+     * @param count
+     * @return index of the first ship added
+     * @throws IllegalStateException if the store does not have room for them
+     */
+
+    public long addShips(String fleet, int sector, int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative: " + count);
+        if (shipCount + count > getShipCapacity()) throw new IllegalStateException("store has room for " + (getShipCapacity() - shipCount) + " more ships");
+
+        int fleetId = world.getFleetRegistry().register(fleet);
+        long vitals = ShipStore.pack(stats.maxHealth(), stats.maxCrew());
+        int firstId = world.nextShipIds(count);
+        long first = shipCount;
+        for (int i = 0; i < count; i++) {
+            long index = first + i;
+            SHIP_VITALS.set(ships, index, vitals);
+            SHIP_ID.set(ships, index, firstId + i);
+            SHIP_SECTOR.set(ships, index, sector);
+            SHIP_FLEET.set(ships, index, fleetId);
+            SHIP_DOCKED_BASE.set(ships, index, NO_BASE);
+        }
+        shipCount += count;
+        writeCounts();
+        header.set(INT, offset("lastShipId"), firstId + count - 1);
+        return first;
+    }
+
+    /**
+     * Adds a Starbase at full health with an empty docking bay
+     * @param fleet the Starbase belongs to
+     * @param sector
+     * @param bayCapacity
+     * @return index of the Starbase
+     * @throws IllegalStateException if the store does not have room for it
+     */
+
+    public int addStarbase(String fleet, int sector, int bayCapacity) {
+        if (bayCapacity < 0) throw new IllegalArgumentException("bayCapacity must not be negative: " + bayCapacity);
+        if (starbaseCount == getStarbaseCapacity()) throw new IllegalStateException("store has no room for another starbase");
+
+        int index = starbaseCount++;
+        int id = world.nextStarbaseId();
+        BASE_ID.set(starbases, (long) index, id);
+        BASE_HEALTH.set(starbases, (long) index, Starbase.MAX_HEALTH);
+        BASE_SECTOR.set(starbases, (long) index, sector);
+        BASE_FLEET.set(starbases, (long) index, world.getFleetRegistry().register(fleet));
+        BASE_BAY_CAPACITY.set(starbases, (long) index, bayCapacity);
+        BASE_DOCKED_SHIPS.set(starbases, (long) index, 0);
+        BASE_DOCKED_DEFENCE.set(starbases, (long) index, 0);
+        writeCounts();
+        header.set(INT, offset("lastStarbaseId"), id);
+        return index;
+    }
+
+    /**
+     * Gets a handle onto a Starship record
+     * @param index
+     * @return ship
+     */
+
+    public OffHeapStarship ship(long index) {
+        if (index < 0 || index >= shipCount) throw new IndexOutOfBoundsException("no ship " + index + " in a store of " + shipCount);
+
+        return new OffHeapStarship(this, index);
+    }
+
+    /**
+     * Gets a handle onto a Starbase record
+     * @param index
+     * @return starbase
+     */
+
+    public OffHeapStarbase starbase(int index) {
+        if (index < 0 || index >= starbaseCount) throw new IndexOutOfBoundsException("no starbase " + index + " in a store of " + starbaseCount);
+
+        return new OffHeapStarbase(this, index);
+    }
+
+    /**
+     * Moves every live, undocked Starship of a fleet into the specified sector
+     * @param fleet
+     * @param sector
+     * @return number of Starships that changed sector
+     * @throws IllegalArgumentException if the World has no fleet of that name
+     * @see Fleet#mobilise(int)
+     */
+
+    public long mobilise(String fleet, int sector) {
+        int fleetId = world.getFleetRegistry().idOf(fleet);
+        long moved = 0;
+        for (long i = 0; i < shipCount; i++) {
+            if ((int) SHIP_FLEET.get(ships, i) != fleetId || (int) SHIP_DOCKED_BASE.get(ships, i) != NO_BASE) continue;
+            if ((int) SHIP_SECTOR.get(ships, i) == sector) continue;
+            if (ShipStore.healthOf((long) SHIP_VITALS.get(ships, i)) <= 0) continue;
+
+            SHIP_SECTOR.set(ships, i, sector);
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Every live, undocked Starship of a fleet in the target's sector attacks the target, unless the target is in the same fleet
+     * @param fleet
+     * @param target
+     * @return number of hits
+     * @throws IllegalArgumentException if the World has no fleet of that name
+     * @see Fleet#attackTarget(Targetable)
+     */
+
+    public long attack(String fleet, Targetable target) {
+        world.checkSameWorld(target);
+        int fleetId = world.getFleetRegistry().idOf(fleet);
+        if (fleetId == target.getFleetId()) return 0;
+
+        int targetSector = target.getSector();
+        CombatJournal journal = world.getJournal();
+        long hits = 0;
+        for (long i = 0; i < shipCount; i++) {
+            if ((int) SHIP_FLEET.get(ships, i) != fleetId || (int) SHIP_SECTOR.get(ships, i) != targetSector) continue;
+            if ((int) SHIP_DOCKED_BASE.get(ships, i) != NO_BASE) continue;
+            long vitals = (long) SHIP_VITALS.get(ships, i);
+            if (ShipStore.healthOf(vitals) <= 0) continue;
+
+            int damage = Math.max(stats.atkStrength(ShipStore.crewOf(vitals)) - target.getCurrentDefence(), 5);
+            target.takeDamage(damage);
+            if (journal != null) journal.recordHit(world.getTurn(), (int) SHIP_ID.get(ships, i), target, damage);
+            hits++;
+        }
+        return hits;
+    }
+
+    /**
+     * Damages a Starship record, in concurrent combat with a compare-and-set, and passes any change in a docked ship's
+     * defence on to its Starbase
+     * @param index
+     * @param damage
+     */
+
+    void takeDamage(long index, int damage) {
+        long before;
+        long after;
+        if (world.isConcurrentCombat()) {
+            do {
+                before = (long) SHIP_VITALS.getVolatile(ships, index);
+                after = ShipStore.damaged(stats, before, damage);
+            } while (!SHIP_VITALS.compareAndSet(ships, index, before, after));
+        } else {
+            before = (long) SHIP_VITALS.get(ships, index);
+            after = ShipStore.damaged(stats, before, damage);
+            SHIP_VITALS.set(ships, index, after);
+        }
+
+        int base = (int) SHIP_DOCKED_BASE.get(ships, index);
+        if (base == NO_BASE) return;
+
+        int delta = stats.defStrength(ShipStore.healthOf(after), ShipStore.crewOf(after))
+                - stats.defStrength(ShipStore.healthOf(before), ShipStore.crewOf(before));
+        if (delta != 0) dockedDefenceChanged(base, delta);
+    }
+
+    void dockedDefenceChanged(int base, int delta) {
+        if (world.isConcurrentCombat()) BASE_DOCKED_DEFENCE.getAndAdd(starbases, (long) base, delta);
+        else BASE_DOCKED_DEFENCE.set(starbases, (long) base, (int) BASE_DOCKED_DEFENCE.get(starbases, (long) base) + delta);
+    }
+
+    /**
+     * Damages a Starbase record, in concurrent combat with a compare-and-set
+     * @param index
+     * @param damage
+     */
+
+    void damageStarbase(int index, int damage) {
+        if (world.isConcurrentCombat()) {
+            int before;
+            do {
+                before = (int) BASE_HEALTH.getVolatile(starbases, (long) index);
+            } while (!BASE_HEALTH.compareAndSet(starbases, (long) index, before, Math.max(before - damage, 0)));
+        } else {
+            BASE_HEALTH.set(starbases, (long) index, Math.max((int) BASE_HEALTH.get(starbases, (long) index) - damage, 0));
+        }
+    }
+
+    /**
+     * Gets the World the store belongs to
+     * @return world
+     */
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the class of the Starships in the store
+     * @return stats
+     */
+
+    public ShipStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the number of Starships in the store
+     * @return shipCount
+     */
+
+    public long getShipCount() {
+        return shipCount;
+    }
+
+    /**
+     * Gets the number of Starships the store has room for
+     * @return shipCapacity
+     */
+
+    public long getShipCapacity() {
+        return ships.byteSize() / SHIP.byteSize();
+    }
+
+    /**
+     * Gets the number of Starbases in the store
+     * @return starbaseCount
+     */
+
+    public int getStarbaseCount() {
+        return starbaseCount;
+    }
+
+    /**
+     * Gets the number of Starbases the store has room for
+     * @return starbaseCapacity
+     */
+
+    public int getStarbaseCapacity() {
+        return (int) (starbases.byteSize() / STARBASE.byteSize());
+    }
+
+    /**
+     * Checks if the store is backed by a file
+     * @return true or false
+     */
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    MemorySegment ships() {
+        return ships;
+    }
+
+    MemorySegment starbases() {
+        return starbases;
+    }
+
+    /**
+     * Writes any changed records of a file-backed store to the disk
+     */
+
+    public void force() {
+        if (!mapped) return;
+
+        writeNames();
+        header.force();
+        names.force();
+        ships.force();
+        starbases.force();
+    }
+
+    /**
+     * Forces a file-backed store to the disk and releases its memory. Handles onto the store must not be used afterwards
+     */
+
+    @Override
+    public void close() {
+        if (!arena.scope().isAlive()) return;
+
+        force();
+        arena.close();
+    }
+}
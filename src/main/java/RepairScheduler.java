@@ -0,0 +1,233 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This is the RepairScheduler class - a hashed timer wheel that finishes Starship repairs as game turns pass.
+ * Each turn only looks at the one wheel bucket that is due, so advancing costs O(repairs in that bucket)
+ * rather than O(all ships). Each Starship keeps one timer for good once it has been repaired, so scheduling repairs
+ * again does not allocate
+ * @author Oscar Allen
+ */
+public class RepairScheduler {
+    private static final int WHEEL_SIZE = 64;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final long NOT_DUE = -1;
+
+    private List<List<Repair>> wheel = new ArrayList<>();
+    private Map<Starship, Repair> repairs = new HashMap<>();
+    private List<Repair> allRepairs = new ArrayList<>();
+    private int pending;
+    private long turn;
+
+    /**
+     * A Starship's repair timer. Rescheduling or cancelling only changes its due turn; a wheel entry whose bucket no longer
+     * matches the due turn is stale and is dropped when its bucket comes round
+     */
+
+    private static class Repair {
+        private Starship ship;
+        private long due = NOT_DUE;
+
+        Repair(Starship ship) {
+            this.ship = ship;
+        }
+    }
+
+    /**
+     * The turn and every pending repair at one moment
+     * @see #checkpoint()
+     */
+
+    static final class Checkpoint {
+        private long turn;
+        private Starship[] ships;
+        private long[] due;
+    }
+
+    /**
+     * Initialises an empty scheduler at turn 0
+     */
+
+    public RepairScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules a Starship's repair to finish after the given number of turns, replacing any repair already scheduled for it
+     * @param ship
+     * @param turns at least 1
+     * @see Starship#repair()
+     */
+
+    public void schedule(Starship ship, int turns) {
+        if (turns < 1) throw new IllegalArgumentException("turns must be at least 1: " + turns);
+
+        Repair repair = repairs.get(ship);
+        if (repair == null) {
+            repair = new Repair(ship);
+            repairs.put(ship, repair);
+            allRepairs.add(repair);
+        }
+        schedule(repair, turn + turns);
+    }
+
+    private void schedule(Repair repair, long due) {
+        if (repair.due == NOT_DUE) pending++;
+        repair.due = due;
+        wheel.get((int) (due & MASK)).add(repair);
+    }
+
+    /**
+     * Cancels a Starship's scheduled repair, if it has one
+     * @param ship
+     */
+
+    public void cancel(Starship ship) {
+        Repair repair = repairs.get(ship);
+        if (repair == null || repair.due == NOT_DUE) return;
+
+        repair.due = NOT_DUE;
+        pending--;
+    }
+
+    /**
+     * Advances one game turn and finishes every repair that is now due
+     * @return number of repairs finished
+     */
+
+    public int advance() {
+        return advance(Starship::finishRepair);
+    }
+
+    /**
+     * Advances one game turn and hands every repair that is now due to the given action instead of finishing it here
+     * @param finish called with each Starship whose repair is due
+     * @return number of repairs finished
+     * @see FleetActors#endTurn()
+     */
+
+    int advance(Consumer<Starship> finish) {
+        turn++;
+        int index = (int) (turn & MASK);
+        List<Repair> bucket = wheel.get(index);
+        int finished = 0;
+
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Repair repair = bucket.get(i);
+            if (repair.due == NOT_DUE || (repair.due & MASK) != index) continue;
+
+            if (repair.due <= turn) {
+                repair.due = NOT_DUE;
+                pending--;
+                finish.accept(repair.ship);
+                finished++;
+            } else {
+                bucket.set(kept++, repair);
+            }
+        }
+        while (bucket.size() > kept) {
+            bucket.removeLast();
+        }
+        return finished;
+    }
+
+    /**
+     * Sets the current game turn of a scheduler that has no repairs pending
+     * @param turn
+     * @see World#restore(int, int, long)
+     */
+
+    void setTurn(long turn) {
+        if (pending > 0) throw new IllegalStateException("cannot move the turn while repairs are pending");
+
+        this.turn = turn;
+    }
+
+    /**
+     * Checks if a Starship has a repair scheduled
+     * @param ship
+     * @return true or false
+     */
+
+    public boolean isRepairing(Starship ship) {
+        Repair repair = repairs.get(ship);
+        return repair != null && repair.due != NOT_DUE;
+    }
+
+    /**
+     * Gets the turn on which a Starship's repair finishes
+     * @param ship
+     * @return turn, or -1 if the ship is not being repaired
+     */
+
+    public long getDueTurn(Starship ship) {
+        Repair repair = repairs.get(ship);
+        return repair == null ? -1 : repair.due;
+    }
+
+    /**
+     * Gets the current game turn
+     * @return turn
+     */
+
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the number of repairs in progress
+     * @return size
+     */
+
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * Records the turn and every pending repair
+     * @return checkpoint
+     * @see #reset(Checkpoint)
+     */
+
+    Checkpoint checkpoint() {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.turn = turn;
+        checkpoint.ships = new Starship[pending];
+        checkpoint.due = new long[pending];
+        int i = 0;
+        for (Repair repair : allRepairs) {
+            if (repair.due == NOT_DUE) continue;
+
+            checkpoint.ships[i] = repair.ship;
+            checkpoint.due[i] = repair.due;
+            i++;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Puts the turn and the pending repairs back as they were recorded, dropping every repair scheduled since
+     * @param checkpoint
+     */
+
+    void reset(Checkpoint checkpoint) {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.get(i).clear();
+        }
+        for (int i = 0; i < allRepairs.size(); i++) {
+            allRepairs.get(i).due = NOT_DUE;
+        }
+        pending = 0;
+        turn = checkpoint.turn;
+
+        for (int i = 0; i < checkpoint.ships.length; i++) {
+            schedule(repairs.get(checkpoint.ships[i]), checkpoint.due[i]);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is the ScriptRunner class - it plays a battle script against a World as it reads it, one line at a time, straight
+ * from the bytes of the stream, so a script of any length runs in constant memory. Run it with: java ScriptRunner script.txt
+ * <p>
+ * Each line is one command; blank lines and lines starting with # are ignored. Ships are numbered from 0 within their fleet
+ * and fleet names cannot contain spaces.
+ * <pre>
+ * fleet    &lt;name&gt; &lt;sector&gt; &lt;ships&gt;              create a fleet with a starbase
+ * link     &lt;sector&gt; &lt;sector&gt; &lt;turns&gt;           connect two sectors in the World's SectorGraph, creating it if needed
+ * mobilise &lt;fleet&gt; &lt;sector&gt;
+ * move     &lt;fleet&gt; &lt;ship&gt; &lt;sector&gt;
+ * attack   &lt;fleet&gt; &lt;target fleet&gt; &lt;ship|base&gt;   the whole fleet attacks
+ * fire     &lt;fleet&gt; &lt;ship&gt; &lt;target fleet&gt; &lt;ship|base&gt;   one ship attacks
+ * dock     &lt;fleet&gt; &lt;ship&gt;                       with the fleet's first starbase
+ * undock   &lt;fleet&gt; &lt;ship&gt;
+ * repair   &lt;fleet&gt; &lt;ship&gt;
+ * turn                                       advance the World one turn
+ * </pre>
+ * @author Oscar Allen
+ */
+public class ScriptRunner {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKENS = 5;
+
+    private static final byte[] FLEET = bytes("fleet");
+    private static final byte[] LINK = bytes("link");
+    private static final byte[] MOBILISE = bytes("mobilise");
+    private static final byte[] MOVE = bytes("move");
+    private static final byte[] ATTACK = bytes("attack");
+    private static final byte[] FIRE = bytes("fire");
+    private static final byte[] DOCK = bytes("dock");
+    private static final byte[] UNDOCK = bytes("undock");
+    private static final byte[] REPAIR = bytes("repair");
+    private static final byte[] TURN = bytes("turn");
+    private static final byte[] BASE = bytes("base");
+
+    private World world;
+    private List<byte[]> fleetNames = new ArrayList<>();
+    private List<Fleet> fleets = new ArrayList<>();
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int[] tokenStart = new int[MAX_TOKENS];
+    private int[] tokenEnd = new int[MAX_TOKENS];
+    private int tokens;
+    private long lineNumber;
+
+    /**
+     * The outcome of running a script
+     * @param commands run
+     * @param bytes read
+     * @param nanos taken
+     */
+
+    public record Result(long commands, long bytes, long nanos) {
+
+        /**
+         * Gets the number of commands run per second
+         * @return commandsPerSecond
+         */
+
+        public double commandsPerSecond() {
+            return commands * 1e9 / nanos;
+        }
+
+        /**
+         * Gets the number of megabytes of script read per second
+         * @return megabytesPerSecond
+         */
+
+        public double megabytesPerSecond() {
+            return bytes * 1e9 / nanos / (1024 * 1024);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commands, %.1f MB in %.2fs: %.0f commands/s, %.1f MB/s",
+                    commands, bytes / (1024.0 * 1024), nanos / 1e9, commandsPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    /**
+     * Initialises a runner that plays scripts against the given World
+     * @param world
+     */
+
+    public ScriptRunner(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Gets a Fleet created by a script
+     * @param name
+     * @return fleet, or null if no script has created it
+     */
+
+    public Fleet getFleet(String name) {
+        byte[] wanted = bytes(name);
+        for (int i = 0; i < fleetNames.size(); i++) {
+            if (Arrays.equals(fleetNames.get(i), wanted)) return fleets.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Reads and runs every command in the stream. The stream is not closed
+     * @param in
+     * @return result
+     * @throws IOException if the stream cannot be read or a line is not a valid command
+     */
+
+    public Result run(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        long commands = 0;
+        long bytesRead = 0;
+        int filled = 0;
+        int lineStart = 0;
+
+        while (true) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) break;
+            bytesRead += read;
+            int end = filled + read;
+
+            for (int i = filled; i < end; i++) {
+                if (buffer[i] != '\n') continue;
+
+                if (execute(lineStart, i)) commands++;
+                lineStart = i + 1;
+            }
+
+            int partial = end - lineStart;
+            if (partial == buffer.length) throw new IOException("line " + (lineNumber + 1) + " is longer than " + BUFFER_SIZE + " bytes");
+            System.arraycopy(buffer, lineStart, buffer, 0, partial);
+            filled = partial;
+            lineStart = 0;
+        }
+        if (filled > 0 && execute(0, filled)) commands++;
+
+        return new Result(commands, bytesRead, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs one line of the script
+     * @param from first byte of the line
+     * @param to end of the line, exclusive
+     * @return true if the line held a command
+     * @throws IOException if the line is not a valid command
+     */
+
+    private boolean execute(int from, int to) throws IOException {
+        lineNumber++;
+        tokenize(from, to);
+        if (tokens == 0 || buffer[tokenStart[0]] == '#') return false;
+
+        if (is(0, FLEET)) {
+            expectTokens(4);
+            createFleet();
+        } else if (is(0, LINK)) {
+            expectTokens(4);
+            link();
+        } else if (is(0, MOBILISE)) {
+            expectTokens(3);
+            Fleet fleet = fleet(1);
+            int sector = number(2);
+            SectorGraph graph = world.getSectorGraph();
+            if (graph != null && !graph.contains(sector)) throw error("sector " + sector + " is not linked");
+            fleet.mobilise(sector);
+        } else if (is(0, MOVE)) {
+            expectTokens(4);
+            ship(1, 2).moveSector(number(3));
+        } else if (is(0, ATTACK)) {
+            expectTokens(4);
+            fleet(1).attackTarget(target(2, 3));
+        } else if (is(0, FIRE)) {
+            expectTokens(5);
+            ship(1, 2).attack(target(3, 4));
+        } else if (is(0, DOCK)) {
+            expectTokens(3);
+            ship(1, 2).dockWithStarbase(starbase(1));
+        } else if (is(0, UNDOCK)) {
+            expectTokens(3);
+            ship(1, 2).unDockWithStarbase();
+        } else if (is(0, REPAIR)) {
+            expectTokens(3);
+            ship(1, 2).repair();
+        } else if (is(0, TURN)) {
+            expectTokens(1);
+            world.advanceTurn();
+        } else {
+            throw error("unknown command '" + token(0) + "'");
+        }
+        return true;
+    }
+
+    private void createFleet() throws IOException {
+        byte[] name = Arrays.copyOfRange(buffer, tokenStart[1], tokenEnd[1]);
+        for (byte[] existing : fleetNames) {
+            if (Arrays.equals(existing, name)) throw error("fleet '" + token(1) + "' already exists");
+        }
+
+        fleetNames.add(name);
+        fleets.add(new Fleet(world, new String(name, StandardCharsets.UTF_8), number(2), number(3)));
+    }
+
+    private void link() throws IOException {
+        int turns = number(3);
+        if (turns < 1) throw error("travel turns must be at least 1");
+        if (number(1) == number(2)) throw error("a sector cannot be linked to itself");
+
+        if (world.getSectorGraph() == null) world.setSectorGraph(new SectorGraph());
+        world.getSectorGraph().connect(number(1), number(2), turns);
+    }
+
+    private void tokenize(int from, int to) {
+        tokens = 0;
+        int i = from;
+        while (i < to && tokens < MAX_TOKENS + 1) {
+            while (i < to && isSpace(buffer[i])) i++;
+            if (i == to) break;
+
+            int start = i;
+            while (i < to && !isSpace(buffer[i])) i++;
+            if (tokens == MAX_TOKENS) {
+                tokens++;
+                break;
+            }
+            tokenStart[tokens] = start;
+            tokenEnd[tokens] = i;
+            tokens++;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private boolean is(int token, byte[] keyword) {
+        return Arrays.equals(buffer, tokenStart[token], tokenEnd[token], keyword, 0, keyword.length);
+    }
+
+    private void expectTokens(int count) throws IOException {
+        if (tokens != count) throw error("'" + token(0) + "' takes " + (count - 1) + " arguments");
+    }
+
+    private int number(int token) throws IOException {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = buffer[i] == '-';
+        if (negative) i++;
+        if (i == end) throw error("'" + token(token) + "' is not a number");
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) throw error("'" + token(token) + "' is not a number");
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) throw error("'" + token(token) + "' is too large");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private Fleet fleet(int token) throws IOException {
+        for (int i = 0; i < fleetNames.size(); i++) {
+            byte[] name = fleetNames.get(i);
+            if (Arrays.equals(buffer, tokenStart[token], tokenEnd[token], name, 0, name.length)) return fleets.get(i);
+        }
+        throw error("unknown fleet '" + token(token) + "'");
+    }
+
+    private Starship ship(int fleetToken, int shipToken) throws IOException {
+        ShipStore store = fleet(fleetToken).getStore();
+        int index = number(shipToken);
+        if (index < 0 || index >= store.size()) throw error("fleet '" + token(fleetToken) + "' has no ship " + index);
+        return store.ship(index);
+    }
+
+    private Starbase starbase(int fleetToken) throws IOException {
+        List<Starbase> bases = fleet(fleetToken).getStarbases();
+        if (bases.isEmpty()) throw error("fleet '" + token(fleetToken) + "' has no starbase");
+        return bases.getFirst();
+    }
+
+    private Targetable target(int fleetToken, int targetToken) throws IOException {
+        if (is(targetToken, BASE)) return starbase(fleetToken);
+        return ship(fleetToken, targetToken);
+    }
+
+    private String token(int token) {
+        return new String(buffer, tokenStart[token], tokenEnd[token] - tokenStart[token], StandardCharsets.UTF_8);
+    }
+
+    private IOException error(String message) {
+        return new IOException("line " + lineNumber + ": " + message);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java ScriptRunner <script file>");
+            System.exit(2);
+        }
+
+        try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+            Result result = new ScriptRunner(new World()).run(in);
+            System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * This is the SectorGraph class - it records which sectors are next to each other and how many turns it takes to travel
+ * between them, and finds the quickest route from one sector to another.
+ * Routes are worked out the first time a destination is asked for, as a shortest-path tree from every sector to it, and
+ * kept until the graph changes, so the lookups made for every travelling Starship each turn are array reads, not searches
+ * @author Oscar Allen
+ */
+public class SectorGraph {
+    /**
+     * Returned by nextHop() when there is no route
+     */
+    public static final int NO_ROUTE = Integer.MIN_VALUE;
+
+    /**
+     * Returned by travelTurns() and hopTurns() when there is no route
+     */
+    public static final int UNREACHABLE = -1;
+
+    private int[] sectors = new int[0];
+    private int[][] neighbours = new int[0][];
+    private int[][] turns = new int[0][];
+    private int[] degree = new int[0];
+
+    private Route[] routes = new Route[0];
+    private long cacheHits;
+    private long cacheMisses;
+
+    /**
+     * The shortest-path tree towards one destination, indexed by sector index
+     */
+
+    private static class Route {
+        private int[] next;
+        private int[] distance;
+
+        Route(int size) {
+            next = new int[size];
+            distance = new int[size];
+            Arrays.fill(next, -1);
+            Arrays.fill(distance, UNREACHABLE);
+        }
+    }
+
+    /**
+     * Connects two sectors in both directions, adding them to the graph if they are new. Connecting sectors that are
+     * already connected changes their travel time
+     * @param a
+     * @param b
+     * @param travelTurns at least 1
+     */
+
+    public void connect(int a, int b, int travelTurns) {
+        if (a == b) throw new IllegalArgumentException("a sector cannot be connected to itself: " + a);
+        if (travelTurns < 1) throw new IllegalArgumentException("travelTurns must be at least 1: " + travelTurns);
+        if (a == NO_ROUTE || b == NO_ROUTE) throw new IllegalArgumentException("sector " + NO_ROUTE + " is reserved");
+
+        int from = addSector(a);
+        int to = addSector(b);
+        link(from, to, travelTurns);
+        link(to, from, travelTurns);
+        Arrays.fill(routes, null);
+    }
+
+    /**
+     * Checks if a sector is in the graph
+     * @param sector
+     * @return true or false
+     */
+
+    public boolean contains(int sector) {
+        return Arrays.binarySearch(sectors, sector) >= 0;
+    }
+
+    /**
+     * Gets the number of sectors in the graph
+     * @return size
+     */
+
+    public int size() {
+        return sectors.length;
+    }
+
+    /**
+     * Gets the sector to move to next on the quickest route between two sectors
+     * @param from
+     * @param to
+     * @return next sector, from itself if from and to are the same, or NO_ROUTE if either is not in the graph or to cannot be reached
+     */
+
+    public int nextHop(int from, int to) {
+        if (from == to) return from;
+
+        int start = Arrays.binarySearch(sectors, from);
+        Route route = route(to);
+        if (start < 0 || route == null || route.next[start] < 0) return NO_ROUTE;
+
+        return sectors[route.next[start]];
+    }
+
+    /**
+     * Gets the number of turns the quickest route between two sectors takes
+     * @param from
+     * @param to
+     * @return turns, 0 if from and to are the same, or UNREACHABLE if either is not in the graph or to cannot be reached
+     */
+
+    public int travelTurns(int from, int to) {
+        if (from == to) return 0;
+
+        int start = Arrays.binarySearch(sectors, from);
+        Route route = route(to);
+        if (start < 0 || route == null) return UNREACHABLE;
+
+        return route.distance[start];
+    }
+
+    /**
+     * Gets the number of turns it takes to travel directly between two neighbouring sectors
+     * @param from
+     * @param to
+     * @return turns, or UNREACHABLE if the sectors are not connected
+     */
+
+    public int hopTurns(int from, int to) {
+        int index = Arrays.binarySearch(sectors, from);
+        int target = Arrays.binarySearch(sectors, to);
+        if (index < 0 || target < 0) return UNREACHABLE;
+
+        for (int i = 0; i < degree[index]; i++) {
+            if (neighbours[index][i] == target) return turns[index][i];
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * Gets the number of route lookups answered from the cache
+     * @return cacheHits
+     */
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Gets the number of route lookups that had to search the graph
+     * @return cacheMisses
+     */
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    private Route route(int to) {
+        int destination = Arrays.binarySearch(sectors, to);
+        if (destination < 0) return null;
+
+        Route route = routes[destination];
+        if (route != null) {
+            cacheHits++;
+            return route;
+        }
+
+        cacheMisses++;
+        route = search(destination);
+        routes[destination] = route;
+        return route;
+    }
+
+    /**
+     * Dijkstra's algorithm outwards from the destination. Travel times are the same in both directions, so the sector
+     * each one is reached from is its next hop towards the destination
+     */
+
+    private Route search(int destination) {
+        Route route = new Route(sectors.length);
+        route.distance[destination] = 0;
+        route.next[destination] = destination;
+
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        queue.add((long) destination);
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int sector = (int) entry;
+            int distance = (int) (entry >>> 32);
+            if (distance > route.distance[sector]) continue;
+
+            for (int i = 0; i < degree[sector]; i++) {
+                int neighbour = neighbours[sector][i];
+                int through = distance + turns[sector][i];
+                int known = route.distance[neighbour];
+                if (known != UNREACHABLE && known <= through) continue;
+
+                route.distance[neighbour] = through;
+                route.next[neighbour] = sector;
+                queue.add(((long) through << 32) | neighbour);
+            }
+        }
+        return route;
+    }
+
+    private int addSector(int sector) {
+        int index = Arrays.binarySearch(sectors, sector);
+        if (index >= 0) return index;
+
+        index = -index - 1;
+        int size = sectors.length;
+        sectors = insert(sectors, index, sector);
+        degree = insert(degree, index, 0);
+
+        int[][] movedNeighbours = new int[size + 1][];
+        int[][] movedTurns = new int[size + 1][];
+        System.arraycopy(neighbours, 0, movedNeighbours, 0, index);
+        System.arraycopy(neighbours, index, movedNeighbours, index + 1, size - index);
+        System.arraycopy(turns, 0, movedTurns, 0, index);
+        System.arraycopy(turns, index, movedTurns, index + 1, size - index);
+        movedNeighbours[index] = new int[2];
+        movedTurns[index] = new int[2];
+        neighbours = movedNeighbours;
+        turns = movedTurns;
+
+        for (int s = 0; s <= size; s++) {
+            for (int i = 0; i < degree[s]; i++) {
+                if (neighbours[s][i] >= index) neighbours[s][i]++;
+            }
+        }
+        routes = new Route[size + 1];
+        return index;
+    }
+
+    private void link(int from, int to, int travelTurns) {
+        for (int i = 0; i < degree[from]; i++) {
+            if (neighbours[from][i] == to) {
+                turns[from][i] = travelTurns;
+                return;
+            }
+        }
+
+        if (degree[from] == neighbours[from].length) {
+            neighbours[from] = Arrays.copyOf(neighbours[from], degree[from] * 2);
+            turns[from] = Arrays.copyOf(turns[from], degree[from] * 2);
+        }
+        neighbours[from][degree[from]] = to;
+        turns[from][degree[from]] = travelTurns;
+        degree[from]++;
+    }
+
+    private static int[] insert(int[] array, int index, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+}
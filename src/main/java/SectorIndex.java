@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This is the SectorIndex class - it maps each sector to the Targetables that are currently in it.
+ * Once a Targetable or a sector has been seen, its entry is kept when it leaves the index and reused when it comes back,
+ * so moving, destroying and resetting Targetables does not allocate
+ * @author Oscar Allen
+ */
+public class SectorIndex {
+    private static final int ABSENT = -1;
+
+    private Map<Integer, List<Targetable>> sectors = new HashMap<>();
+    private List<List<Targetable>> buckets = new ArrayList<>();
+    private Map<Targetable, Position> positions = new HashMap<>();
+    private int size;
+
+    /**
+     * Where an indexed Targetable sits in its sector's bucket, or ABSENT
+     */
+
+    private static class Position {
+        private int index = ABSENT;
+    }
+
+    /**
+     * The contents of every bucket at one moment, in bucket order
+     * @see #checkpoint()
+     */
+
+    static final class Checkpoint {
+        private int[] sectors;
+        private Targetable[][] buckets;
+    }
+
+    /**
+     * Adds a Targetable to the bucket for the given sector, unless it is already indexed
+     * @param target
+     * @param sector
+     */
+
+    public void add(Targetable target, int sector) {
+        Position position = positions.get(target);
+        if (position == null) {
+            position = new Position();
+            positions.put(target, position);
+        }
+        if (position.index != ABSENT) return;
+
+        List<Targetable> bucket = sectors.get(sector);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            sectors.put(sector, bucket);
+            buckets.add(bucket);
+        }
+        position.index = bucket.size();
+        bucket.add(target);
+        size++;
+    }
+
+    /**
+     * Removes a Targetable from the bucket for the given sector, moving the last entry of the bucket into its place
+     * @param target
+     * @param sector the Targetable was indexed under
+     */
+
+    public void remove(Targetable target, int sector) {
+        Position position = positions.get(target);
+        if (position == null || position.index == ABSENT) return;
+
+        List<Targetable> bucket = sectors.get(sector);
+        Targetable last = bucket.removeLast();
+        if (position.index < bucket.size()) {
+            bucket.set(position.index, last);
+            positions.get(last).index = position.index;
+        }
+        position.index = ABSENT;
+        size--;
+    }
+
+    /**
+     * Removes a Targetable and forgets it entirely, for Targetables that will not come back to this index
+     * @param target
+     * @param sector the Targetable was indexed under
+     */
+
+    void discard(Targetable target, int sector) {
+        remove(target, sector);
+        positions.remove(target);
+    }
+
+    /**
+     * Moves an indexed Targetable from one sector bucket to another
+     * @param target
+     * @param fromSector
+     * @param toSector
+     */
+
+    public void move(Targetable target, int fromSector, int toSector) {
+        if (fromSector == toSector || !contains(target)) return;
+
+        remove(target, fromSector);
+        add(target, toSector);
+    }
+
+    /**
+     * Checks if a Targetable is in the index
+     * @param target
+     * @return true or false
+     */
+
+    public boolean contains(Targetable target) {
+        Position position = positions.get(target);
+        return position != null && position.index != ABSENT;
+    }
+
+    /**
+     * Gets a read-only view of the Targetables in a sector
+     * @param sector
+     * @return targets
+     */
+
+    public List<Targetable> getTargets(int sector) {
+        List<Targetable> bucket = sectors.get(sector);
+        return bucket == null ? List.of() : Collections.unmodifiableList(bucket);
+    }
+
+    /**
+     * Gets the index's own list of the Targetables in a sector, for callers in the package that only read it
+     * @param sector
+     * @return targets, which must not be modified
+     */
+
+    List<Targetable> bucket(int sector) {
+        List<Targetable> bucket = sectors.get(sector);
+        return bucket == null ? List.of() : bucket;
+    }
+
+    /**
+     * Gets the number of Targetables in a sector
+     * @param sector
+     * @return count
+     */
+
+    public int count(int sector) {
+        List<Targetable> bucket = sectors.get(sector);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Gets the sectors that hold at least one Targetable
+     * @return sectors
+     */
+
+    public Set<Integer> getOccupiedSectors() {
+        Set<Integer> occupied = new TreeSet<>();
+        for (Map.Entry<Integer, List<Targetable>> entry : sectors.entrySet()) {
+            if (!entry.getValue().isEmpty()) occupied.add(entry.getKey());
+        }
+        return Collections.unmodifiableSet(occupied);
+    }
+
+    /**
+     * Gets the number of Targetables in the index
+     * @return size
+     */
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records the contents of every bucket
+     * @return checkpoint
+     * @see #reset(Checkpoint)
+     */
+
+    Checkpoint checkpoint() {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.sectors = new int[sectors.size()];
+        checkpoint.buckets = new Targetable[sectors.size()][];
+        int i = 0;
+        for (Map.Entry<Integer, List<Targetable>> entry : sectors.entrySet()) {
+            checkpoint.sectors[i] = entry.getKey();
+            checkpoint.buckets[i] = entry.getValue().toArray(new Targetable[0]);
+            i++;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Empties the index and refills every bucket in the order it was recorded, so Targetables are visited in the same order
+     * as when the checkpoint was taken
+     * @param checkpoint
+     */
+
+    void reset(Checkpoint checkpoint) {
+        for (int b = 0; b < buckets.size(); b++) {
+            List<Targetable> bucket = buckets.get(b);
+            for (int i = 0; i < bucket.size(); i++) {
+                positions.get(bucket.get(i)).index = ABSENT;
+            }
+            bucket.clear();
+        }
+        size = 0;
+
+        for (int i = 0; i < checkpoint.sectors.length; i++) {
+            for (Targetable target : checkpoint.buckets[i]) {
+                add(target, checkpoint.sectors[i]);
+            }
+        }
+    }
+}
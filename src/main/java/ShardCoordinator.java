@@ -0,0 +1,432 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the ShardCoordinator class - it runs one simulation spread over several ShardWorker processes, each owning
+ * the sectors that ShardProtocol.shardOf() gives it. The coordinator hands out the ids, sends each command to the shards
+ * that need it and keeps every shard in lockstep: a tick first collects the Starships that moved into another shard's
+ * sectors, then delivers them to their new shards, which play the turn together and report their Fleets' totals.
+ * <p>
+ * Fleets are referred to by the index addFleet() returned. The coordinator is not thread-safe
+ * @author Oscar Allen
+ * @see ShardWorker#playTurn(World)
+ */
+public class ShardCoordinator implements AutoCloseable {
+    private static final long WORKER_EXIT_MILLIS = 5_000;
+
+    private List<Process> processes = new ArrayList<>();
+    private SocketChannel[] shards;
+    private ByteBuffer[] buffers;
+    private ByteBuffer request = ByteBuffer.allocate(1 << 16);
+
+    private List<String> fleetNames = new ArrayList<>();
+    private List<ShipStats> fleetStats = new ArrayList<>();
+    private int lastShipId;
+    private int lastStarbaseId;
+    private long ticks;
+    private long handoffs;
+
+    private int[] ships = new int[0];
+    private int[] liveShips = new int[0];
+    private long[] shipHealth = new long[0];
+    private long[] starbaseHealth = new long[0];
+
+    private ShardCoordinator() {
+    }
+
+    /**
+     * Starts the given number of ShardWorker processes on this machine, with the same Java and class path as this one,
+     * and connects to them over the loopback address
+     * @param shardCount
+     * @param jvmOptions passed to every worker, for example -Xmx1g
+     * @return coordinator
+     * @throws IOException if a worker cannot be started or connected to
+     */
+
+    public static ShardCoordinator launch(int shardCount, String... jvmOptions) throws IOException {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be at least 1: " + shardCount);
+
+        ShardCoordinator coordinator = new ShardCoordinator();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        try {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            for (int i = 0; i < shardCount; i++) {
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                command.addAll(Arrays.asList(jvmOptions));
+                command.addAll(List.of("-cp", System.getProperty("java.class.path"), "ShardWorker"));
+                Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                coordinator.processes.add(process);
+            }
+            for (Process process : coordinator.processes) {
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(process)));
+            }
+            coordinator.open(addresses);
+            return coordinator;
+        } catch (IOException | RuntimeException e) {
+            coordinator.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connects to ShardWorkers that are already running, giving each its shard index in list order
+     * @param addresses
+     * @return coordinator
+     * @throws IOException if a worker cannot be connected to
+     */
+
+    public static ShardCoordinator connect(List<InetSocketAddress> addresses) throws IOException {
+        if (addresses.isEmpty()) throw new IllegalArgumentException("at least one shard is needed");
+
+        ShardCoordinator coordinator = new ShardCoordinator();
+        try {
+            coordinator.open(addresses);
+            return coordinator;
+        } catch (IOException | RuntimeException e) {
+            coordinator.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the port a freshly started worker announces on its standard output
+     */
+
+    private static int readPort(Process process) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line = out.readLine();
+        if (line == null || !line.startsWith("ShardWorker listening on ")) {
+            throw new IOException("shard worker did not start: " + line);
+        }
+        return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+    }
+
+    private void open(List<InetSocketAddress> addresses) throws IOException {
+        shards = new SocketChannel[addresses.size()];
+        buffers = new ByteBuffer[addresses.size()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = SocketChannel.open(addresses.get(i));
+            shards[i].socket().setTcpNoDelay(true);
+            buffers[i] = ByteBuffer.allocate(1 << 16);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            ShardProtocol.begin(request, ShardProtocol.HELLO);
+            request.putInt(i);
+            request.putInt(shards.length);
+            call(i);
+        }
+    }
+
+    /**
+     * Gets the number of shards
+     * @return shardCount
+     */
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Adds an empty Fleet on every shard
+     * @param name
+     * @param stats of the Fleet's Starships
+     * @return index of the Fleet
+     * @throws IOException if a shard fails
+     */
+
+    public int addFleet(String name, ShipStats stats) throws IOException {
+        if (fleetNames.contains(name)) throw new IllegalArgumentException("there is already a fleet called " + name);
+
+        for (int i = 0; i < shards.length; i++) {
+            ShardProtocol.begin(request, ShardProtocol.ADD_FLEET);
+            request.putInt(stats.maxAtkStrength());
+            request.putInt(stats.maxDefStrength());
+            request.putInt(stats.maxCrew());
+            request.putInt(stats.maxHealth());
+            request = ShardProtocol.putString(request, name);
+            call(i);
+        }
+        fleetNames.add(name);
+        fleetStats.add(stats);
+        int fleets = fleetNames.size();
+        ships = Arrays.copyOf(ships, fleets);
+        liveShips = Arrays.copyOf(liveShips, fleets);
+        shipHealth = Arrays.copyOf(shipHealth, fleets);
+        starbaseHealth = Arrays.copyOf(starbaseHealth, fleets);
+        return fleets - 1;
+    }
+
+    /**
+     * Adds Starships at full health to a Fleet, on the shard that owns their sector
+     * @param fleet index
+     * @param sector
+     * @param count
+     * @throws IOException if the shard fails
+     */
+
+    public void addShips(int fleet, int sector, int count) throws IOException {
+        Objects.checkIndex(fleet, fleetNames.size());
+        if (count < 0) throw new IllegalArgumentException("count must not be negative: " + count);
+
+        ShardProtocol.begin(request, ShardProtocol.ADD_SHIPS);
+        request.putInt(fleet);
+        request.putInt(sector);
+        request.putInt(count);
+        request.putInt(lastShipId + 1);
+        call(ShardProtocol.shardOf(sector, shards.length));
+        lastShipId += count;
+
+        ships[fleet] += count;
+        liveShips[fleet] += count;
+        shipHealth[fleet] += (long) count * fleetStats.get(fleet).maxHealth();
+    }
+
+    /**
+     * Adds a Starbase at full health to a Fleet, on the shard that owns its sector
+     * @param fleet index
+     * @param sector
+     * @throws IOException if the shard fails
+     */
+
+    public void addStarbase(int fleet, int sector) throws IOException {
+        Objects.checkIndex(fleet, fleetNames.size());
+
+        ShardProtocol.begin(request, ShardProtocol.ADD_STARBASE);
+        request.putInt(fleet);
+        request.putInt(sector);
+        request.putInt(++lastStarbaseId);
+        call(ShardProtocol.shardOf(sector, shards.length));
+        starbaseHealth[fleet] += Starbase.MAX_HEALTH;
+    }
+
+    /**
+     * Moves every live, undocked Starship of a Fleet into a sector. Starships that end up in another shard's sector are
+     * handed over to it at the start of the next tick
+     * @param fleet index
+     * @param sector
+     * @throws IOException if a shard fails
+     * @see Fleet#mobilise(int)
+     */
+
+    public void mobilise(int fleet, int sector) throws IOException {
+        Objects.checkIndex(fleet, fleetNames.size());
+
+        for (int i = 0; i < shards.length; i++) {
+            ShardProtocol.begin(request, ShardProtocol.MOBILISE);
+            request.putInt(fleet);
+            request.putInt(sector);
+            ShardProtocol.send(shards[i], request);
+        }
+        receiveAll();
+    }
+
+    /**
+     * Plays one turn on every shard in lockstep. Every shard first gives up the Starships in sectors it does not own; each
+     * is then delivered to the shard that owns its sector along with the order to play the turn, and the tick ends when
+     * every shard has reported its Fleets' totals
+     * @throws IOException if a shard fails
+     * @see ShardWorker#playTurn(World)
+     */
+
+    public void tick() throws IOException {
+        for (int i = 0; i < shards.length; i++) {
+            ShardProtocol.begin(request, ShardProtocol.EXCHANGE);
+            ShardProtocol.send(shards[i], request);
+        }
+
+        ByteBuffer[] deliveries = buffers;
+        int[] counts = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            ShardProtocol.begin(deliveries[i], ShardProtocol.STEP);
+            deliveries[i].putInt(0);
+        }
+        ByteBuffer[] exports = receiveAll();
+        for (int i = 0; i < shards.length; i++) {
+            ByteBuffer response = exports[i];
+            int count = response.getInt();
+            for (int r = 0; r < count; r++) {
+                int fleet = response.getInt();
+                int id = response.getInt();
+                int sector = response.getInt();
+                int health = response.getInt();
+                int crew = response.getInt();
+                int to = ShardProtocol.shardOf(sector, shards.length);
+                deliveries[to] = ShardProtocol.putShip(deliveries[to], fleet, id, sector, health, crew);
+                counts[to]++;
+            }
+            handoffs += count;
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            // the count of records follows the frame length and the opcode
+            deliveries[i].putInt(Integer.BYTES + 1, counts[i]);
+            ShardProtocol.send(shards[i], deliveries[i]);
+        }
+
+        Arrays.fill(ships, 0);
+        Arrays.fill(liveShips, 0);
+        Arrays.fill(shipHealth, 0);
+        Arrays.fill(starbaseHealth, 0);
+        ByteBuffer[] statuses = receiveAll();
+        for (int i = 0; i < shards.length; i++) {
+            ByteBuffer response = statuses[i];
+            for (int fleet = 0; fleet < fleetNames.size(); fleet++) {
+                ships[fleet] += response.getInt();
+                liveShips[fleet] += response.getInt();
+                shipHealth[fleet] += response.getLong();
+                starbaseHealth[fleet] += response.getLong();
+            }
+        }
+        ticks++;
+    }
+
+    /**
+     * Sends the request to one shard and waits for its answer
+     */
+
+    private ByteBuffer call(int shard) throws IOException {
+        ShardProtocol.send(shards[shard], request);
+        return receive(shard);
+    }
+
+    /**
+     * Reads every shard's answer to a broadcast before failing with the first error, so no answer is left unread
+     * @return answers, by shard
+     */
+
+    private ByteBuffer[] receiveAll() throws IOException {
+        ByteBuffer[] responses = new ByteBuffer[shards.length];
+        RuntimeException error = null;
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                responses[i] = receive(i);
+            } catch (IllegalArgumentException e) {
+                if (error == null) error = e;
+            }
+        }
+        if (error != null) throw error;
+        return responses;
+    }
+
+    /**
+     * Reads one shard's answer, failing if the shard reported an error
+     */
+
+    private ByteBuffer receive(int shard) throws IOException {
+        ByteBuffer response = ShardProtocol.receive(shards[shard], ByteBuffer.allocate(1 << 12));
+        if (response == null) throw new IOException("shard " + shard + " disconnected");
+
+        byte status = response.get();
+        if (status == ShardProtocol.BAD_ARGUMENT) {
+            throw new IllegalArgumentException("shard " + shard + ": " + ShardProtocol.getString(response));
+        }
+        if (status != ShardProtocol.OK) throw new IOException("shard " + shard + " did not understand opcode " + response.get());
+        return response;
+    }
+
+    /**
+     * Gets the name of a Fleet
+     * @param fleet index
+     * @return name
+     */
+
+    public String getFleetName(int fleet) {
+        return fleetNames.get(fleet);
+    }
+
+    /**
+     * Gets the number of Starships of a Fleet on every shard, destroyed or not, as of the last tick
+     * @param fleet index
+     * @return ships
+     */
+
+    public int getShipCount(int fleet) {
+        return ships[fleet];
+    }
+
+    /**
+     * Gets the number of live Starships of a Fleet, as of the last tick
+     * @param fleet index
+     * @return liveShips
+     */
+
+    public int getLiveShipCount(int fleet) {
+        return liveShips[fleet];
+    }
+
+    /**
+     * Gets the total health of a Fleet's Starships, as of the last tick
+     * @param fleet index
+     * @return shipHealth
+     */
+
+    public long getTotalHealth(int fleet) {
+        return shipHealth[fleet];
+    }
+
+    /**
+     * Gets the total health of a Fleet's Starbases, as of the last tick
+     * @param fleet index
+     * @return starbaseHealth
+     */
+
+    public long getStarbaseHealth(int fleet) {
+        return starbaseHealth[fleet];
+    }
+
+    /**
+     * Gets the number of ticks played
+     * @return ticks
+     */
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of Starships handed from one shard to another so far
+     * @return handoffs
+     */
+
+    public long getHandoffs() {
+        return handoffs;
+    }
+
+    /**
+     * Disconnects from every shard and waits for the workers this coordinator started to exit, killing any that do not
+     */
+
+    @Override
+    public void close() {
+        if (shards != null) {
+            for (SocketChannel shard : shards) {
+                try {
+                    if (shard != null) shard.close();
+                } catch (IOException e) {
+                    System.err.println("ShardCoordinator could not close a shard connection: " + e.getMessage());
+                }
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(WORKER_EXIT_MILLIS, TimeUnit.MILLISECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
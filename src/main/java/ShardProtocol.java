@@ -0,0 +1,158 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the ShardProtocol class - the framing shared by ShardCoordinator and ShardWorker. Every request and response
+ * is an int length followed by that many bytes: a request starts with an opcode byte and a response with a status byte.
+ * A Starship handed from one shard to another travels as a record of five ints
+ * @author Oscar Allen
+ */
+public final class ShardProtocol {
+    static final byte HELLO = 1;
+    static final byte ADD_FLEET = 2;
+    static final byte ADD_SHIPS = 3;
+    static final byte ADD_STARBASE = 4;
+    static final byte MOBILISE = 5;
+    static final byte EXCHANGE = 6;
+    static final byte STEP = 7;
+
+    static final byte OK = 0;
+    static final byte BAD_ARGUMENT = 1;
+    static final byte BAD_COMMAND = 2;
+
+    static final int SHIP_RECORD_SIZE = 5 * Integer.BYTES;
+    static final int MAX_FRAME_SIZE = 1 << 30;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Gets a buffer with room for more bytes after its position, copying the buffer into a bigger one if it has to
+     * @param buffer
+     * @param more
+     * @return buffer, or a bigger copy of it
+     */
+
+    static ByteBuffer ensure(ByteBuffer buffer, int more) {
+        if (buffer.remaining() >= more) return buffer;
+
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + more));
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    /**
+     * Clears the buffer and starts a frame with the given opcode or status, leaving room for the length
+     * @param buffer
+     * @param code
+     */
+
+    static void begin(ByteBuffer buffer, byte code) {
+        buffer.clear();
+        buffer.putInt(0);
+        buffer.put(code);
+    }
+
+    /**
+     * Fills in the length of a frame started with begin() and writes it to the channel
+     * @param channel
+     * @param buffer
+     * @throws IOException if the channel fails
+     */
+
+    static void send(ByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.putInt(0, buffer.position() - Integer.BYTES);
+        buffer.flip();
+        GameProtocol.writeFully(channel, buffer);
+    }
+
+    /**
+     * Reads one frame from the channel
+     * @param channel
+     * @param buffer to read into, if it is big enough
+     * @return buffer holding the frame, positioned after the length, or null if the channel was closed between frames
+     * @throws IOException if the channel fails, closes part way through a frame or the frame is too big
+     */
+
+    static ByteBuffer receive(ByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(Integer.BYTES);
+        if (!GameProtocol.readFully(channel, buffer)) return null;
+
+        int length = buffer.getInt(0);
+        if (length < 1 || length > MAX_FRAME_SIZE) throw new IOException("bad frame length " + length);
+        if (buffer.capacity() < Integer.BYTES + length) {
+            buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, Integer.BYTES + length));
+            buffer.putInt(length);
+        }
+        buffer.limit(Integer.BYTES + length);
+        if (!GameProtocol.readFully(channel, buffer)) throw new EOFException("connection closed after a frame length");
+        buffer.flip();
+        buffer.position(Integer.BYTES);
+        return buffer;
+    }
+
+    /**
+     * Writes a string as a short length and its UTF-8 bytes
+     * @param buffer
+     * @param value
+     * @return buffer, or a bigger copy of it
+     */
+
+    static ByteBuffer putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("string is too long: " + bytes.length + " bytes");
+
+        buffer = ensure(buffer, Short.BYTES + bytes.length);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    /**
+     * Reads a string written by putString()
+     * @param buffer
+     * @return value
+     */
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a Starship record
+     * @param buffer
+     * @param fleet index of the Starship's fleet in the World
+     * @param id
+     * @param sector
+     * @param health
+     * @param crew
+     * @return buffer, or a bigger copy of it
+     */
+
+    static ByteBuffer putShip(ByteBuffer buffer, int fleet, int id, int sector, int health, int crew) {
+        buffer = ensure(buffer, SHIP_RECORD_SIZE);
+        buffer.putInt(fleet);
+        buffer.putInt(id);
+        buffer.putInt(sector);
+        buffer.putInt(health);
+        buffer.putInt(crew);
+        return buffer;
+    }
+
+    /**
+     * Gets the shard that owns a sector
+     * @param sector
+     * @param shards
+     * @return shard index
+     */
+
+    static int shardOf(int sector, int shards) {
+        return Math.floorMod(sector, shards);
+    }
+}
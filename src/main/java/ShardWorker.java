@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This is the ShardWorker class - one process of a sharded simulation. It owns the Starships and Starbases in every sector
+ * whose ShardProtocol.shardOf() is its own shard index, in a World of its own, and follows the ShardCoordinator's commands
+ * over a single loopback connection. Starships that move into another shard's sectors are sent back to the coordinator at
+ * the next exchange and leave the World. Run it with: java ShardWorker [port]. It prints the port it listens on and exits
+ * once the coordinator disconnects
+ * @author Oscar Allen
+ * @see ShardCoordinator
+ */
+public class ShardWorker {
+    private World world = new World();
+    private int shard;
+    private int shards = 1;
+
+    /**
+     * Accepts one coordinator on the loopback address and serves it until it disconnects
+     * @param args optional port, 0 or none for any free port
+     * @throws IOException if the port cannot be bound or the connection fails
+     */
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            System.out.println("ShardWorker listening on " + ((InetSocketAddress) server.getLocalAddress()).getPort());
+            System.out.flush();
+
+            try (SocketChannel connection = server.accept()) {
+                connection.socket().setTcpNoDelay(true);
+                new ShardWorker().serve(connection);
+            }
+        }
+    }
+
+    /**
+     * Answers the coordinator's requests in order until it closes the connection
+     * @param connection
+     * @throws IOException if the connection fails
+     */
+
+    void serve(SocketChannel connection) throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(1 << 16);
+        ByteBuffer response = ByteBuffer.allocate(1 << 16);
+        while (true) {
+            request = ShardProtocol.receive(connection, request);
+            if (request == null) return;
+
+            byte opcode = request.get();
+            ShardProtocol.begin(response, ShardProtocol.OK);
+            try {
+                response = execute(opcode, request, response);
+            } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException | BufferUnderflowException e) {
+                ShardProtocol.begin(response, ShardProtocol.BAD_ARGUMENT);
+                response = ShardProtocol.putString(response, String.valueOf(e.getMessage()));
+            }
+            ShardProtocol.send(connection, response);
+        }
+    }
+
+    /**
+     * Carries out one request, writing its result after the status of the response
+     * @param opcode
+     * @param request positioned after the opcode
+     * @param response
+     * @return response, or a bigger copy of it
+     */
+
+    private ByteBuffer execute(byte opcode, ByteBuffer request, ByteBuffer response) {
+        switch (opcode) {
+            case ShardProtocol.HELLO -> {
+                shard = request.getInt();
+                shards = request.getInt();
+                if (shards < 1 || shard < 0 || shard >= shards) throw new IllegalArgumentException("bad shard " + shard + " of " + shards);
+            }
+            case ShardProtocol.ADD_FLEET -> {
+                ShipStats stats = new ShipStats(request.getInt(), request.getInt(), request.getInt(), request.getInt());
+                String name = ShardProtocol.getString(request);
+                new Fleet(world, name, new ShipStore(world, stats, 16));
+            }
+            case ShardProtocol.ADD_SHIPS -> {
+                Fleet fleet = world.getFleets().get(request.getInt());
+                int sector = owned(request.getInt());
+                int count = request.getInt();
+                int firstId = request.getInt();
+                ShipStats stats = fleet.getStore().getStats();
+                for (int i = 0; i < count; i++) {
+                    fleet.getStore().receive(firstId + i, sector, stats.maxHealth(), stats.maxCrew(), fleet.getFleetId());
+                }
+            }
+            case ShardProtocol.ADD_STARBASE -> {
+                Fleet fleet = world.getFleets().get(request.getInt());
+                int sector = owned(request.getInt());
+                fleet.addStarbase(new Starbase(world, request.getInt(), sector, DockingBay.UNLIMITED, Starbase.MAX_HEALTH));
+            }
+            case ShardProtocol.MOBILISE -> world.getFleets().get(request.getInt()).mobilise(request.getInt());
+            case ShardProtocol.EXCHANGE -> response = exportShips(response);
+            case ShardProtocol.STEP -> {
+                importShips(request);
+                playTurn(world);
+                response = putStatus(response);
+            }
+            default -> {
+                ShardProtocol.begin(response, ShardProtocol.BAD_COMMAND);
+                response.put(opcode);
+            }
+        }
+        return response;
+    }
+
+    private int owned(int sector) {
+        if (ShardProtocol.shardOf(sector, shards) != shard) throw new IllegalArgumentException("sector " + sector + " is not on shard " + shard);
+        return sector;
+    }
+
+    /**
+     * Takes every Starship that is in a sector of another shard out of the World and writes it to the response
+     * @param response
+     * @return response, or a bigger copy of it
+     */
+
+    private ByteBuffer exportShips(ByteBuffer response) {
+        int countAt = response.position();
+        response.putInt(0);
+        int count = 0;
+        List<Starship> leaving = new ArrayList<>();
+        List<Fleet> fleets = world.getFleets();
+        for (int f = 0; f < fleets.size(); f++) {
+            ShipStore store = fleets.get(f).getStore();
+            for (int sector : store.getSectorIndex().getOccupiedSectors()) {
+                if (ShardProtocol.shardOf(sector, shards) == shard) continue;
+
+                leaving.clear();
+                for (Targetable target : store.getSectorIndex().bucket(sector)) {
+                    if (target instanceof Starship ship) leaving.add(ship);
+                }
+                for (Starship ship : leaving) {
+                    response = ShardProtocol.putShip(response, f, ship.getId(), sector, ship.getCurrentHealth(), ship.getCurrentCrew());
+                    store.release(ship);
+                    count++;
+                }
+            }
+        }
+        response.putInt(countAt, count);
+        return response;
+    }
+
+    /**
+     * Adds the Starships handed over from other shards to their Fleets
+     * @param request positioned at the count of Starship records
+     */
+
+    private void importShips(ByteBuffer request) {
+        int count = request.getInt();
+        List<Fleet> fleets = world.getFleets();
+        for (int i = 0; i < count; i++) {
+            Fleet fleet = fleets.get(request.getInt());
+            int id = request.getInt();
+            int sector = owned(request.getInt());
+            int health = request.getInt();
+            int crew = request.getInt();
+            fleet.getStore().receive(id, sector, health, crew, fleet.getFleetId());
+        }
+    }
+
+    /**
+     * Writes, for every Fleet, its number of Starships, live Starships, total Starship health and total Starbase health
+     * @param response
+     * @return response, or a bigger copy of it
+     */
+
+    private ByteBuffer putStatus(ByteBuffer response) {
+        List<Fleet> fleets = world.getFleets();
+        response = ShardProtocol.ensure(response, fleets.size() * (2 * Integer.BYTES + 2 * Long.BYTES));
+        for (Fleet fleet : fleets) {
+            long starbaseHealth = 0;
+            for (Starbase base : fleet.getStarbases()) {
+                starbaseHealth += base.getCurrentHealth();
+            }
+            response.putInt(fleet.getStore().size());
+            response.putInt(fleet.getLiveShipCount());
+            response.putLong(fleet.getTotalHealth());
+            response.putLong(starbaseHealth);
+        }
+        return response;
+    }
+
+    /**
+     * Plays one turn of battle. In every sector each Fleet in turn attacks the weakest enemy target there, as
+     * Fleet.attackTarget() does: every live, undocked Starship of the Fleet in the sector that is not under repair hits
+     * the target in turn, dealing its attack strength less the target's defence at that moment, but at least 5. Then the
+     * World advances a turn. The ships fire in order of id rather than of their slots, which depend on when a ship
+     * arrived on the shard, and ties between targets go to the lowest id, so the outcome does not depend on how the
+     * sectors are spread over shards
+     * @param world
+     */
+
+    static void playTurn(World world) {
+        List<Fleet> fleets = world.getFleets();
+        List<Starship> attackers = new ArrayList<>();
+        for (Fleet fleet : fleets) {
+            ShipStore store = fleet.getStore();
+            for (int sector : store.getSectorIndex().getOccupiedSectors()) {
+                Targetable target = weakestEnemy(fleets, fleet, sector);
+                if (target == null) continue;
+
+                attackers.clear();
+                for (Targetable candidate : store.getSectorIndex().bucket(sector)) {
+                    if (!(candidate instanceof Starship ship) || ship.isDocked() || ship.isUnderRepair()) continue;
+                    if (ship.getFleetId() != target.getFleetId()) attackers.add(ship);
+                }
+                attackers.sort(Comparator.comparingInt(Starship::getId));
+                for (Starship ship : attackers) {
+                    target.takeDamage(Math.max(ship.getCurrentAtkStrength() - target.getCurrentDefence(), 5));
+                }
+            }
+        }
+        world.advanceTurn();
+    }
+
+    /**
+     * Finds the live enemy Targetable in a sector with the least health, Starships before Starbases, then the lowest id
+     * @param fleets
+     * @param attacker
+     * @param sector
+     * @return target, or null if there is none
+     */
+
+    private static Targetable weakestEnemy(List<Fleet> fleets, Fleet attacker, int sector) {
+        Targetable weakest = null;
+        for (Fleet fleet : fleets) {
+            if (fleet.getFleetId() == attacker.getFleetId()) continue;
+
+            for (Targetable target : fleet.getStore().getSectorIndex().bucket(sector)) {
+                if (weakest == null || weaker(target, weakest)) weakest = target;
+            }
+        }
+        return weakest;
+    }
+
+    private static boolean weaker(Targetable a, Targetable b) {
+        if (a.getCurrentHealth() != b.getCurrentHealth()) return a.getCurrentHealth() < b.getCurrentHealth();
+
+        boolean aIsBase = a instanceof Starbase;
+        boolean bIsBase = b instanceof Starbase;
+        if (aIsBase != bIsBase) return bIsBase;
+        return a.getId() < b.getId();
+    }
+}
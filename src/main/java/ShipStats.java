@@ -0,0 +1,126 @@
+/**
+ * This is the ShipStats class - it describes a class of Starship and holds its attack and defence strengths
+ * precomputed for every possible health and crew, so combat reads them from a table instead of doing floating-point work
+ * @author Oscar Allen
+ */
+public final class ShipStats {
+    /**
+     * The standard Starship class
+     */
+    public static final ShipStats STANDARD = new ShipStats(30, 10, 10, 100);
+
+    private final int maxAtkStrength;
+    private final int maxDefStrength;
+    private final int maxCrew;
+    private final int maxHealth;
+
+    private final int[] atkByCrew;
+    private final int[] defByHealthAndCrew;
+
+    /**
+     * Initialises a ship class and builds its stat tables
+     * @param maxAtkStrength
+     * @param maxDefStrength
+     * @param maxCrew
+     * @param maxHealth
+     */
+
+    public ShipStats(int maxAtkStrength, int maxDefStrength, int maxCrew, int maxHealth) {
+        if (maxCrew < 1 || maxHealth < 1) throw new IllegalArgumentException("maxCrew and maxHealth must be at least 1");
+
+        this.maxAtkStrength = maxAtkStrength;
+        this.maxDefStrength = maxDefStrength;
+        this.maxCrew = maxCrew;
+        this.maxHealth = maxHealth;
+
+        atkByCrew = new int[maxCrew + 1];
+        for (int crew = 0; crew <= maxCrew; crew++) {
+            atkByCrew[crew] = computeAtkStrength(crew);
+        }
+
+        defByHealthAndCrew = new int[(maxHealth + 1) * (maxCrew + 1)];
+        for (int health = 0; health <= maxHealth; health++) {
+            for (int crew = 0; crew <= maxCrew; crew++) {
+                defByHealthAndCrew[health * (maxCrew + 1) + crew] = computeDefStrength(health, crew);
+            }
+        }
+    }
+
+    /**
+     * Calculates the attack strength of a ship with the given crew
+     * @param crew
+     * @return atkStrength
+     */
+
+    int computeAtkStrength(int crew) {
+        return (int) Math.ceil(maxAtkStrength * ((double) crew / maxHealth));
+    }
+
+    /**
+     * Calculates the defence strength of a ship with the given health and crew
+     * @param health
+     * @param crew
+     * @return defStrength
+     */
+
+    int computeDefStrength(int health, int crew) {
+        return (int) Math.floor((double) maxDefStrength * ((health + crew)) / (maxHealth + maxCrew));
+    }
+
+    /**
+     * Looks up the attack strength of a ship with the given crew
+     * @param crew between 0 and maxCrew
+     * @return atkStrength
+     */
+
+    public int atkStrength(int crew) {
+        return atkByCrew[crew];
+    }
+
+    /**
+     * Looks up the defence strength of a ship with the given health and crew
+     * @param health between 0 and maxHealth
+     * @param crew between 0 and maxCrew
+     * @return defStrength
+     */
+
+    public int defStrength(int health, int crew) {
+        return defByHealthAndCrew[health * (maxCrew + 1) + crew];
+    }
+
+    /**
+     * Gets the maximum attack strength of the class
+     * @return maxAtkStrength
+     */
+
+    public int maxAtkStrength() {
+        return maxAtkStrength;
+    }
+
+    /**
+     * Gets the maximum defence strength of the class
+     * @return maxDefStrength
+     */
+
+    public int maxDefStrength() {
+        return maxDefStrength;
+    }
+
+    /**
+     * Gets the maximum crew of the class
+     * @return maxCrew
+     */
+
+    public int maxCrew() {
+        return maxCrew;
+    }
+
+    /**
+     * Gets the maximum health of the class
+     * @return maxHealth
+     */
+
+    public int maxHealth() {
+        return maxHealth;
+    }
+}
@@ -0,0 +1,1006 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This is the ShipStore class - it holds the state of many Starships in parallel primitive arrays,
+ * with each Starship acting as a handle onto one slot of the store. Health and crew are packed into one long per ship,
+ * so in concurrent combat they can be damaged together with a single compare-and-set.
+ * <p>
+ * The store keeps its live ship count, total health and attack strength per sector up to date as ships are damaged,
+ * repaired, moved and destroyed, and walks only a list of the live slots when mobilising or moving ships along their courses.
+ * Destroyed ships are dropped from that list once they make up half of it, so the longer a battle runs the less each walk costs
+ * @author Oscar Allen
+ */
+public class ShipStore {
+    static final int NO_BASE = -1;
+    static final int NO_COURSE = SectorGraph.NO_ROUTE;
+
+    private static final VarHandle VITALS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle TOTAL_HEALTH;
+    private static final VarHandle STRENGTH;
+
+    static {
+        try {
+            TOTAL_HEALTH = MethodHandles.lookup().findVarHandle(ShipStore.class, "totalHealth", long.class);
+            STRENGTH = MethodHandles.lookup().findVarHandle(SectorTotal.class, "strength", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private World world;
+    private ShipStats stats;
+    private int size;
+
+    private int[] id;
+    private long[] vitals;
+    private int[] sector;
+    private int[] skipTurns;
+    private int[] dockedBase;
+    private int[] fleet;
+    private int[] destination;
+    private int[] courseTurns;
+    private Starship[] handles;
+    private SectorTotal[] totals;
+    private int[] scratch = new int[16];
+
+    private int[] live;
+    private int listed;
+    private boolean relist;
+    private int liveCount;
+    private long totalHealth;
+    private Map<Integer, SectorTotal> sectorTotals = new HashMap<>();
+    private List<SectorTotal> allTotals = new ArrayList<>();
+
+    private List<Starbase> bases = new ArrayList<>();
+    private SectorIndex sectorIndex = new SectorIndex();
+
+    /**
+     * The total attack strength of the store's live Starships in one sector. Each Starship points at the total for its sector,
+     * so damage updates it without looking the sector up
+     */
+
+    private static final class SectorTotal {
+        private long strength;
+    }
+
+    /**
+     * A copy of the state of every Starship in a store at one moment
+     * @see #checkpoint()
+     */
+
+    static final class Checkpoint {
+        private int size;
+        private long[] vitals;
+        private int[] sector;
+        private int[] skipTurns;
+        private int[] dockedBase;
+        private int[] fleet;
+        private int[] destination;
+        private int[] courseTurns;
+        private SectorIndex.Checkpoint index;
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Initialises an empty ShipStore in the default World
+     */
+
+    public ShipStore() {
+        this(World.DEFAULT, 16);
+    }
+
+    /**
+     * Initialises an empty ShipStore with room for the given number of Starships before it needs to grow
+     * @param world the Starships' ids come from
+     * @param initialCapacity
+     */
+
+    public ShipStore(World world, int initialCapacity) {
+        this(world, ShipStats.STANDARD, initialCapacity);
+    }
+
+    /**
+     * Initialises an empty ShipStore for Starships of the given class
+     * @param world the Starships' ids come from
+     * @param stats of the Starships' class
+     * @param initialCapacity
+     */
+
+    public ShipStore(World world, ShipStats stats, int initialCapacity) {
+        this.world = Objects.requireNonNull(world);
+        this.stats = Objects.requireNonNull(stats);
+        int capacity = Math.max(initialCapacity, 1);
+        id = new int[capacity];
+        vitals = new long[capacity];
+        sector = new int[capacity];
+        skipTurns = new int[capacity];
+        dockedBase = new int[capacity];
+        fleet = new int[capacity];
+        destination = new int[capacity];
+        courseTurns = new int[capacity];
+        handles = new Starship[capacity];
+        totals = new SectorTotal[capacity];
+        live = new int[capacity];
+    }
+
+    /**
+     * Creates a store directly from columns of Starship state, one entry per ship. The arrays become the store's own,
+     * so they must not be used by the caller afterwards. No ship is docked or has a course; set them with setDockedBase()
+     * and setCourse()
+     * @param world
+     * @param stats
+     * @param id
+     * @param health
+     * @param crew
+     * @param sector
+     * @param skipTurns
+     * @param fleet
+     * @return store
+     * @see WorldSnapshot#load(java.nio.file.Path)
+     */
+
+    static ShipStore restore(World world, ShipStats stats, int[] id, int[] health, int[] crew, int[] sector, int[] skipTurns, int[] fleet) {
+        int count = id.length;
+        ShipStore store = new ShipStore(world, stats, 1);
+        store.size = count;
+        store.id = id;
+        store.vitals = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            store.vitals[slot] = pack(health[slot], crew[slot]);
+        }
+        store.sector = sector;
+        store.skipTurns = skipTurns;
+        store.fleet = fleet;
+        store.dockedBase = new int[count];
+        Arrays.fill(store.dockedBase, NO_BASE);
+        store.destination = new int[count];
+        Arrays.fill(store.destination, NO_COURSE);
+        store.courseTurns = new int[count];
+        store.handles = new Starship[count];
+        store.totals = new SectorTotal[count];
+        store.live = new int[count];
+
+        for (int slot = 0; slot < count; slot++) {
+            Starship ship = Starship.handle(store, slot);
+            store.handles[slot] = ship;
+            if (health[slot] > 0) store.sectorIndex.add(ship, sector[slot]);
+        }
+        store.recount();
+        return store;
+    }
+
+    /**
+     * Adds a new Starship at full health and crew in the given sector, binding the handle to its slot
+     * @param ship handle for the new slot
+     * @param shipId
+     * @param startingSector
+     */
+
+    void add(Starship ship, int shipId, int startingSector) {
+        ensureCapacity(size + 1);
+        int slot = size++;
+        id[slot] = shipId;
+        vitals[slot] = pack(stats.maxHealth(), stats.maxCrew());
+        sector[slot] = startingSector;
+        skipTurns[slot] = 0;
+        dockedBase[slot] = NO_BASE;
+        fleet[slot] = FleetRegistry.NO_FLEET;
+        destination[slot] = NO_COURSE;
+        courseTurns[slot] = 0;
+        handles[slot] = ship;
+        ship.rebind(this, slot);
+        sectorIndex.add(ship, startingSector);
+        totals[slot] = totalFor(startingSector);
+        count(slot, 1);
+        list(slot);
+        TargetSelector selector = world.getTargetSelector();
+        if (selector != null) selector.add(ship);
+    }
+
+    /**
+     * Moves a Starship out of the store it currently lives in and into this one, keeping its id and state
+     * @param ship
+     */
+
+    void adopt(Starship ship) {
+        ShipStore from = ship.getStore();
+        if (from == this) return;
+
+        int oldSlot = ship.getSlot();
+        ensureCapacity(size + 1);
+        int slot = size++;
+        id[slot] = from.id[oldSlot];
+        vitals[slot] = pack(Math.min(from.health(oldSlot), stats.maxHealth()), Math.min(from.crew(oldSlot), stats.maxCrew()));
+        sector[slot] = from.sector[oldSlot];
+        skipTurns[slot] = from.skipTurns[oldSlot];
+        dockedBase[slot] = baseIndex(from.dockedBase(oldSlot));
+        fleet[slot] = from.world == world ? from.fleet[oldSlot] : world.getFleetRegistry().register(from.fleetName(oldSlot));
+        destination[slot] = from.destination[oldSlot];
+        courseTurns[slot] = from.courseTurns[oldSlot];
+        handles[slot] = ship;
+
+        from.remove(oldSlot);
+        ship.rebind(this, slot);
+        if (health(slot) > 0) sectorIndex.add(ship, sector[slot]);
+        totals[slot] = totalFor(sector[slot]);
+        count(slot, 1);
+        list(slot);
+        TargetSelector selector = world.getTargetSelector();
+        if (selector != null) selector.add(ship);
+    }
+
+    /**
+     * Adds a Starship handed over from another store, keeping the id, health and crew it had there
+     * @param shipId
+     * @param startingSector
+     * @param health
+     * @param crew
+     * @param fleetId
+     * @return ship
+     * @see ShardWorker
+     */
+
+    Starship receive(int shipId, int startingSector, int health, int crew, int fleetId) {
+        Starship ship = Starship.handle(this, size);
+        add(ship, shipId, startingSector);
+        int slot = ship.getSlot();
+        setFleet(slot, fleetId);
+        setCrew(slot, Math.min(crew, stats.maxCrew()));
+        setHealth(slot, Math.min(health, stats.maxHealth()));
+        return ship;
+    }
+
+    /**
+     * Takes an undocked Starship out of the store for good, after its state has been handed over elsewhere.
+     * The handle must not be used afterwards
+     * @param ship
+     * @throws IllegalStateException if the Starship is docked
+     * @see ShardWorker
+     */
+
+    void release(Starship ship) {
+        if (ship.getStore() != this) throw new IllegalArgumentException("the Starship is not in this store");
+        if (ship.isDocked()) throw new IllegalStateException("a docked Starship cannot leave its store");
+
+        remove(ship.getSlot());
+        ship.rebind(null, NO_BASE);
+    }
+
+    /**
+     * Removes a slot by moving the last Starship into it, so the arrays stay dense
+     * @param slot
+     */
+
+    private void remove(int slot) {
+        sectorIndex.discard(handles[slot], sector[slot]);
+        TargetSelector selector = world.getTargetSelector();
+        if (selector != null) selector.remove(handles[slot]);
+        count(slot, -1);
+        // moving the last slot breaks the slot order of the live list, so it is rebuilt before it is next walked
+        relist = true;
+
+        int last = --size;
+        if (slot != last) {
+            id[slot] = id[last];
+            vitals[slot] = vitals[last];
+            sector[slot] = sector[last];
+            skipTurns[slot] = skipTurns[last];
+            dockedBase[slot] = dockedBase[last];
+            fleet[slot] = fleet[last];
+            destination[slot] = destination[last];
+            courseTurns[slot] = courseTurns[last];
+            handles[slot] = handles[last];
+            totals[slot] = totals[last];
+            handles[slot].rebind(this, slot);
+        }
+        handles[last] = null;
+        totals[last] = null;
+    }
+
+    /**
+     * Adds a Starship's health and attack strength to the store's totals, or takes them away
+     * @param slot
+     * @param sign 1 to add them, -1 to take them away
+     */
+
+    private void count(int slot, int sign) {
+        long packed = vitals[slot];
+        totalHealth += (long) sign * healthOf(packed);
+        totals[slot].strength += (long) sign * strength(packed);
+        if (healthOf(packed) > 0) liveCount += sign;
+    }
+
+    /**
+     * Works out all of the store's totals again from the columns
+     */
+
+    private void recount() {
+        liveCount = 0;
+        totalHealth = 0;
+        for (int i = 0; i < allTotals.size(); i++) {
+            allTotals.get(i).strength = 0;
+        }
+        for (int slot = 0; slot < size; slot++) {
+            totals[slot] = totalFor(sector[slot]);
+            count(slot, 1);
+        }
+        relist = true;
+    }
+
+    /**
+     * Gets the attack strength a Starship adds to its sector's total
+     * @param packed health and crew
+     * @return atkStrength, or 0 if the Starship is destroyed
+     */
+
+    private int strength(long packed) {
+        return healthOf(packed) > 0 ? stats.atkStrength(crewOf(packed)) : 0;
+    }
+
+    private SectorTotal totalFor(int sector) {
+        SectorTotal total = sectorTotals.get(sector);
+        if (total == null) {
+            total = new SectorTotal();
+            sectorTotals.put(sector, total);
+            allTotals.add(total);
+        }
+        return total;
+    }
+
+    /**
+     * Adds the newest slot to the end of the live list if it holds a live Starship
+     * @param slot
+     */
+
+    private void list(int slot) {
+        if (!relist && health(slot) > 0) live[listed++] = slot;
+    }
+
+    /**
+     * Gets the live list ready to walk: rebuilds it if slots have moved, and drops the destroyed Starships from it once they
+     * make up half of it. The list stays in slot order, so ships are visited in the same order as a walk over every slot
+     */
+
+    private void compact() {
+        if (relist) {
+            listed = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (health(slot) > 0) live[listed++] = slot;
+            }
+            relist = false;
+            return;
+        }
+        if ((listed - liveCount) * 2 <= listed) return;
+
+        int kept = 0;
+        for (int k = 0; k < listed; k++) {
+            int slot = live[k];
+            if (health(slot) > 0) live[kept++] = slot;
+        }
+        listed = kept;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= id.length) return;
+
+        int capacity = Math.max(required, id.length * 2);
+        id = Arrays.copyOf(id, capacity);
+        vitals = Arrays.copyOf(vitals, capacity);
+        sector = Arrays.copyOf(sector, capacity);
+        skipTurns = Arrays.copyOf(skipTurns, capacity);
+        dockedBase = Arrays.copyOf(dockedBase, capacity);
+        fleet = Arrays.copyOf(fleet, capacity);
+        destination = Arrays.copyOf(destination, capacity);
+        courseTurns = Arrays.copyOf(courseTurns, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+        live = Arrays.copyOf(live, capacity);
+    }
+
+    /**
+     * Gets the World the store belongs to
+     * @return world
+     */
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the class of the Starships in the store
+     * @return stats
+     */
+
+    public ShipStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the number of Starships in the store
+     * @return size
+     */
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the Starship handle for a slot
+     * @param slot
+     * @return ship
+     */
+
+    public Starship ship(int slot) {
+        Objects.checkIndex(slot, size);
+        return handles[slot];
+    }
+
+    /**
+     * Gets a read-only live view of every Starship in the store
+     * @return ships
+     */
+
+    public List<Starship> ships() {
+        return new AbstractList<>() {
+            @Override
+            public Starship get(int index) {
+                return ship(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Gets the index of the live Starships in the store, plus any Starbases registered with it
+     * @return sectorIndex
+     */
+
+    public SectorIndex getSectorIndex() {
+        return sectorIndex;
+    }
+
+    /**
+     * Gets the number of Starships in the store that are not destroyed
+     * @return liveCount
+     */
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the total health of the Starships in the store
+     * @return totalHealth
+     */
+
+    public long getTotalHealth() {
+        return totalHealth;
+    }
+
+    /**
+     * Gets the total attack strength of the live Starships in a sector, docked or not
+     * @param sector
+     * @return strength
+     */
+
+    public long getStrength(int sector) {
+        SectorTotal total = sectorTotals.get(sector);
+        return total == null ? 0 : total.strength;
+    }
+
+    /**
+     * Gets the number of slots in the live list, which may still hold destroyed Starships until it is next compacted
+     * @return listed
+     */
+
+    int listed() {
+        return relist ? size : listed;
+    }
+
+    /**
+     * Moves every live, undocked Starship that is not under repair into the specified sector
+     * @param newSector
+     * @return number of Starships that changed sector
+     * @see Starship#moveSector(int)
+     */
+
+    int mobilise(int newSector) {
+        compact();
+        SectorTotal total = totalFor(newSector);
+        int moved = 0;
+        for (int k = 0; k < listed; k++) {
+            int i = live[k];
+            if (health(i) <= 0 || dockedBase[i] != NO_BASE || skipTurns[i] > 0 || sector[i] == newSector) continue;
+
+            setSector(i, newSector, total);
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Sets every live, undocked Starship that is not under repair on course for the specified sector, replacing any course
+     * it already had. The ships then travel along the graph's quickest route as turns pass
+     * @param newSector
+     * @return number of Starships set on a course
+     * @see #advanceCourses(SectorGraph)
+     */
+
+    int setCourse(int newSector) {
+        compact();
+        int set = 0;
+        for (int k = 0; k < listed; k++) {
+            int i = live[k];
+            if (health(i) <= 0 || dockedBase[i] != NO_BASE || skipTurns[i] > 0) continue;
+
+            courseTurns[i] = 0;
+            if (sector[i] == newSector) {
+                destination[i] = NO_COURSE;
+            } else {
+                destination[i] = newSector;
+                set++;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Moves every travelling Starship one turn further along its route. A ship moves into the next sector of its route
+     * once it has spent that hop's travel time on it; docked ships and ships under repair wait, and a ship whose
+     * destination cannot be reached from its sector gives up its course
+     * @param graph
+     * @return number of Starships that changed sector
+     */
+
+    int advanceCourses(SectorGraph graph) {
+        compact();
+        int moved = 0;
+        for (int k = 0; k < listed; k++) {
+            int i = live[k];
+            int to = destination[i];
+            if (to == NO_COURSE || dockedBase[i] != NO_BASE || skipTurns[i] > 0 || health(i) <= 0) continue;
+
+            int from = sector[i];
+            int next = graph.nextHop(from, to);
+            if (next == SectorGraph.NO_ROUTE || next == from) {
+                destination[i] = NO_COURSE;
+                courseTurns[i] = 0;
+                continue;
+            }
+
+            if (++courseTurns[i] < graph.hopTurns(from, next)) continue;
+
+            courseTurns[i] = 0;
+            if (next == to) destination[i] = NO_COURSE;
+            setSector(i, next);
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Every live, undocked Starship in the target's sector that is not under repair attacks the target, in slot order,
+     * which is the order of the Fleet's ships
+     * @param target
+     * @param metrics to count the hits in, or null
+     * @see Starship#attack(Targetable)
+     */
+
+    void attack(Targetable target, FleetMetrics metrics) {
+        int targetSector = target.getSector();
+        int targetFleet = target.getFleetId();
+        CombatJournal journal = world.getJournal();
+
+        List<Targetable> inSector = sectorIndex.bucket(targetSector);
+        int[] slots;
+        int attackers;
+        if (world.isConcurrentCombat()) {
+            // other threads may be attacking with this store too, and removing its destroyed ships from the bucket
+            synchronized (sectorIndex) {
+                slots = new int[inSector.size()];
+                attackers = shipSlots(inSector, slots);
+            }
+        } else {
+            if (scratch.length < inSector.size()) scratch = new int[Math.max(inSector.size(), scratch.length * 2)];
+            slots = scratch;
+            attackers = shipSlots(inSector, slots);
+        }
+        // the sector index does not keep its order as ships come and go, so the ships fire in fleet order
+        Arrays.sort(slots, 0, attackers);
+
+        int hits = 0;
+        long totalDamage = 0;
+        for (int k = 0; k < attackers; k++) {
+            int i = slots[k];
+            if (dockedBase[i] != NO_BASE || skipTurns[i] > 0) continue;
+            // in concurrent combat the ship may have been destroyed since the bucket was read
+            if (healthOf(vitals[i]) <= 0) continue;
+            if (fleet[i] == targetFleet) continue;
+
+            int damage = Math.max(atkStrength(i) - target.getCurrentDefence(), 5);
+            target.takeDamage(damage);
+            if (journal != null) journal.recordHit(world.getTurn(), id[i], target, damage);
+            hits++;
+            totalDamage += damage;
+        }
+        if (metrics != null) metrics.attacked(hits, totalDamage);
+    }
+
+    /**
+     * Writes the slots of the Starships in a sector bucket into the array
+     * @return number of slots written
+     */
+
+    private static int shipSlots(List<Targetable> inSector, int[] slots) {
+        int count = 0;
+        for (int j = 0; j < inSector.size(); j++) {
+            if (inSector.get(j) instanceof Starship ship) slots[count++] = ship.getSlot();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the slots of the live, undocked Starships in the target's sector, without changing any state
+     * @param target
+     * @return slots
+     * @see BattleEngine#tick()
+     */
+
+    int[] attackersOf(Targetable target) {
+        List<Targetable> inSector = sectorIndex.bucket(target.getSector());
+        int[] slots = new int[inSector.size()];
+        int attackers = 0;
+        for (Targetable candidate : inSector) {
+            if (candidate instanceof Starship ship && dockedBase[ship.getSlot()] == NO_BASE) slots[attackers++] = ship.getSlot();
+        }
+        Arrays.sort(slots, 0, attackers);
+        return Arrays.copyOf(slots, attackers);
+    }
+
+    /**
+     * Gets the attack strengths of the Starships that would attack a target in the given sector and fleet, in the order
+     * attack() would use them, without changing any state
+     * @param targetSector
+     * @param targetFleet
+     * @return attack strengths
+     * @see FleetActor#attack(FleetActor, Targetable)
+     */
+
+    int[] volley(int targetSector, int targetFleet) {
+        List<Targetable> inSector = sectorIndex.bucket(targetSector);
+        int[] slots = new int[inSector.size()];
+        int attackers = 0;
+        for (int j = 0; j < inSector.size(); j++) {
+            if (!(inSector.get(j) instanceof Starship ship)) continue;
+
+            int i = ship.getSlot();
+            if (dockedBase[i] != NO_BASE || skipTurns[i] > 0 || fleet[i] == targetFleet) continue;
+            slots[attackers++] = i;
+        }
+        Arrays.sort(slots, 0, attackers);
+        int[] strengths = new int[attackers];
+        for (int k = 0; k < attackers; k++) {
+            strengths[k] = atkStrength(slots[k]);
+        }
+        return strengths;
+    }
+
+    int atkStrength(int slot) {
+        return stats.atkStrength(crew(slot));
+    }
+
+    int defStrength(int slot) {
+        long packed = vitals[slot];
+        return stats.defStrength(healthOf(packed), crewOf(packed));
+    }
+
+    /**
+     * Damages a Starship's health and crew. In concurrent combat the two are updated together with a compare-and-set,
+     * so any number of threads can damage the same ship without losing a hit
+     * @param slot
+     * @param damage
+     * @see World#setConcurrentCombat(boolean)
+     */
+
+    void takeDamage(int slot, int damage) {
+        long before;
+        long after;
+        if (world.isConcurrentCombat()) {
+            do {
+                before = (long) VITALS.getVolatile(vitals, slot);
+                after = damaged(stats, before, damage);
+            } while (!VITALS.compareAndSet(vitals, slot, before, after));
+        } else {
+            before = vitals[slot];
+            after = damaged(stats, before, damage);
+            vitals[slot] = after;
+        }
+        vitalsChanged(slot, before, after);
+    }
+
+    /**
+     * Works out a Starship's health and crew after taking damage
+     * @param stats of the Starship's class
+     * @param packed health and crew before the damage
+     * @param damage
+     * @return health and crew after the damage
+     */
+
+    static long damaged(ShipStats stats, long packed, int damage) {
+        int crew = crewOf(packed);
+        int crewLost = (int) Math.ceil(((double) damage / stats.maxHealth()) * crew);
+        return pack(Math.max(healthOf(packed) - damage, 0), Math.max(crew - crewLost, 1));
+    }
+
+    /**
+     * Takes a Starship out of the sector index when it is destroyed and back in if it is repaired, and passes any change
+     * in a docked Starship's defence on to the Starbase it is docked with
+     * @param slot
+     * @param before health and crew before the change
+     * @param after health and crew after the change
+     * @see Starbase#dockedDefenceChanged(int)
+     */
+
+    private void vitalsChanged(int slot, long before, long after) {
+        long healthDelta = healthOf(after) - healthOf(before);
+        long strengthDelta = strength(after) - strength(before);
+        if (world.isConcurrentCombat()) {
+            if (healthDelta != 0) TOTAL_HEALTH.getAndAdd(this, healthDelta);
+            if (strengthDelta != 0) STRENGTH.getAndAdd(totals[slot], strengthDelta);
+        } else {
+            totalHealth += healthDelta;
+            totals[slot].strength += strengthDelta;
+        }
+
+        boolean wasDestroyed = healthOf(before) <= 0;
+        boolean isDestroyed = healthOf(after) <= 0;
+        if (wasDestroyed != isDestroyed) {
+            // rare, and may race with another ship of the store being destroyed in concurrent combat
+            synchronized (sectorIndex) {
+                if (isDestroyed) {
+                    sectorIndex.remove(handles[slot], sector[slot]);
+                    liveCount--;
+                } else {
+                    sectorIndex.add(handles[slot], sector[slot]);
+                    liveCount++;
+                    relistRepaired(slot);
+                }
+            }
+            FleetMetrics metrics = world.fleetMetrics(fleet[slot]);
+            if (metrics != null && isDestroyed) metrics.shipDestroyed();
+        }
+        targetChanged(slot);
+
+        if (dockedBase[slot] == NO_BASE) return;
+
+        int delta = stats.defStrength(healthOf(after), crewOf(after)) - stats.defStrength(healthOf(before), crewOf(before));
+        if (delta != 0) bases.get(dockedBase[slot]).dockedDefenceChanged(delta);
+    }
+
+    /**
+     * Puts a repaired Starship back into the live list in slot order, if it was compacted out while destroyed
+     * @param slot
+     */
+
+    private void relistRepaired(int slot) {
+        if (relist) return;
+
+        int position = Arrays.binarySearch(live, 0, listed, slot);
+        if (position >= 0) return;
+
+        position = -position - 1;
+        System.arraycopy(live, position, live, position + 1, listed - position);
+        live[position] = slot;
+        listed++;
+    }
+
+    /**
+     * Tells the World's TargetSelector, if it has one, that a Starship's health, sector or fleet may have changed
+     * @param slot
+     */
+
+    private void targetChanged(int slot) {
+        TargetSelector selector = world.getTargetSelector();
+        if (selector != null) selector.update(handles[slot]);
+    }
+
+    static long pack(int health, int crew) {
+        return ((long) health << 32) | (crew & 0xFFFFFFFFL);
+    }
+
+    static int healthOf(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    static int crewOf(long packed) {
+        return (int) packed;
+    }
+
+    int id(int slot) {
+        return id[slot];
+    }
+
+    int health(int slot) {
+        return healthOf(vitals[slot]);
+    }
+
+    /**
+     * Sets the health of a Starship, taking it out of the sector index when it is destroyed and back in if it is repaired
+     * @param slot
+     * @param value
+     */
+
+    void setHealth(int slot, int value) {
+        long before = vitals[slot];
+        vitals[slot] = pack(value, crewOf(before));
+        vitalsChanged(slot, before, vitals[slot]);
+    }
+
+    int crew(int slot) {
+        return crewOf(vitals[slot]);
+    }
+
+    void setCrew(int slot, int value) {
+        long before = vitals[slot];
+        vitals[slot] = pack(healthOf(before), value);
+        vitalsChanged(slot, before, vitals[slot]);
+    }
+
+    /**
+     * Sets the health and crew of a Starship together, as if it had taken damage
+     * @param slot
+     * @param health
+     * @param crew
+     * @see Siege
+     */
+
+    void setVitals(int slot, int health, int crew) {
+        long before = vitals[slot];
+        vitals[slot] = pack(health, crew);
+        vitalsChanged(slot, before, vitals[slot]);
+    }
+
+    int sector(int slot) {
+        return sector[slot];
+    }
+
+    void setSector(int slot, int value) {
+        if (sector[slot] != value) setSector(slot, value, totalFor(value));
+    }
+
+    /**
+     * Moves a Starship to a new sector whose total the caller has already looked up
+     * @param slot
+     * @param value
+     * @param total of the new sector
+     */
+
+    private void setSector(int slot, int value, SectorTotal total) {
+        sectorIndex.move(handles[slot], sector[slot], value);
+        sector[slot] = value;
+        int strength = strength(vitals[slot]);
+        totals[slot].strength -= strength;
+        totals[slot] = total;
+        total.strength += strength;
+        targetChanged(slot);
+    }
+
+    int destination(int slot) {
+        return destination[slot];
+    }
+
+    int courseTurns(int slot) {
+        return courseTurns[slot];
+    }
+
+    void setCourse(int slot, int to, int turns) {
+        destination[slot] = to;
+        courseTurns[slot] = turns;
+    }
+
+    int skipTurns(int slot) {
+        return skipTurns[slot];
+    }
+
+    void setSkipTurns(int slot, int value) {
+        skipTurns[slot] = value;
+    }
+
+    boolean isDocked(int slot) {
+        return dockedBase[slot] != NO_BASE;
+    }
+
+    Starbase dockedBase(int slot) {
+        int index = dockedBase[slot];
+        return index == NO_BASE ? null : bases.get(index);
+    }
+
+    void setDockedBase(int slot, Starbase base) {
+        dockedBase[slot] = baseIndex(base);
+    }
+
+    int fleet(int slot) {
+        return fleet[slot];
+    }
+
+    void setFleet(int slot, int fleetId) {
+        fleet[slot] = fleetId;
+        targetChanged(slot);
+    }
+
+    String fleetName(int slot) {
+        return world.getFleetRegistry().nameOf(fleet[slot]);
+    }
+
+    /**
+     * Gets the index of a Starbase in the store's base table, adding it if it is not there yet
+     * @param base
+     * @return index or NO_BASE for null
+     */
+
+    private int baseIndex(Starbase base) {
+        if (base == null) return NO_BASE;
+
+        int index = bases.indexOf(base);
+        if (index < 0) {
+            bases.add(base);
+            index = bases.size() - 1;
+        }
+        return index;
+    }
+
+    /**
+     * Records the state of every Starship in the store and of its sector index
+     * @return checkpoint
+     * @see #reset(Checkpoint)
+     */
+
+    Checkpoint checkpoint() {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.size = size;
+        checkpoint.vitals = Arrays.copyOf(vitals, size);
+        checkpoint.sector = Arrays.copyOf(sector, size);
+        checkpoint.skipTurns = Arrays.copyOf(skipTurns, size);
+        checkpoint.dockedBase = Arrays.copyOf(dockedBase, size);
+        checkpoint.fleet = Arrays.copyOf(fleet, size);
+        checkpoint.destination = Arrays.copyOf(destination, size);
+        checkpoint.courseTurns = Arrays.copyOf(courseTurns, size);
+        checkpoint.index = sectorIndex.checkpoint();
+        return checkpoint;
+    }
+
+    /**
+     * Copies the recorded state back over every Starship in the store, in place
+     * @param checkpoint
+     * @throws IllegalStateException if Starships have been added to or taken from the store since the checkpoint
+     */
+
+    void reset(Checkpoint checkpoint) {
+        if (size != checkpoint.size) throw new IllegalStateException("store had " + checkpoint.size + " ships but now has " + size);
+
+        System.arraycopy(checkpoint.vitals, 0, vitals, 0, size);
+        System.arraycopy(checkpoint.sector, 0, sector, 0, size);
+        System.arraycopy(checkpoint.skipTurns, 0, skipTurns, 0, size);
+        System.arraycopy(checkpoint.dockedBase, 0, dockedBase, 0, size);
+        System.arraycopy(checkpoint.fleet, 0, fleet, 0, size);
+        System.arraycopy(checkpoint.destination, 0, destination, 0, size);
+        System.arraycopy(checkpoint.courseTurns, 0, courseTurns, 0, size);
+        sectorIndex.reset(checkpoint.index);
+        recount();
+    }
+}
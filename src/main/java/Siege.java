@@ -0,0 +1,219 @@
+import java.util.Arrays;
+
+/**
+ * This is the Siege class - it works out a Fleet's repeated attack on one target, the
+ * 'while (!target.isDestroyed()) fleet.attackTarget(target)' loop, without playing every round.
+ * <p>
+ * Nothing but the target changes while the loop runs: no turns pass, so no repair finishes and no ship docks or moves,
+ * and the same attackers fire in the same order every round. Each hit deals max(attack - defence, 5), and the target's
+ * defence only depends on its health and crew. A Starship target loses at least one crew member a hit until it is down
+ * to its last one, so after at most maxCrew hits its defence, like a Starbase's, only depends on its health, and it
+ * never goes up as the health goes down. While the defence stays the same every round deals the same damage, as it does
+ * at any defence high enough that every attacker deals the least damage, so all the whole rounds before the health
+ * drops below the lowest health with that defence are played in one step. The round that crosses it, and any round in
+ * which the crew still changes, is played hit by hit. Each such round lowers the defence at least once, so there are at
+ * most as many of them as defence values plus the target's crew.
+ * <p>
+ * With a CombatJournal or FleetMetrics to record every hit, in concurrent combat or against other kinds of target the
+ * rounds are simply played one by one. Either way the outcome is the same as the loop's
+ * @author Oscar Allen
+ * @see Fleet#fastForward(Targetable, int)
+ */
+public final class Siege {
+
+    /**
+     * The outcome of a siege
+     * @param rounds played
+     * @param health of the target afterwards
+     * @param crewLost by a Starship target
+     * @param destroyed whether the target is destroyed
+     */
+
+    public record Result(int rounds, int health, int crewLost, boolean destroyed) {
+    }
+
+    private Siege() {
+    }
+
+    /**
+     * Has the Fleet attack the target until it is destroyed or maxRounds rounds have been played. The target and the
+     * World end up exactly as after
+     * 'for (rounds = 0; rounds < maxRounds && !target.isDestroyed(); rounds++) fleet.attackTarget(target)'
+     * @param fleet
+     * @param target
+     * @param maxRounds
+     * @return result
+     */
+
+    static Result fastForward(Fleet fleet, Targetable target, int maxRounds) {
+        if (maxRounds < 0) throw new IllegalArgumentException("maxRounds must not be negative: " + maxRounds);
+
+        World world = fleet.getStore().getWorld();
+        world.checkSameWorld(target);
+        boolean recorded = world.getJournal() != null || world.fleetMetrics(fleet.getFleetId()) != null;
+        if (recorded || world.isConcurrentCombat() || !(target instanceof Starbase || target instanceof Starship)) {
+            return playOut(fleet, target, maxRounds);
+        }
+
+        int crewBefore = target instanceof Starship ship ? ship.getCurrentCrew() : 0;
+        if (target.isDestroyed()) return new Result(0, target.getCurrentHealth(), 0, true);
+
+        int[] strengths = fleet.getFleetId() == target.getFleetId()
+                ? new int[0]
+                : fleet.getStore().volley(target.getSector(), target.getFleetId());
+        if (strengths.length == 0) return new Result(maxRounds, target.getCurrentHealth(), 0, false);
+
+        Besieged besieged = new Besieged(target);
+        int rounds = 0;
+        while (rounds < maxRounds && besieged.health > 0) {
+            int batched = besieged.crewSettled() ? besieged.wholeRounds(strengths, maxRounds - rounds) : 0;
+            if (batched > 0) {
+                rounds += batched;
+            } else {
+                besieged.playRound(strengths);
+                rounds++;
+            }
+        }
+        besieged.apply();
+        return new Result(rounds, besieged.health, crewBefore - besieged.crew, besieged.health <= 0);
+    }
+
+    /**
+     * Plays the rounds one by one
+     */
+
+    private static Result playOut(Fleet fleet, Targetable target, int maxRounds) {
+        int crewBefore = target instanceof Starship ship ? ship.getCurrentCrew() : 0;
+        int rounds = 0;
+        while (rounds < maxRounds && !target.isDestroyed()) {
+            fleet.attackTarget(target);
+            rounds++;
+        }
+        int crewLost = target instanceof Starship ship ? crewBefore - ship.getCurrentCrew() : 0;
+        return new Result(rounds, target.getCurrentHealth(), crewLost, target.isDestroyed());
+    }
+
+    /**
+     * The health and crew of the target as the siege goes on, written back to it at the end
+     */
+
+    private static final class Besieged {
+        private final Starbase base;
+        private final Starship ship;
+        private final ShipStats stats;
+        private int health;
+        private int crew;
+
+        private int[] distinctStrengths;
+        private int[] counts;
+
+        private Besieged(Targetable target) {
+            base = target instanceof Starbase starbase ? starbase : null;
+            ship = target instanceof Starship starship ? starship : null;
+            stats = ship == null ? null : ship.getStore().getStats();
+            health = target.getCurrentHealth();
+            crew = ship == null ? 0 : ship.getCurrentCrew();
+        }
+
+        private int defence(int health) {
+            return base != null ? base.defenceAt(health) : stats.defStrength(health, crew);
+        }
+
+        private void hit(int damage) {
+            if (base != null) {
+                health = Math.max(health - damage, 0);
+            } else {
+                long packed = ShipStore.damaged(stats, ShipStore.pack(health, crew), damage);
+                health = ShipStore.healthOf(packed);
+                crew = ShipStore.crewOf(packed);
+            }
+        }
+
+        /**
+         * Checks that a hit cannot change the crew any more, so the defence only depends on the health
+         */
+
+        private boolean crewSettled() {
+            return base != null || crew <= 1;
+        }
+
+        private void playRound(int[] strengths) {
+            for (int strength : strengths) {
+                hit(Math.max(strength - defence(health), 5));
+            }
+        }
+
+        /**
+         * Plays, in one step, every whole round that leaves the health no lower than the lowest health with the current
+         * defence, so every hit in them sees that defence
+         * @param strengths of the attackers
+         * @param maxRounds
+         * @return rounds played
+         */
+
+        private int wholeRounds(int[] strengths, int maxRounds) {
+            int defence = effectiveDefence(health, strengths);
+            long damage = roundDamage(strengths, defence);
+            long rounds = Math.min((health - lowestHealthWith(defence, strengths)) / damage, maxRounds);
+            health -= (int) (rounds * damage);
+            return (int) rounds;
+        }
+
+        /**
+         * Gets the defence at the given health, capped where even the strongest attacker only deals the least damage,
+         * since any defence above that deals the same
+         */
+
+        private int effectiveDefence(int health, int[] strengths) {
+            roundDamage(strengths, 0);
+            return (int) Math.min(defence(health), (long) distinctStrengths[distinctStrengths.length - 1] - 5);
+        }
+
+        private long roundDamage(int[] strengths, int defence) {
+            if (distinctStrengths == null) {
+                int[] sorted = strengths.clone();
+                Arrays.sort(sorted);
+                distinctStrengths = new int[sorted.length];
+                counts = new int[sorted.length];
+                int distinct = 0;
+                for (int i = 0; i < sorted.length; i++) {
+                    if (distinct == 0 || sorted[i] != distinctStrengths[distinct - 1]) distinctStrengths[distinct++] = sorted[i];
+                    counts[distinct - 1]++;
+                }
+                distinctStrengths = Arrays.copyOf(distinctStrengths, distinct);
+                counts = Arrays.copyOf(counts, distinct);
+            }
+
+            long damage = 0;
+            for (int i = 0; i < distinctStrengths.length; i++) {
+                damage += (long) counts[i] * Math.max(distinctStrengths[i] - defence, 5);
+            }
+            return damage;
+        }
+
+        /**
+         * Finds the lowest health, down to 1, at which the target still has the given effective defence, which it has
+         * at the current health
+         */
+
+        private int lowestHealthWith(int defence, int[] strengths) {
+            int low = 1;
+            int high = health;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (effectiveDefence(middle, strengths) == defence) high = middle;
+                else low = middle + 1;
+            }
+            return low;
+        }
+
+        private void apply() {
+            if (base != null) {
+                int damage = base.getCurrentHealth() - health;
+                if (damage > 0) base.takeDamage(damage);
+            } else {
+                ship.getStore().setVitals(ship.getSlot(), health, crew);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+/**
+ * This is the SimulationReport class - it aggregates the outcomes of many simulated sieges
+ * @author Oscar Allen
+ * @see BattleSimulator
+ */
+public class SimulationReport {
+    private long runs;
+    private long wins;
+    private long totalRounds;
+    private long totalSurvivors;
+    private long[] roundsHistogram;
+    private long[] survivorsHistogram;
+
+    /**
+     * Initialises an empty report
+     * @param maxRounds the most rounds a run can last
+     * @param maxSurvivors the most attacking ships that can survive a run
+     */
+
+    SimulationReport(int maxRounds, int maxSurvivors) {
+        this.roundsHistogram = new long[maxRounds + 1];
+        this.survivorsHistogram = new long[maxSurvivors + 1];
+    }
+
+    /**
+     * Records the outcome of one run
+     * @param won true if the Starbase was destroyed
+     * @param rounds the run lasted
+     * @param survivors attacking ships left alive
+     */
+
+    void record(boolean won, int rounds, int survivors) {
+        runs++;
+        if (won) wins++;
+        totalRounds += rounds;
+        totalSurvivors += survivors;
+        roundsHistogram[rounds]++;
+        survivorsHistogram[survivors]++;
+    }
+
+    /**
+     * Adds the outcomes recorded in another report of the same scenario to this one
+     * @param other
+     */
+
+    void merge(SimulationReport other) {
+        runs += other.runs;
+        wins += other.wins;
+        totalRounds += other.totalRounds;
+        totalSurvivors += other.totalSurvivors;
+        for (int i = 0; i < roundsHistogram.length; i++) roundsHistogram[i] += other.roundsHistogram[i];
+        for (int i = 0; i < survivorsHistogram.length; i++) survivorsHistogram[i] += other.survivorsHistogram[i];
+    }
+
+    /**
+     * Gets the number of runs
+     * @return runs
+     */
+
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * Gets the number of runs in which the Starbase was destroyed
+     * @return wins
+     */
+
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Gets the fraction of runs in which the Starbase was destroyed
+     * @return winRate
+     */
+
+    public double getWinRate() {
+        return runs == 0 ? 0 : (double) wins / runs;
+    }
+
+    /**
+     * Gets the mean number of rounds a run lasted
+     * @return meanRounds
+     */
+
+    public double getMeanRounds() {
+        return runs == 0 ? 0 : (double) totalRounds / runs;
+    }
+
+    /**
+     * Gets the mean number of attacking ships left alive at the end of a run
+     * @return meanSurvivors
+     */
+
+    public double getMeanSurvivors() {
+        return runs == 0 ? 0 : (double) totalSurvivors / runs;
+    }
+
+    /**
+     * Gets the number of runs that lasted each number of rounds, indexed by rounds
+     * @return roundsHistogram
+     */
+
+    public long[] getRoundsHistogram() {
+        return roundsHistogram.clone();
+    }
+
+    /**
+     * Gets the number of runs that ended with each number of surviving attackers, indexed by survivors
+     * @return survivorsHistogram
+     */
+
+    public long[] getSurvivorsHistogram() {
+        return survivorsHistogram.clone();
+    }
+
+    /**
+     * Gets the smallest number of rounds that at least the given fraction of runs finished within
+     * @param fraction between 0 and 1
+     * @return rounds
+     */
+
+    public int getRoundsPercentile(double fraction) {
+        long needed = (long) Math.ceil(fraction * runs);
+        long seen = 0;
+        for (int rounds = 0; rounds < roundsHistogram.length; rounds++) {
+            seen += roundsHistogram[rounds];
+            if (seen >= needed && seen > 0) return rounds;
+        }
+        return roundsHistogram.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationReport{" +
+                "runs=" + runs +
+                ", winRate=" + getWinRate() +
+                ", meanRounds=" + getMeanRounds() +
+                ", medianRounds=" + getRoundsPercentile(0.5) +
+                ", meanSurvivors=" + getMeanSurvivors() +
+                ", survivorsHistogram=" + Arrays.toString(survivorsHistogram) +
+                '}';
+    }
+}
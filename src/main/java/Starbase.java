@@ -1,6 +1,8 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 import java.util.SequencedCollection;
 
 /**
@@ -8,63 +10,260 @@ import java.util.SequencedCollection;
  * @author Oscar Allen
  */
 public class Starbase implements Targetable {
-    private static int idCounter;
+    private static final VarHandle CURRENT_HEALTH;
+    private static final VarHandle TOTAL_DOCKED_DEFENCE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CURRENT_HEALTH = lookup.findVarHandle(Starbase.class, "currentHealth", int.class);
+            TOTAL_DOCKED_DEFENCE = lookup.findVarHandle(Starbase.class, "totalDockedDefence", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     private int id;
+    private World world;
+
+    static final int MAX_DEF_STRENGTH = 20;
+    static final int MAX_HEALTH = 500;
 
-    private int maxDefStrength = 20;
-    private int maxHealth = 500;
+    private int maxDefStrength = MAX_DEF_STRENGTH;
+    private int maxHealth = MAX_HEALTH;
 
     private int currentHealth;
     private int currentDefStrength;
 
-    private String fleet;
+    private int fleetId = FleetRegistry.NO_FLEET;
     private int sector;
-    private List<Starship> dockedShips = new ArrayList<>();
+    private DockingBay dockedShips;
+    private int totalDockedDefence;
+    private SectorIndex sectorIndex;
 
     /**
-     * Initialises the Starbase
+     * The state of a Starbase at one moment
+     * @see #checkpoint()
+     */
+
+    static final class Checkpoint {
+        private int currentHealth;
+        private int fleetId;
+        private int totalDockedDefence;
+        private Starship[] dockedShips;
+    }
+
+    /**
+     * Initialises the Starbase in the default World with an unlimited docking bay
      * @param sector
      */
 
     public Starbase(int sector) {
+        this(World.DEFAULT, sector, DockingBay.UNLIMITED);
+    }
+
+    /**
+     * Initialises the Starbase in the default World with a docking bay that holds at most bayCapacity ships
+     * @param sector
+     * @param bayCapacity
+     */
+
+    public Starbase(int sector, int bayCapacity) {
+        this(World.DEFAULT, sector, bayCapacity);
+    }
+
+    /**
+     * Initialises the Starbase in the given World with a docking bay that holds at most bayCapacity ships
+     * @param world
+     * @param sector
+     * @param bayCapacity
+     */
+
+    public Starbase(World world, int sector, int bayCapacity) {
         this.sector = sector;
         this.currentHealth = maxHealth;
+        this.dockedShips = new DockingBay(bayCapacity);
 
-        this.id = ++idCounter;
+        this.world = world;
+        this.id = world.nextStarbaseId();
     }
 
     /**
-     * The dockShip() method checks that a ship is not docked before adding it to the dockedShips array
+     * Initialises a Starbase that already exists, keeping its id and health
+     * @param world
+     * @param id
+     * @param sector
+     * @param bayCapacity
+     * @param health
+     * @see WorldSnapshot#load(java.nio.file.Path)
+     */
+
+    Starbase(World world, int id, int sector, int bayCapacity, int health) {
+        this.sector = sector;
+        this.currentHealth = health;
+        this.dockedShips = new DockingBay(bayCapacity);
+
+        this.world = world;
+        this.id = id;
+    }
+
+    /**
+     * The dockShip() method docks a ship with the Starbase, subject to the usual docking rules and the bay capacity
      * @param ship
+     * @return true if the ship was docked
      * @see Starship#dockWithStarbase(Starbase) 
      */
 
-    public void dockShip(Starship ship) {
-        if (!dockedShips.contains(ship)) {
-            dockedShips.add(ship);
-        }
+    public boolean dockShip(Starship ship) {
+        if (dockedShips.contains(ship)) return false;
+
+        ship.dockWithStarbase(this);
+        return dockedShips.contains(ship);
     }
 
     /**
-     * The unDockShip() method removes a ship from the dockedShips array
+     * The unDockShip() method undocks a ship from the Starbase, provided it is docked here and not under repair
      * @param ship
      * @see Starship#unDockWithStarbase()
      */
 
     public void unDockShip(Starship ship) {
-        dockedShips.remove(ship);
+        if (dockedShips.contains(ship)) ship.unDockWithStarbase();
+    }
+
+    /**
+     * Adds a ship to the docking bay and its defence to the running total, leaving the ship's own record of where it is
+     * docked to the caller
+     * @param ship
+     * @return true if the ship was added
+     * @see Starship#dockWithStarbase(Starbase)
+     */
+
+    boolean addDocked(Starship ship) {
+        if (!dockedShips.add(ship)) return false;
+
+        totalDockedDefence += ship.getCurrentDefence();
+        targetChanged();
+        return true;
+    }
+
+    /**
+     * Takes a ship out of the docking bay and its defence out of the running total
+     * @param ship
+     * @see Starship#unDockWithStarbase()
+     */
+
+    void removeDocked(Starship ship) {
+        if (dockedShips.remove(ship)) {
+            totalDockedDefence -= ship.getCurrentDefence();
+            targetChanged();
+        }
+    }
+
+    /**
+     * Docks each of the given ships with the Starbase, subject to the usual docking rules and the bay capacity
+     * @param ships
+     * @return number of ships docked
+     * @see Starship#dockWithStarbase(Starbase)
+     */
+
+    public int dockAll(Collection<Starship> ships) {
+        int docked = 0;
+        for (Starship ship : ships) {
+            if (dockedShips.isFull()) break;
+            if (dockedShips.contains(ship)) continue;
+
+            ship.dockWithStarbase(this);
+            if (dockedShips.contains(ship)) docked++;
+        }
+        return docked;
     }
 
     /**
-     * Returns a list of Starships docked in Starbase
+     * Undocks every docked ship that is not under repair
+     * @return number of ships undocked
+     * @see Starship#unDockWithStarbase()
+     */
+
+    public int undockAll() {
+        int undocked = 0;
+        for (Starship ship : new ArrayList<>(dockedShips.getShips())) {
+            ship.unDockWithStarbase();
+            if (!dockedShips.contains(ship)) undocked++;
+        }
+        return undocked;
+    }
+
+    /**
+     * Checks if a ship is docked in the Starbase
+     * @param ship
+     * @return true or false
+     */
+
+    public boolean isDocked(Starship ship) {
+        return dockedShips.contains(ship);
+    }
+
+    /**
+     * Gets the docking bay of the Starbase
      * @return dockedShips
      */
 
-    public List<Starship> getDockedShips() {
+    public DockingBay getDockingBay() {
         return dockedShips;
     }
 
+    /**
+     * Keeps the running docked defence total in step when a docked ship takes damage or is repaired
+     * @param delta change in the docked ship's defence
+     */
+
+    void dockedDefenceChanged(int delta) {
+        if (world.isConcurrentCombat()) TOTAL_DOCKED_DEFENCE.getAndAdd(this, delta);
+        else totalDockedDefence += delta;
+        targetChanged();
+    }
+
+    /**
+     * Tells the World's TargetSelector, if it has one, that the Starbase's health, defence or fleet may have changed
+     */
+
+    private void targetChanged() {
+        TargetSelector selector = world.getTargetSelector();
+        if (selector != null) selector.update(this);
+    }
+
+    /**
+     * Returns a read-only list of Starships docked in Starbase
+     * @return dockedShips
+     */
+
+    public List<Starship> getDockedShips() {
+        return dockedShips.getShips();
+    }
+
+    /**
+     * Gets the id of the Starbase
+     * @return id
+     */
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Registers the Starbase in a sector index, which it leaves when it is destroyed
+     * @param sectorIndex
+     * @see Fleet#addStarbase(Starbase)
+     */
+
+    void setSectorIndex(SectorIndex sectorIndex) {
+        if (this.sectorIndex != null) this.sectorIndex.remove(this, sector);
+        this.sectorIndex = sectorIndex;
+        if (sectorIndex != null && !isDestroyed()) sectorIndex.add(this, sector);
+    }
+
     /**
      * Sets the fleet that the Starbase belongs to
      * @param fleet
@@ -73,7 +272,8 @@ public class Starbase implements Targetable {
 
     @Override
     public void setFleet(String fleet) {
-        this.fleet = fleet;
+        this.fleetId = world.getFleetRegistry().register(fleet);
+        targetChanged();
     }
 
     /**
@@ -83,7 +283,35 @@ public class Starbase implements Targetable {
 
     @Override
     public String getFleet() {
-        return fleet;
+        return world.getFleetRegistry().nameOf(fleetId);
+    }
+
+    /**
+     * Gets the id of the Fleet that the Starbase belongs to
+     * @return fleetId
+     */
+
+    @Override
+    public int getFleetId() {
+        return fleetId;
+    }
+
+    /**
+     * Gets the maximum defence strength of the Starbase
+     * @return maxDefStrength
+     */
+
+    public int getMaxDefStrength() {
+        return maxDefStrength;
+    }
+
+    /**
+     * Gets the maximum health of the Starbase
+     * @return maxHealth
+     */
+
+    public int getMaxHealth() {
+        return maxHealth;
     }
 
     /**
@@ -97,33 +325,69 @@ public class Starbase implements Targetable {
     }
 
     /**
-     * The getCurrentDefence() method is responsible for calculating and returning the current defence strength of the Starship
+     * Gets the World the Starbase belongs to
+     * @return world
+     */
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * The getCurrentDefence() method is responsible for calculating and returning the current defence strength of the Starbase,
+     * using the running total of docked ship defence rather than re-summing the docked ships
      * @return currentDefStrength
      */
 
     @Override
     public int getCurrentDefence() {
-        int totalDockedDefence = 0;
+        currentDefStrength = defenceAt(currentHealth);
+        return currentDefStrength;
+    }
 
-        for (Starship ship : dockedShips) {
-            totalDockedDefence += ship.getCurrentDefence();
-        }
+    /**
+     * Calculates the defence strength the Starbase would have at the given health with its current docked ships.
+     * It never goes up as the health goes down
+     * @param health
+     * @return defStrength
+     * @see Siege
+     */
 
-        double healthFactor = (double) currentHealth / maxHealth;
+    int defenceAt(int health) {
+        double healthFactor = (double) health / maxHealth;
         double dockedBonus = (double) totalDockedDefence * ((double) dockedShips.size() / maxDefStrength);
-        currentDefStrength = (int) Math.floor(maxDefStrength * healthFactor + dockedBonus);
-        return currentDefStrength;
+        return (int) Math.floor(maxDefStrength * healthFactor + dockedBonus);
     }
 
     /**
-     * Calculates the current health of the Starbase after taking damage
+     * Calculates the current health of the Starbase after taking damage. In concurrent combat the health is updated with a
+     * compare-and-set, so any number of threads can damage the Starbase without losing a hit
      * @param damage of damage to take
+     * @see World#setConcurrentCombat(boolean)
      */
 
     @Override
     public void takeDamage(int damage) {
-        currentHealth -= damage;
-        if (currentHealth < 0) currentHealth = 0;
+        int before;
+        int after;
+        if (world.isConcurrentCombat()) {
+            do {
+                before = (int) CURRENT_HEALTH.getVolatile(this);
+                after = Math.max(before - damage, 0);
+            } while (!CURRENT_HEALTH.compareAndSet(this, before, after));
+        } else {
+            before = currentHealth;
+            after = Math.max(before - damage, 0);
+            currentHealth = after;
+        }
+
+        if (before > 0 && after <= 0 && sectorIndex != null) {
+            synchronized (sectorIndex) {
+                sectorIndex.remove(this, sector);
+            }
+        }
+        targetChanged();
     }
 
     /**
@@ -146,6 +410,37 @@ public class Starbase implements Targetable {
         return sector;
     }
 
+    /**
+     * Records the Starbase's health, fleet and docked ships
+     * @return checkpoint
+     * @see #reset(Checkpoint)
+     */
+
+    Checkpoint checkpoint() {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.currentHealth = currentHealth;
+        checkpoint.fleetId = fleetId;
+        checkpoint.totalDockedDefence = totalDockedDefence;
+        checkpoint.dockedShips = dockedShips.getShips().toArray(new Starship[0]);
+        return checkpoint;
+    }
+
+    /**
+     * Puts the Starbase back as it was recorded. Its place in the sector index is restored along with its Fleet's ships
+     * @param checkpoint
+     * @see ShipStore#reset(ShipStore.Checkpoint)
+     */
+
+    void reset(Checkpoint checkpoint) {
+        currentHealth = checkpoint.currentHealth;
+        fleetId = checkpoint.fleetId;
+        dockedShips.clear();
+        for (Starship ship : checkpoint.dockedShips) {
+            dockedShips.add(ship);
+        }
+        totalDockedDefence = checkpoint.totalDockedDefence;
+    }
+
     @Override
     public String toString() {
         return "Starbase{" +
@@ -153,9 +448,9 @@ public class Starbase implements Targetable {
                 ", maxHealth=" + maxHealth +
                 ", currentHealth=" + currentHealth +
                 ", currentDefStrength=" + getCurrentDefence() +
-                ", fleet='" + fleet + '\'' +
+                ", fleet='" + getFleet() + '\'' +
                 ", sector=" + sector +
-                ", dockedShips=" + dockedShips +
+                ", dockedShips=" + dockedShips.getShips() +
                 '}';
     }
 
@@ -164,11 +459,11 @@ public class Starbase implements Targetable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Starbase starbase = (Starbase) o;
-        return id == starbase.id;
+        return world == starbase.world && id == starbase.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return 31 * System.identityHashCode(world) + Integer.hashCode(id);
     }
 }
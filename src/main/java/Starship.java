@@ -1,55 +1,116 @@
-import java.util.Objects;
 
 /**
  * This is the Starship object class
  * @author Oscar Allen
  */
 public class Starship implements Targetable {
-    private static int idCounter;
+    private ShipStore store;
+    private int slot;
 
-    private int id;
+    /**
+     * Initialises a standalone Starship in the default World, with a store of its own
+     * @param startingSector
+     */
 
-    private final int maxAtkStrength = 30;
-    private final int maxDefStrength = 10;
-    private final int maxCrew = 10;
-    private final int maxHealth = 100;
+    public Starship(int startingSector) {
+        this(new ShipStore(World.DEFAULT, 1), startingSector);
+    }
 
-    private int currentHealth;
-    private int currentCrew;
-    private int currentAtkStrength;
-    private int currentDefStrength;
+    /**
+     * Initialises the Starship in a slot of the given store
+     * @param store
+     * @param startingSector
+     */
 
-    private String fleet;
-    private int sector;
-    private int skipTurns;
+    public Starship(ShipStore store, int startingSector) {
+        store.add(this, store.getWorld().nextShipId(), startingSector);
+    }
 
-    private boolean isDocked = false;
-    private Starbase dockedBase;
+    private Starship() {
+    }
 
     /**
-     * Initialises the Starship
-     * @param startingSector
+     * Creates a handle for a slot that the store has already filled in
+     * @param store
+     * @param slot
+     * @return ship
+     * @see ShipStore#restore(World, ShipStats, int[], int[], int[], int[], int[], int[])
      */
 
-    public Starship(int startingSector) {
-        this.sector = startingSector;
-        this.currentHealth = maxHealth;
-        this.currentCrew = maxCrew;
+    static Starship handle(ShipStore store, int slot) {
+        Starship ship = new Starship();
+        ship.rebind(store, slot);
+        return ship;
+    }
 
-        this.id = ++idCounter;
+    /**
+     * Gets the id of the Starship
+     * @return id
+     */
+
+    @Override
+    public int getId() {
+        return store.id(slot);
+    }
+
+    /**
+     * Gets the store holding the Starship's state
+     * @return store
+     */
+
+    ShipStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the slot of the Starship in its store
+     * @return slot
+     */
+
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Points the Starship at the slot of the store that holds its state
+     * @param store
+     * @param slot
+     * @see ShipStore#adopt(Starship)
+     */
+
+    void rebind(ShipStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
     }
 
     /**
      * Checks if the Starship is still under repair
      * @return true or false
+     * @see RepairScheduler
      */
 
-    private boolean isUnderRepair() {
-        if (skipTurns > 0) {
-            skipTurns--;
-            return true;
-        }
-        return false;
+    public boolean isUnderRepair() {
+        return store.skipTurns(slot) > 0;
+    }
+
+    /**
+     * Clears the Starship's repair once its turns have passed
+     * @see RepairScheduler#advance()
+     */
+
+    void finishRepair() {
+        store.setSkipTurns(slot, 0);
+    }
+
+    /**
+     * Gets the sector the Starship is travelling to along the World's SectorGraph
+     * @return destination, or the Starship's own sector if it is not travelling
+     * @see Fleet#mobilise(int)
+     */
+
+    public int getDestination() {
+        int destination = store.destination(slot);
+        return destination == ShipStore.NO_COURSE ? getSector() : destination;
     }
 
     /**
@@ -59,41 +120,54 @@ public class Starship implements Targetable {
 
     public void moveSector(int newSector) {
         if (isUnderRepair()) return;
-        if (isDocked) return;
+        if (isDocked()) return;
+
+        if (getSector() == newSector) return;
 
-        this.sector = newSector;
+        store.setSector(slot, newSector);
+        FleetMetrics metrics = store.getWorld().fleetMetrics(getFleetId());
+        if (metrics != null) metrics.moved(1);
     }
 
     /**
-     * Attacks the chosen target after checking that the Starship is not under repair, not docked, in the same sector and not in the same fleet
+     * Attacks the chosen target after checking that the Starship is not destroyed or under repair, not docked, in the same sector and not in the same fleet
      * @param target to attack
      */
 
     public void attack(Targetable target) {
+        store.getWorld().checkSameWorld(target);
+        if (isDestroyed()) return;
         if (isUnderRepair()) return;
-        if (isDocked) return;
-        if (this.sector != target.getSector()) return;
-        if (Objects.equals(this.fleet, target.getFleet())) return;
+        if (isDocked()) return;
+        if (getSector() != target.getSector()) return;
+        if (getFleetId() == target.getFleetId()) return;
 
         int damage = Math.max(getCurrentAtkStrength() - target.getCurrentDefence(), 5);
         target.takeDamage(damage);
+
+        World world = store.getWorld();
+        if (world.getJournal() != null) world.getJournal().recordHit(world.getTurn(), getId(), target, damage);
+        FleetMetrics metrics = world.fleetMetrics(getFleetId());
+        if (metrics != null) metrics.attacked(1, damage);
     }
 
     /**
-     * Docks Starship with chosen Starbase provided it is in the same sector and fleet, and the ship is not currently docked or under repair
+     * Docks Starship with chosen Starbase provided it is in the same sector and fleet, the ship is not currently docked or under repair, and the bay has room
      * @param base to dock with
      * @see Starbase#dockShip(Starship)
      */
 
     public void dockWithStarbase(Starbase base) {
+        store.getWorld().checkSameWorld(base);
         if (isUnderRepair()) return;
-        if (isDocked) return;
-        if (this.sector != base.getSector()) return;
-        if (!Objects.equals(this.fleet, base.getFleet())) return;
-
-        this.dockedBase = base;
-        this.isDocked = true;
-        base.dockShip(this);
+        if (isDocked()) return;
+        if (getSector() != base.getSector()) return;
+        if (getFleetId() != base.getFleetId()) return;
+
+        if (!base.addDocked(this)) return;
+        store.setDockedBase(slot, base);
+        FleetMetrics metrics = store.getWorld().fleetMetrics(getFleetId());
+        if (metrics != null) metrics.docked();
     }
 
     /**
@@ -103,31 +177,51 @@ public class Starship implements Targetable {
 
     public void unDockWithStarbase() {
         if (isUnderRepair()) return;
+        Starbase dockedBase = store.dockedBase(slot);
         if (dockedBase != null) {
-            dockedBase.unDockShip(this);
-            dockedBase = null;
+            dockedBase.removeDocked(this);
+            store.setDockedBase(slot, null);
+            FleetMetrics metrics = store.getWorld().fleetMetrics(getFleetId());
+            if (metrics != null) metrics.undocked();
         }
-        isDocked = false;
     }
 
     /**
-     * Checks to make sure the ship is docked before assigning the number of turns to skip based off the current health percentage and restoring max health and crew
+     * Checks to make sure the ship is docked before assigning the number of turns to skip based off the current health percentage and restoring max health and crew.
+     * The repair finishes when the World's RepairScheduler has advanced that many turns
      */
 
     public void repair() {
-        if (!isDocked) return;
+        int turns = startRepair();
+        if (turns > 0) store.getWorld().getRepairScheduler().schedule(this, turns);
+    }
+
+    /**
+     * Does the part of a repair that only touches the Starship, leaving the caller to schedule when it finishes
+     * @return turns the repair takes, or 0 if the ship is not docked
+     * @see FleetActor#repair(Starship)
+     */
 
-        double healthRatio = ((double) currentHealth / (double) maxHealth);
+    int startRepair() {
+        if (!isDocked()) return 0;
+
+        ShipStats stats = store.getStats();
+        double healthRatio = ((double) getCurrentHealth() / (double) stats.maxHealth());
         double healthPercentage = healthRatio * 100;
 
+        int skipTurns;
         if (healthPercentage < 25) skipTurns = 4;
         else if (healthPercentage < 50) skipTurns = 3;
         else if (healthPercentage < 75) skipTurns = 2;
         else if (healthPercentage < 100) skipTurns = 1;
         else skipTurns = 1;
 
-        currentHealth = maxHealth;
-        currentCrew = maxCrew;
+        store.setSkipTurns(slot, skipTurns);
+        store.setHealth(slot, stats.maxHealth());
+        store.setCrew(slot, stats.maxCrew());
+        FleetMetrics metrics = store.getWorld().fleetMetrics(getFleetId());
+        if (metrics != null) metrics.repaired();
+        return skipTurns;
     }
 
     /**
@@ -136,7 +230,7 @@ public class Starship implements Targetable {
      */
 
     public boolean isDocked() {
-        return isDocked;
+        return store.isDocked(slot);
     }
 
     /**
@@ -145,8 +239,7 @@ public class Starship implements Targetable {
      */
 
     public int getCurrentAtkStrength() {
-        currentAtkStrength = (int) Math.ceil(maxAtkStrength * ((double) currentCrew / maxHealth));
-        return currentAtkStrength;
+        return store.atkStrength(slot);
     }
 
     /**
@@ -157,7 +250,7 @@ public class Starship implements Targetable {
 
     @Override
     public void setFleet(String fleet) {
-        this.fleet = fleet;
+        store.setFleet(slot, store.getWorld().getFleetRegistry().register(fleet));
     }
 
     /**
@@ -167,7 +260,17 @@ public class Starship implements Targetable {
 
     @Override
     public String getFleet() {
-        return fleet;
+        return store.fleetName(slot);
+    }
+
+    /**
+     * Gets the id of the Fleet that the Starship belongs to
+     * @return fleetId
+     */
+
+    @Override
+    public int getFleetId() {
+        return store.fleet(slot);
     }
 
     /**
@@ -177,7 +280,7 @@ public class Starship implements Targetable {
 
     @Override
     public int getSector() {
-        return sector;
+        return store.sector(slot);
     }
 
     /**
@@ -187,8 +290,17 @@ public class Starship implements Targetable {
 
     @Override
     public int getCurrentDefence() {
-        currentDefStrength = (int) Math.floor((double) maxDefStrength * ((currentHealth + currentCrew)) / (maxHealth + maxCrew));
-        return currentDefStrength;
+        return store.defStrength(slot);
+    }
+
+    /**
+     * Gets the World the Starship belongs to
+     * @return world
+     */
+
+    @Override
+    public World getWorld() {
+        return store.getWorld();
     }
 
     /**
@@ -198,7 +310,16 @@ public class Starship implements Targetable {
 
     @Override
     public int getCurrentHealth() {
-        return currentHealth;
+        return store.health(slot);
+    }
+
+    /**
+     * Gets the current crew
+     * @return currentCrew
+     */
+
+    public int getCurrentCrew() {
+        return store.crew(slot);
     }
 
     /**
@@ -208,12 +329,7 @@ public class Starship implements Targetable {
 
     @Override
     public void takeDamage(int damage) {
-        currentHealth -= damage;
-        if (currentHealth < 0) currentHealth = 0;
-
-        int crewLost = (int) Math.ceil(((double) damage / maxHealth) * currentCrew);
-        currentCrew -= crewLost;
-        if (currentCrew < 1) currentCrew = 1;
+        store.takeDamage(slot, damage);
     }
 
     /**
@@ -223,24 +339,25 @@ public class Starship implements Targetable {
 
     @Override
     public boolean isDestroyed() {
-        return currentHealth <= 0;
+        return getCurrentHealth() <= 0;
     }
 
     @Override
     public String toString() {
+        ShipStats stats = store.getStats();
         return "Starship{" +
-                "maxAtkStrength=" + maxAtkStrength +
-                ", maxDefStrength=" + maxDefStrength +
-                ", maxCrew=" + maxCrew +
-                ", maxHealth=" + maxHealth +
-                ", currentHealth=" + currentHealth +
-                ", currentCrew=" + currentCrew +
-                ", currentAtkStrength=" + currentAtkStrength +
-                ", currentDefStrength=" + currentDefStrength +
-                ", fleet='" + fleet + '\'' +
-                ", sector=" + sector +
-                ", skipTurns=" + skipTurns +
-                ", isDocked=" + isDocked +
+                "maxAtkStrength=" + stats.maxAtkStrength() +
+                ", maxDefStrength=" + stats.maxDefStrength() +
+                ", maxCrew=" + stats.maxCrew() +
+                ", maxHealth=" + stats.maxHealth() +
+                ", currentHealth=" + getCurrentHealth() +
+                ", currentCrew=" + getCurrentCrew() +
+                ", currentAtkStrength=" + getCurrentAtkStrength() +
+                ", currentDefStrength=" + getCurrentDefence() +
+                ", fleet='" + getFleet() + '\'' +
+                ", sector=" + getSector() +
+                ", skipTurns=" + store.skipTurns(slot) +
+                ", isDocked=" + isDocked() +
                 '}';
     }
 
@@ -249,11 +366,11 @@ public class Starship implements Targetable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Starship starship = (Starship) o;
-        return id == starship.id;
+        return getWorld() == starship.getWorld() && store.id(slot) == starship.store.id(starship.slot);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return 31 * System.identityHashCode(getWorld()) + Integer.hashCode(store.id(slot));
     }
 }
\ No newline at end of file
@@ -0,0 +1,347 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This is the StateWriter class - it streams Worlds, Fleets, Starships and Starbases straight to a Writer as JSON or as
+ * compact text in the style of toString(), without building the whole dump in memory first.
+ * Fields can be limited to a selection, and objects nested deeper than the depth limit are written as just their id
+ * @author Oscar Allen
+ */
+public class StateWriter {
+
+    /**
+     * The output format
+     */
+
+    public enum Format {
+        JSON,
+        TEXT
+    }
+
+    private Writer out;
+    private Format format;
+    private Set<String> fields;
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private boolean separator;
+    private char[] digits = new char[19];
+
+    /**
+     * Initialises a StateWriter that writes every field to the given Writer
+     * @param out
+     * @param format
+     */
+
+    public StateWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Initialises a StateWriter that writes every field to the given stream as UTF-8
+     * @param out
+     * @param format
+     */
+
+    public StateWriter(OutputStream out, Format format) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), format);
+    }
+
+    /**
+     * Limits the fields written to the given names, or writes every field if fields is null.
+     * Names are shared across types, so selecting "id" selects the id of every Fleet, Starship and Starbase
+     * @param fields
+     */
+
+    public void setFields(Set<String> fields) {
+        this.fields = fields == null ? null : Set.copyOf(fields);
+    }
+
+    /**
+     * Sets how deep objects are written in full. The value passed to write() is at depth 0, and anything nested deeper
+     * than maxDepth is written as its id
+     * @param maxDepth at least 0
+     */
+
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) throw new IllegalArgumentException("maxDepth must be at least 0: " + maxDepth);
+
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Writes a World and its Fleets, followed by a line break
+     * @param world
+     * @throws IOException if the Writer fails
+     */
+
+    public void write(World world) throws IOException {
+        beginObject("World");
+        if (selected("turn")) {
+            name("turn");
+            number(world.getTurn());
+        }
+        if (selected("fleets")) {
+            name("fleets");
+            beginList();
+            for (Fleet fleet : world.getFleets()) {
+                element();
+                fleet(fleet, 1);
+            }
+            endList();
+        }
+        endObject();
+        endLine();
+    }
+
+    /**
+     * Writes a Fleet, followed by a line break
+     * @param fleet
+     * @throws IOException if the Writer fails
+     */
+
+    public void write(Fleet fleet) throws IOException {
+        fleet(fleet, 0);
+        endLine();
+    }
+
+    /**
+     * Writes a Starship, followed by a line break
+     * @param ship
+     * @throws IOException if the Writer fails
+     */
+
+    public void write(Starship ship) throws IOException {
+        starship(ship, 0);
+        endLine();
+    }
+
+    /**
+     * Writes a Starbase, followed by a line break
+     * @param base
+     * @throws IOException if the Writer fails
+     */
+
+    public void write(Starbase base) throws IOException {
+        starbase(base, 0);
+        endLine();
+    }
+
+    /**
+     * Flushes the underlying Writer
+     * @throws IOException if the Writer fails
+     */
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void fleet(Fleet fleet, int depth) throws IOException {
+        if (depth > maxDepth) {
+            number(fleet.getFleetId());
+            return;
+        }
+
+        beginObject("Fleet");
+        if (selected("fleetId")) {
+            name("fleetId");
+            number(fleet.getFleetId());
+        }
+        if (selected("playerName")) {
+            name("playerName");
+            string(fleet.getPlayerName());
+        }
+        if (selected("ships")) {
+            name("ships");
+            beginList();
+            for (Starship ship : fleet.getShips()) {
+                element();
+                starship(ship, depth + 1);
+            }
+            endList();
+        }
+        if (selected("starbases")) {
+            name("starbases");
+            beginList();
+            for (Starbase base : fleet.getStarbases()) {
+                element();
+                starbase(base, depth + 1);
+            }
+            endList();
+        }
+        endObject();
+    }
+
+    private void starship(Starship ship, int depth) throws IOException {
+        if (depth > maxDepth) {
+            number(ship.getId());
+            return;
+        }
+
+        ShipStats stats = ship.getStore().getStats();
+        beginObject("Starship");
+        numberField("id", ship.getId());
+        numberField("maxAtkStrength", stats.maxAtkStrength());
+        numberField("maxDefStrength", stats.maxDefStrength());
+        numberField("maxCrew", stats.maxCrew());
+        numberField("maxHealth", stats.maxHealth());
+        numberField("currentHealth", ship.getCurrentHealth());
+        numberField("currentCrew", ship.getCurrentCrew());
+        numberField("currentAtkStrength", ship.getCurrentAtkStrength());
+        numberField("currentDefStrength", ship.getCurrentDefence());
+        if (selected("fleet")) {
+            name("fleet");
+            string(ship.getFleet());
+        }
+        numberField("sector", ship.getSector());
+        numberField("skipTurns", ship.getStore().skipTurns(ship.getSlot()));
+        if (selected("isDocked")) {
+            name("isDocked");
+            out.write(ship.isDocked() ? "true" : "false");
+            separator = true;
+        }
+        endObject();
+    }
+
+    private void starbase(Starbase base, int depth) throws IOException {
+        if (depth > maxDepth) {
+            number(base.getId());
+            return;
+        }
+
+        beginObject("Starbase");
+        numberField("id", base.getId());
+        numberField("maxDefStrength", base.getMaxDefStrength());
+        numberField("maxHealth", base.getMaxHealth());
+        numberField("currentHealth", base.getCurrentHealth());
+        numberField("currentDefStrength", base.getCurrentDefence());
+        if (selected("fleet")) {
+            name("fleet");
+            string(base.getFleet());
+        }
+        numberField("sector", base.getSector());
+        if (selected("dockedShips")) {
+            name("dockedShips");
+            beginList();
+            List<Starship> docked = base.getDockedShips();
+            for (int i = 0; i < docked.size(); i++) {
+                element();
+                starship(docked.get(i), depth + 1);
+            }
+            endList();
+        }
+        endObject();
+    }
+
+    private boolean selected(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    private void numberField(String field, long value) throws IOException {
+        if (!selected(field)) return;
+
+        name(field);
+        number(value);
+    }
+
+    private void beginObject(String type) throws IOException {
+        if (format == Format.TEXT) out.write(type);
+        out.write('{');
+        separator = false;
+    }
+
+    private void endObject() throws IOException {
+        out.write('}');
+        separator = true;
+    }
+
+    private void beginList() throws IOException {
+        out.write('[');
+        separator = false;
+    }
+
+    private void endList() throws IOException {
+        out.write(']');
+        separator = true;
+    }
+
+    private void element() throws IOException {
+        if (separator) out.write(format == Format.JSON ? "," : ", ");
+        separator = false;
+    }
+
+    private void name(String field) throws IOException {
+        element();
+        if (format == Format.JSON) {
+            out.write('"');
+            out.write(field);
+            out.write("\":");
+        } else {
+            out.write(field);
+            out.write('=');
+        }
+    }
+
+    private void endLine() throws IOException {
+        out.write('\n');
+        separator = false;
+    }
+
+    /**
+     * Writes a number without creating a String for it
+     */
+
+    private void number(long value) throws IOException {
+        if (value < 0) {
+            out.write('-');
+            if (value == Long.MIN_VALUE) {
+                out.write("9223372036854775808");
+                separator = true;
+                return;
+            }
+            value = -value;
+        }
+
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        out.write(digits, start, digits.length - start);
+        separator = true;
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null && format == Format.JSON) {
+            out.write("null");
+            separator = true;
+            return;
+        }
+
+        char quote = format == Format.JSON ? '"' : '\'';
+        out.write(quote);
+        if (format == Format.TEXT) {
+            out.write(String.valueOf(value));
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+        out.write(quote);
+        separator = true;
+    }
+}
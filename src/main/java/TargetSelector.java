@@ -0,0 +1,305 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is the TargetSelector class - it picks the best enemy target in a sector without scanning every Starship and Starbase.
+ * Each fleet's live Targetables in each sector sit in an indexed heap ordered by the selector's Priority, and a Targetable's
+ * place in its heap is fixed up whenever it takes damage, is repaired, moves, changes fleet or is destroyed, at O(log n) a change.
+ * Choosing a target then only looks at the top of each other fleet's heap in the sector.
+ * <p>
+ * A selector follows the Starships and Starbases of the Fleets of the World it is set on; Starbases outside a Fleet and
+ * off-heap ships are not indexed. It is thread-safe, so concurrent combat and fleet actors keep it up to date too
+ * @author Oscar Allen
+ * @see World#setTargetSelector(TargetSelector)
+ */
+public class TargetSelector {
+
+    /**
+     * What makes one target better than another
+     */
+
+    public enum Priority {
+        /**
+         * The target with the least health
+         */
+        WEAKEST,
+        /**
+         * The target with the lowest defence strength
+         */
+        LEAST_DEFENDED,
+        /**
+         * The Starship with the highest attack strength; Starbases do not attack and come last
+         */
+        MOST_DANGEROUS;
+
+        /**
+         * Gets the heap key of a target, lower keys coming first
+         * @param target
+         * @return key
+         */
+
+        int key(Targetable target) {
+            return switch (this) {
+                case WEAKEST -> target.getCurrentHealth();
+                case LEAST_DEFENDED -> target.getCurrentDefence();
+                case MOST_DANGEROUS -> target instanceof Starship ship ? -ship.getCurrentAtkStrength() : 0;
+            };
+        }
+    }
+
+    private Priority priority;
+    private World world;
+    private Map<Targetable, Entry> entries = new HashMap<>();
+    private Map<Integer, List<TargetHeap>> sectors = new HashMap<>();
+    private long nextOrder;
+
+    /**
+     * A Targetable's place in the selector. Targets with equal keys come in the order they were first indexed
+     */
+
+    private static final class Entry {
+        private final Targetable target;
+        private final long order;
+        private int key;
+        private TargetHeap heap;
+        private int index;
+
+        private Entry(Targetable target, long order) {
+            this.target = target;
+            this.order = order;
+        }
+
+        private boolean before(Entry other) {
+            return key < other.key || (key == other.key && order < other.order);
+        }
+    }
+
+    /**
+     * A binary min-heap of Entries that know their own index, so any Entry can be moved or removed in O(log n)
+     */
+
+    private static final class TargetHeap {
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        private Entry peek() {
+            return size == 0 ? null : entries[0];
+        }
+
+        private void insert(Entry entry) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entry.heap = this;
+            place(entry, size++);
+            siftUp(entry);
+        }
+
+        private void remove(Entry entry) {
+            Entry last = entries[--size];
+            entries[size] = null;
+            entry.heap = null;
+            if (last == entry) return;
+
+            place(last, entry.index);
+            changed(last);
+        }
+
+        private void changed(Entry entry) {
+            siftUp(entry);
+            siftDown(entry);
+        }
+
+        private void siftUp(Entry entry) {
+            while (entry.index > 0) {
+                Entry parent = entries[(entry.index - 1) / 2];
+                if (!entry.before(parent)) return;
+
+                int index = entry.index;
+                place(entry, parent.index);
+                place(parent, index);
+            }
+        }
+
+        private void siftDown(Entry entry) {
+            while (true) {
+                int child = entry.index * 2 + 1;
+                if (child >= size) return;
+                if (child + 1 < size && entries[child + 1].before(entries[child])) child++;
+                if (!entries[child].before(entry)) return;
+
+                Entry smaller = entries[child];
+                int index = entry.index;
+                place(entry, child);
+                place(smaller, index);
+            }
+        }
+
+        private void place(Entry entry, int index) {
+            entries[index] = entry;
+            entry.index = index;
+        }
+    }
+
+    /**
+     * Initialises a selector that prefers targets by the given priority. It starts indexing once it is set on a World
+     * @param priority
+     */
+
+    public TargetSelector(Priority priority) {
+        if (priority == null) throw new IllegalArgumentException("priority must not be null");
+
+        this.priority = priority;
+    }
+
+    /**
+     * Gets what the selector prefers in a target
+     * @return priority
+     */
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Indexes every Starship and Starbase of the World's Fleets
+     * @param world
+     * @throws IllegalStateException if the selector is already set on a World
+     * @see World#setTargetSelector(TargetSelector)
+     */
+
+    synchronized void attach(World world) {
+        if (this.world != null) throw new IllegalStateException("the selector is already set on a World");
+
+        this.world = world;
+        for (Fleet fleet : world.getFleets()) {
+            ShipStore store = fleet.getStore();
+            for (int slot = 0; slot < store.size(); slot++) {
+                add(store.ship(slot));
+            }
+            for (Starbase base : fleet.getStarbases()) {
+                add(base);
+            }
+        }
+    }
+
+    /**
+     * Starts following a Targetable
+     * @param target
+     */
+
+    synchronized void add(Targetable target) {
+        Entry entry = entries.get(target);
+        if (entry == null) {
+            entry = new Entry(target, nextOrder++);
+            entries.put(target, entry);
+        }
+        place(entry);
+    }
+
+    /**
+     * Stops following a Targetable
+     * @param target
+     */
+
+    synchronized void remove(Targetable target) {
+        Entry entry = entries.remove(target);
+        if (entry != null && entry.heap != null) entry.heap.remove(entry);
+    }
+
+    /**
+     * Moves a followed Targetable to its place for its current sector, fleet and key. Called after anything that may
+     * have changed them; Targetables the selector does not follow are ignored
+     * @param target
+     */
+
+    synchronized void update(Targetable target) {
+        Entry entry = entries.get(target);
+        if (entry != null) place(entry);
+    }
+
+    /**
+     * Updates every Starship and Starbase of the given Fleets, after their state was replaced wholesale
+     * @param fleets
+     * @see World#reset()
+     */
+
+    synchronized void refresh(List<Fleet> fleets) {
+        for (int i = 0; i < fleets.size(); i++) {
+            Fleet fleet = fleets.get(i);
+            ShipStore store = fleet.getStore();
+            for (int slot = 0; slot < store.size(); slot++) {
+                update(store.ship(slot));
+            }
+            List<Starbase> bases = fleet.getStarbases();
+            for (int b = 0; b < bases.size(); b++) {
+                update(bases.get(b));
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        Targetable target = entry.target;
+        TargetHeap heap = target.isDestroyed() ? null : heapFor(target.getSector(), target.getFleetId());
+        int key = priority.key(target);
+
+        if (heap != entry.heap) {
+            if (entry.heap != null) entry.heap.remove(entry);
+            entry.key = key;
+            if (heap != null) heap.insert(entry);
+        } else if (heap != null && key != entry.key) {
+            entry.key = key;
+            heap.changed(entry);
+        }
+    }
+
+    private TargetHeap heapFor(int sector, int fleetId) {
+        List<TargetHeap> heaps = sectors.get(sector);
+        if (heaps == null) {
+            heaps = new ArrayList<>();
+            sectors.put(sector, heaps);
+        }
+        // heaps are kept by fleet id + 1, so targets without a fleet have one too
+        while (heaps.size() <= fleetId + 1) {
+            heaps.add(new TargetHeap());
+        }
+        return heaps.get(fleetId + 1);
+    }
+
+    /**
+     * Chooses the best target in a sector for a fleet: the best of the tops of every other fleet's heap there
+     * @param sector
+     * @param fleetId of the attacking fleet
+     * @return target, or null if there are no live enemy targets in the sector
+     */
+
+    public synchronized Targetable select(int sector, int fleetId) {
+        List<TargetHeap> heaps = sectors.get(sector);
+        if (heaps == null) return null;
+
+        Entry best = null;
+        for (int i = 0; i < heaps.size(); i++) {
+            if (i == fleetId + 1) continue;
+
+            Entry top = heaps.get(i).peek();
+            if (top != null && (best == null || top.before(best))) best = top;
+        }
+        return best == null ? null : best.target;
+    }
+
+    /**
+     * Gets the number of live Targetables in the selector's heaps
+     * @return size
+     */
+
+    public synchronized int size() {
+        int size = 0;
+        for (List<TargetHeap> heaps : sectors.values()) {
+            for (TargetHeap heap : heaps) {
+                size += heap.size;
+            }
+        }
+        return size;
+    }
+}
@@ -3,6 +3,12 @@
  * @author Oscar Allen
  */
 public interface Targetable {
+    /**
+     * Gets the id of the object, unique among Starships or among Starbases in its World
+     * @return id
+     */
+    int getId();
+
     /**
      * Gets the current health
      * @return currentHealth
@@ -44,4 +50,17 @@ public interface Targetable {
      * @return String fleet
      */
     String getFleet();
+
+    /**
+     * Gets the id of the current Fleet of a Starship or Starbase, used for friend or foe checks
+     * @return fleetId
+     * @see FleetRegistry
+     */
+    int getFleetId();
+
+    /**
+     * Gets the World the object belongs to, whose FleetRegistry gives its fleet id a meaning
+     * @return world
+     */
+    World getWorld();
 }
@@ -0,0 +1,420 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This is the World class - it hands out the ids of the Starships, Starbases and fleets created in it, so that separate
+ * games or simulation runs do not share any state. A World is not thread-safe and should only be used by one thread at a time
+ * @author Oscar Allen
+ */
+public class World {
+    /**
+     * The World used by the constructors that are not given one. It does not keep its Fleets, so the Fleets made by
+     * those constructors can be garbage collected, and it cannot follow a sector graph, select targets or be
+     * checkpointed or saved
+     */
+    public static final World DEFAULT = new World(false);
+
+    private int shipIdCounter;
+    private int starbaseIdCounter;
+    private FleetRegistry fleetRegistry = new FleetRegistry();
+    private RepairScheduler repairScheduler = new RepairScheduler();
+    private CombatJournal journal;
+    private List<Fleet> fleets = new ArrayList<>();
+    private GameMetrics metrics;
+    private boolean concurrentCombat;
+    private SectorGraph sectorGraph;
+    private TargetSelector targetSelector;
+    private Checkpoint checkpoint;
+    private final boolean keepsFleets;
+
+    /**
+     * Creates an empty World
+     */
+
+    public World() {
+        this(true);
+    }
+
+    private World(boolean keepsFleets) {
+        this.keepsFleets = keepsFleets;
+    }
+
+    /**
+     * The state of every Fleet in the World at one moment
+     * @see #checkpoint()
+     */
+
+    private static final class Checkpoint {
+        private int lastShipId;
+        private int lastStarbaseId;
+        private int fleetCount;
+        private ShipStore.Checkpoint[] stores;
+        private Starbase.Checkpoint[][] bases;
+        private RepairScheduler.Checkpoint repairs;
+    }
+
+    /**
+     * Advances the World by one game turn, moving travelling Fleets along their routes and finishing any repairs that are due
+     * @return number of repairs finished
+     */
+
+    public int advanceTurn() {
+        if (sectorGraph != null) {
+            for (Fleet fleet : fleets) {
+                fleet.advanceCourse(sectorGraph);
+            }
+        }
+        return repairScheduler.advance();
+    }
+
+    /**
+     * Advances the World by one game turn, handing each repair that is due to the given action. Fleets are not moved along
+     * their routes
+     * @param finishRepair
+     * @return number of repairs finished
+     * @see RepairScheduler#advance(Consumer)
+     */
+
+    int advanceTurn(Consumer<Starship> finishRepair) {
+        return repairScheduler.advance(finishRepair);
+    }
+
+    /**
+     * Gets the current game turn
+     * @return turn
+     */
+
+    public long getTurn() {
+        return repairScheduler.getTurn();
+    }
+
+    /**
+     * Sets the graph of sectors that Fleets travel along, or null to let them move straight to any sector.
+     * With a graph, Fleet.mobilise() sets the Fleet's ships on course and each turn moves them along the quickest route
+     * @param sectorGraph
+     * @throws IllegalStateException if this is the default World
+     * @see Fleet#mobilise(int)
+     */
+
+    public void setSectorGraph(SectorGraph sectorGraph) {
+        if (sectorGraph != null) checkKeepsFleets();
+        this.sectorGraph = sectorGraph;
+    }
+
+    /**
+     * Gets the graph of sectors that Fleets travel along
+     * @return sectorGraph, or null if ships move straight to any sector
+     */
+
+    public SectorGraph getSectorGraph() {
+        return sectorGraph;
+    }
+
+    /**
+     * Sets the selector that keeps the World's targets ordered for Fleet.attackBestTarget(), or null to stop keeping them.
+     * The selector indexes every Starship and Starbase of the World's Fleets straight away
+     * @param targetSelector
+     * @throws IllegalStateException if the selector is already set on a World, or this is the default World
+     * @see Fleet#attackBestTarget(int)
+     */
+
+    public void setTargetSelector(TargetSelector targetSelector) {
+        if (targetSelector != null) {
+            checkKeepsFleets();
+            targetSelector.attach(this);
+        }
+        this.targetSelector = targetSelector;
+    }
+
+    /**
+     * Gets the selector that keeps the World's targets ordered
+     * @return targetSelector, or null if there is none
+     */
+
+    public TargetSelector getTargetSelector() {
+        return targetSelector;
+    }
+
+    /**
+     * Sets the journal that every hit in the World is recorded to, or null to stop recording
+     * @param journal
+     */
+
+    public void setJournal(CombatJournal journal) {
+        if (journal != null && concurrentCombat) throw new IllegalStateException("hits cannot be journalled in concurrent combat");
+
+        this.journal = journal;
+    }
+
+    /**
+     * Switches concurrent combat on or off. With it on, many threads can call Fleet.attackTarget() and damage the same
+     * Starships and Starbases at once: health and crew are updated with compare-and-set instead of plain writes, and each
+     * attack works from its own copy of the attackers in the sector. Everything else, such as moving, docking, repairing
+     * and adding ships, still needs one thread at a time, and hits cannot be journalled
+     * @param concurrentCombat
+     */
+
+    public void setConcurrentCombat(boolean concurrentCombat) {
+        if (concurrentCombat && journal != null) throw new IllegalStateException("hits cannot be journalled in concurrent combat");
+
+        this.concurrentCombat = concurrentCombat;
+    }
+
+    /**
+     * Checks if concurrent combat is on
+     * @return true or false
+     */
+
+    public boolean isConcurrentCombat() {
+        return concurrentCombat;
+    }
+
+    /**
+     * Gets the journal that hits are recorded to
+     * @return journal, or null if hits are not recorded
+     */
+
+    public CombatJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Starts counting what each fleet in the World does and publishes the counts over JMX, replacing any metrics already enabled
+     * @param name of the World in the MBean names
+     * @return metrics
+     * @throws IllegalStateException if metrics are already published under the name
+     * @see GameMetrics
+     */
+
+    public GameMetrics enableMetrics(String name) {
+        disableMetrics();
+        metrics = new GameMetrics(name, fleetRegistry);
+        return metrics;
+    }
+
+    /**
+     * Stops counting and removes the World's MBeans
+     */
+
+    public void disableMetrics() {
+        if (metrics == null) return;
+
+        metrics.close();
+        metrics = null;
+    }
+
+    /**
+     * Gets the World's metrics
+     * @return metrics, or null if they are not enabled
+     */
+
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the metrics of a fleet
+     * @param fleetId
+     * @return metrics, or null if metrics are not enabled or the id is FleetRegistry.NO_FLEET
+     */
+
+    FleetMetrics fleetMetrics(int fleetId) {
+        return metrics == null ? null : metrics.fleet(fleetId);
+    }
+
+    /**
+     * Gets the scheduler of Starship repairs in the World
+     * @return repairScheduler
+     */
+
+    public RepairScheduler getRepairScheduler() {
+        return repairScheduler;
+    }
+
+    /**
+     * Gets the registry of fleet ids in the World
+     * @return fleetRegistry
+     */
+
+    public FleetRegistry getFleetRegistry() {
+        return fleetRegistry;
+    }
+
+    /**
+     * Checks that a target belongs to this World, since fleet ids only tell friend from foe within one World
+     * @param target
+     * @throws IllegalArgumentException if the target belongs to another World
+     */
+
+    void checkSameWorld(Targetable target) {
+        if (target.getWorld() != this) throw new IllegalArgumentException("the target belongs to another World");
+    }
+
+    /**
+     * Gets a read-only list of the Fleets created in the World, which is always empty for the default World
+     * @return fleets
+     */
+
+    public List<Fleet> getFleets() {
+        return Collections.unmodifiableList(fleets);
+    }
+
+    /**
+     * Adds a Fleet to the World, unless it is the default World, and publishes its metrics if they are enabled
+     * @param fleet
+     * @throws IllegalStateException if the Fleet's metrics cannot be published
+     * @see Fleet#Fleet(World, ShipStats, String, int, int)
+     */
+
+    void addFleet(Fleet fleet) {
+        if (keepsFleets) fleets.add(fleet);
+        if (metrics != null) metrics.publishRegistered();
+    }
+
+    /**
+     * Checks that the World keeps its Fleets, which the default World does not
+     * @throws IllegalStateException if this is the default World
+     */
+
+    void checkKeepsFleets() {
+        if (!keepsFleets) throw new IllegalStateException("the default World does not keep its Fleets");
+    }
+
+    /**
+     * Gets the id of the last Starship created in the World
+     * @return id
+     */
+
+    int lastShipId() {
+        return shipIdCounter;
+    }
+
+    /**
+     * Gets the id of the last Starbase created in the World
+     * @return id
+     */
+
+    int lastStarbaseId() {
+        return starbaseIdCounter;
+    }
+
+    /**
+     * Puts the id counters and turn of a freshly created World back where a snapshot left them
+     * @param lastShipId
+     * @param lastStarbaseId
+     * @param turn
+     * @see WorldSnapshot#load(java.nio.file.Path)
+     */
+
+    void restore(int lastShipId, int lastStarbaseId, long turn) {
+        this.shipIdCounter = lastShipId;
+        this.starbaseIdCounter = lastStarbaseId;
+        repairScheduler.setTurn(turn);
+    }
+
+    /**
+     * Records the state of every Fleet in the World - its Starships, Starbases, docking, courses and repairs - along with
+     * the turn and the id counters, so that reset() can put the World back exactly as it is now
+     * @throws IllegalStateException if this is the default World
+     * @see #reset()
+     */
+
+    public void checkpoint() {
+        checkKeepsFleets();
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.lastShipId = shipIdCounter;
+        checkpoint.lastStarbaseId = starbaseIdCounter;
+        checkpoint.fleetCount = fleets.size();
+        checkpoint.stores = new ShipStore.Checkpoint[fleets.size()];
+        checkpoint.bases = new Starbase.Checkpoint[fleets.size()][];
+        for (int i = 0; i < fleets.size(); i++) {
+            Fleet fleet = fleets.get(i);
+            checkpoint.stores[i] = fleet.getStore().checkpoint();
+            List<Starbase> bases = fleet.getStarbases();
+            checkpoint.bases[i] = new Starbase.Checkpoint[bases.size()];
+            for (int b = 0; b < bases.size(); b++) {
+                checkpoint.bases[i][b] = bases.get(b).checkpoint();
+            }
+        }
+        checkpoint.repairs = repairScheduler.checkpoint();
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Puts every Fleet in the World back as it was at the last checkpoint(), in place: the same Fleet, Starship and Starbase
+     * objects are reused and nothing is allocated, so the same scenario can be run again and again without garbage.
+     * The journal, metrics and Starbases outside any Fleet are not rolled back
+     * @throws IllegalStateException if there is no checkpoint, or Fleets, Starships or Starbases were added or removed since it
+     * @see WorldArena
+     */
+
+    public void reset() {
+        if (checkpoint == null) throw new IllegalStateException("the World has no checkpoint");
+        if (fleets.size() != checkpoint.fleetCount) {
+            throw new IllegalStateException("World had " + checkpoint.fleetCount + " fleets but now has " + fleets.size());
+        }
+        for (int i = 0; i < fleets.size(); i++) {
+            Fleet fleet = fleets.get(i);
+            if (fleet.getStore().size() != checkpoint.stores[i].size() || fleet.getStarbases().size() != checkpoint.bases[i].length) {
+                throw new IllegalStateException(fleet.getPlayerName() + "'s fleet has gained or lost ships or starbases");
+            }
+        }
+
+        for (int i = 0; i < fleets.size(); i++) {
+            Fleet fleet = fleets.get(i);
+            List<Starbase> bases = fleet.getStarbases();
+            for (int b = 0; b < bases.size(); b++) {
+                bases.get(b).reset(checkpoint.bases[i][b]);
+            }
+            fleet.getStore().reset(checkpoint.stores[i]);
+        }
+        repairScheduler.reset(checkpoint.repairs);
+        if (targetSelector != null) targetSelector.refresh(fleets);
+        shipIdCounter = checkpoint.lastShipId;
+        starbaseIdCounter = checkpoint.lastStarbaseId;
+    }
+
+    /**
+     * Gets the next Starship id
+     * @return id
+     */
+
+    int nextShipId() {
+        return ++shipIdCounter;
+    }
+
+    /**
+     * Gets a run of consecutive Starship ids
+     * @param count
+     * @return the first id
+     */
+
+    int nextShipIds(int count) {
+        int first = shipIdCounter + 1;
+        shipIdCounter += count;
+        return first;
+    }
+
+    /**
+     * Makes sure the next Starship and Starbase ids handed out come after the given ones, which are in use elsewhere
+     * @param lastShipId
+     * @param lastStarbaseId
+     * @see OffHeapStore#open(World, java.nio.file.Path)
+     */
+
+    void reserveIds(int lastShipId, int lastStarbaseId) {
+        shipIdCounter = Math.max(shipIdCounter, lastShipId);
+        starbaseIdCounter = Math.max(starbaseIdCounter, lastStarbaseId);
+    }
+
+    /**
+     * Gets the next Starbase id
+     * @return id
+     */
+
+    int nextStarbaseId() {
+        return ++starbaseIdCounter;
+    }
+}
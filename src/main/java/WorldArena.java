@@ -0,0 +1,79 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * This is the WorldArena class - a pool of Worlds that have all been set up by the same scenario, for batch simulations
+ * that run the scenario many times. A World handed back with release() is reset in place to the state the scenario left
+ * it in and handed out again, so once the pool is warm, running the scenario again allocates no new Fleets, Starships,
+ * Starbases or lists. The arena is thread-safe, so each simulation thread can take its own World from it
+ * @author Oscar Allen
+ * @see World#reset()
+ */
+public class WorldArena {
+    private Consumer<World> scenario;
+    private Deque<World> free = new ArrayDeque<>();
+    private Map<World, Boolean> inUse = new IdentityHashMap<>();
+    private int created;
+
+    /**
+     * Initialises an empty arena whose Worlds are set up by the given scenario
+     * @param scenario creates the Fleets, Starships and Starbases of a new World
+     */
+
+    public WorldArena(Consumer<World> scenario) {
+        this.scenario = Objects.requireNonNull(scenario);
+    }
+
+    /**
+     * Hands out a World in the state the scenario sets up, reusing a released one if there is one
+     * @return world
+     */
+
+    public synchronized World acquire() {
+        World world = free.pollFirst();
+        if (world == null) {
+            world = new World();
+            scenario.accept(world);
+            world.checkpoint();
+            created++;
+        }
+        inUse.put(world, Boolean.TRUE);
+        return world;
+    }
+
+    /**
+     * Resets a World handed out by acquire() and keeps it for the next caller
+     * @param world
+     * @throws IllegalArgumentException if the World was not handed out by this arena, or has already been released
+     * @throws IllegalStateException if Fleets, Starships or Starbases were added to the World, in which case it is dropped
+     */
+
+    public synchronized void release(World world) {
+        if (inUse.remove(world) == null) throw new IllegalArgumentException("the World is not in use from this arena");
+
+        world.reset();
+        free.addFirst(world);
+    }
+
+    /**
+     * Gets the number of Worlds the scenario has set up
+     * @return created
+     */
+
+    public synchronized int getCreated() {
+        return created;
+    }
+
+    /**
+     * Gets the number of reset Worlds waiting to be handed out
+     * @return free
+     */
+
+    public synchronized int getFree() {
+        return free.size();
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This is the WorldSnapshot class - it saves every Fleet of a World, with its Starships, Starbases, docking and repair
+ * timers and courses, to a binary file and loads it back. Each Fleet's Starship state is written as whole columns, in the same layout
+ * as its ShipStore, so loading is a bulk copy out of a memory-mapped file rather than parsing every field.
+ * Ships and Starbases that are not in a Fleet, and the World's journal and SectorGraph, are not saved
+ * @author Oscar Allen
+ */
+public final class WorldSnapshot {
+    static final int MAGIC = 0x52534D57;
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 32;
+    static final int FLEET_HEADER_SIZE = 32;
+
+    static final int NO_BASE_ID = 0;
+
+    private WorldSnapshot() {
+    }
+
+    /**
+     * Saves a World to a snapshot file, replacing any file already at the path
+     * @param world
+     * @param path
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if the World is the default World, or a ship is docked at a Starbase in no Fleet
+     */
+
+    public static void save(World world, Path path) throws IOException {
+        world.checkKeepsFleets();
+        checkDockedAtSavedBases(world.getFleets());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FleetRegistry registry = world.getFleetRegistry();
+            List<Fleet> fleets = world.getFleets();
+
+            ByteBuffer header = buffer(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putShort(4, VERSION);
+            header.putInt(8, world.lastShipId());
+            header.putInt(12, world.lastStarbaseId());
+            header.putLong(16, world.getTurn());
+            header.putInt(24, registry.size());
+            header.putInt(28, fleets.size());
+            long position = write(channel, 0, header);
+
+            for (int fleetId = 0; fleetId < registry.size(); fleetId++) {
+                byte[] name = registry.nameOf(fleetId).getBytes(StandardCharsets.UTF_8);
+                ByteBuffer entry = buffer(Integer.BYTES + name.length);
+                entry.putInt(0, name.length);
+                entry.put(Integer.BYTES, name);
+                position = write(channel, position, entry);
+            }
+
+            for (Fleet fleet : fleets) {
+                position = saveFleet(channel, position, world, fleet);
+            }
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Checks that every docked ship is docked at a Starbase that will be saved, so the snapshot can be loaded
+     * @param fleets
+     * @throws IllegalStateException if a ship is docked at a Starbase that is in no Fleet
+     */
+
+    private static void checkDockedAtSavedBases(List<Fleet> fleets) {
+        Set<Starbase> saved = new HashSet<>();
+        for (Fleet fleet : fleets) {
+            saved.addAll(fleet.getStarbases());
+        }
+        for (Fleet fleet : fleets) {
+            ShipStore store = fleet.getStore();
+            for (int slot = 0; slot < store.size(); slot++) {
+                Starbase base = store.dockedBase(slot);
+                if (base != null && !saved.contains(base)) {
+                    throw new IllegalStateException("ship " + store.id(slot) + " is docked at starbase " + base.getId() + ", which is in no fleet");
+                }
+            }
+        }
+    }
+
+    private static long saveFleet(FileChannel channel, long position, World world, Fleet fleet) throws IOException {
+        ShipStore store = fleet.getStore();
+        ShipStats stats = store.getStats();
+        List<Starbase> bases = fleet.getStarbases();
+        RepairScheduler repairs = world.getRepairScheduler();
+
+        ByteBuffer header = buffer(FLEET_HEADER_SIZE);
+        header.putInt(0, fleet.getFleetId());
+        header.putInt(4, store.size());
+        header.putInt(8, bases.size());
+        header.putInt(12, stats.maxAtkStrength());
+        header.putInt(16, stats.maxDefStrength());
+        header.putInt(20, stats.maxCrew());
+        header.putInt(24, stats.maxHealth());
+        position = write(channel, position, header);
+
+        int ships = store.size();
+        int[] id = new int[ships];
+        int[] health = new int[ships];
+        int[] crew = new int[ships];
+        int[] sector = new int[ships];
+        int[] skipTurns = new int[ships];
+        int[] fleetIds = new int[ships];
+        int[] dockedBase = new int[ships];
+        int[] destination = new int[ships];
+        int[] courseTurns = new int[ships];
+        long[] repairDue = new long[ships];
+        for (int slot = 0; slot < ships; slot++) {
+            id[slot] = store.id(slot);
+            health[slot] = store.health(slot);
+            crew[slot] = store.crew(slot);
+            sector[slot] = store.sector(slot);
+            skipTurns[slot] = store.skipTurns(slot);
+            fleetIds[slot] = store.fleet(slot);
+            Starbase base = store.dockedBase(slot);
+            dockedBase[slot] = base == null ? NO_BASE_ID : base.getId();
+            destination[slot] = store.destination(slot);
+            courseTurns[slot] = store.courseTurns(slot);
+            repairDue[slot] = skipTurns[slot] > 0 ? repairs.getDueTurn(store.ship(slot)) : -1;
+        }
+        for (int[] column : new int[][]{id, health, crew, sector, skipTurns, fleetIds, dockedBase, destination, courseTurns}) {
+            position = writeInts(channel, position, column);
+        }
+        position = writeLongs(channel, position, repairDue);
+
+        int count = bases.size();
+        int[] baseId = new int[count];
+        int[] baseHealth = new int[count];
+        int[] baseSector = new int[count];
+        int[] bayCapacity = new int[count];
+        int[] baseFleet = new int[count];
+        for (int i = 0; i < count; i++) {
+            Starbase base = bases.get(i);
+            baseId[i] = base.getId();
+            baseHealth[i] = base.getCurrentHealth();
+            baseSector[i] = base.getSector();
+            bayCapacity[i] = base.getDockingBay().getCapacity();
+            baseFleet[i] = base.getFleetId();
+        }
+        for (int[] column : new int[][]{baseId, baseHealth, baseSector, bayCapacity, baseFleet}) {
+            position = writeInts(channel, position, column);
+        }
+        return position;
+    }
+
+    /**
+     * Loads a snapshot file into a new World
+     * @param path
+     * @return world
+     * @throws IOException if the file cannot be read or is not a world snapshot
+     */
+
+    public static World load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+                throw new IOException("not a version " + VERSION + " world snapshot: " + path);
+            }
+
+            World world = new World();
+            world.restore(header.getInt(8), header.getInt(12), header.getLong(16));
+            int registrySize = header.getInt(24);
+            int fleetCount = header.getInt(28);
+            long position = HEADER_SIZE;
+
+            for (int i = 0; i < registrySize; i++) {
+                int length = read(channel, position, Integer.BYTES).getInt(0);
+                position += Integer.BYTES;
+                byte[] name = new byte[length];
+                read(channel, position, length).get(0, name);
+                position += length;
+                world.getFleetRegistry().register(new String(name, StandardCharsets.UTF_8));
+            }
+
+            List<ShipStore> stores = new ArrayList<>();
+            Map<Integer, Starbase> bases = new HashMap<>();
+            List<int[]> dockedBases = new ArrayList<>();
+            List<int[][]> courses = new ArrayList<>();
+            List<long[]> repairs = new ArrayList<>();
+            for (int i = 0; i < fleetCount; i++) {
+                ByteBuffer fleetHeader = read(channel, position, FLEET_HEADER_SIZE);
+                position += FLEET_HEADER_SIZE;
+                int fleetId = fleetHeader.getInt(0);
+                int ships = fleetHeader.getInt(4);
+                int baseCount = fleetHeader.getInt(8);
+                ShipStats stats = shipStats(fleetHeader.getInt(12), fleetHeader.getInt(16), fleetHeader.getInt(20), fleetHeader.getInt(24));
+
+                int[][] columns = new int[9][];
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c] = readInts(channel, position, ships);
+                    position += (long) ships * Integer.BYTES;
+                }
+                long[] repairDue = readLongs(channel, position, ships);
+                position += (long) ships * Long.BYTES;
+
+                ShipStore store = ShipStore.restore(world, stats, columns[0], columns[1], columns[2], columns[3], columns[4], columns[5]);
+                Fleet fleet = new Fleet(world, world.getFleetRegistry().nameOf(fleetId), store);
+                stores.add(store);
+                dockedBases.add(columns[6]);
+                courses.add(new int[][]{columns[7], columns[8]});
+                repairs.add(repairDue);
+
+                int[][] baseColumns = new int[5][];
+                for (int c = 0; c < baseColumns.length; c++) {
+                    baseColumns[c] = readInts(channel, position, baseCount);
+                    position += (long) baseCount * Integer.BYTES;
+                }
+                for (int b = 0; b < baseCount; b++) {
+                    Starbase base = new Starbase(world, baseColumns[0][b], baseColumns[2][b], baseColumns[3][b], baseColumns[1][b]);
+                    fleet.addStarbase(base);
+                    base.setFleet(world.getFleetRegistry().nameOf(baseColumns[4][b]));
+                    bases.put(base.getId(), base);
+                }
+            }
+
+            for (int i = 0; i < stores.size(); i++) {
+                restoreShips(world, stores.get(i), dockedBases.get(i), courses.get(i), repairs.get(i), bases);
+            }
+            return world;
+        }
+    }
+
+    private static void restoreShips(World world, ShipStore store, int[] dockedBase, int[][] courses, long[] repairDue, Map<Integer, Starbase> bases)
+            throws IOException {
+        for (int slot = 0; slot < store.size(); slot++) {
+            Starship ship = store.ship(slot);
+            store.setCourse(slot, courses[0][slot], courses[1][slot]);
+            if (dockedBase[slot] != NO_BASE_ID) {
+                Starbase base = bases.get(dockedBase[slot]);
+                if (base == null) {
+                    throw new IOException("ship " + ship.getId() + " is docked at starbase " + dockedBase[slot] + ", which is not in the snapshot");
+                }
+                base.addDocked(ship);
+                store.setDockedBase(slot, base);
+            }
+            if (repairDue[slot] > world.getTurn()) {
+                world.getRepairScheduler().schedule(ship, (int) (repairDue[slot] - world.getTurn()));
+            }
+        }
+    }
+
+    /**
+     * Gets the ship class with the given maxima, reusing the standard class when it matches so its tables are not rebuilt
+     */
+
+    private static ShipStats shipStats(int maxAtkStrength, int maxDefStrength, int maxCrew, int maxHealth) {
+        ShipStats standard = ShipStats.STANDARD;
+        if (standard.maxAtkStrength() == maxAtkStrength && standard.maxDefStrength() == maxDefStrength
+                && standard.maxCrew() == maxCrew && standard.maxHealth() == maxHealth) return standard;
+
+        return new ShipStats(maxAtkStrength, maxDefStrength, maxCrew, maxHealth);
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = buffer(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("world snapshot is truncated");
+        }
+        return buffer;
+    }
+
+    private static long writeInts(FileChannel channel, long position, int[] column) throws IOException {
+        long length = (long) column.length * Integer.BYTES;
+        if (length > 0) map(channel, FileChannel.MapMode.READ_WRITE, position, length).asIntBuffer().put(column);
+        return position + length;
+    }
+
+    private static long writeLongs(FileChannel channel, long position, long[] column) throws IOException {
+        long length = (long) column.length * Long.BYTES;
+        if (length > 0) map(channel, FileChannel.MapMode.READ_WRITE, position, length).asLongBuffer().put(column);
+        return position + length;
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int count) throws IOException {
+        int[] column = new int[count];
+        if (count > 0) map(channel, FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES).asIntBuffer().get(column);
+        return column;
+    }
+
+    private static long[] readLongs(FileChannel channel, long position, int count) throws IOException {
+        long[] column = new long[count];
+        if (count > 0) map(channel, FileChannel.MapMode.READ_ONLY, position, (long) count * Long.BYTES).asLongBuffer().get(column);
+        return column;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long length) throws IOException {
+        if (mode == FileChannel.MapMode.READ_ONLY && position + length > channel.size()) {
+            throw new IOException("world snapshot is truncated");
+        }
+
+        MappedByteBuffer buffer = channel.map(mode, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
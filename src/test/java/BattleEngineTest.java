@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for BattleEngine
+ * @author Oscar Allen
+ */
+public class BattleEngineTest {
+
+    /**
+     * Plays three ticks of a battle between ship classes whose damage depends on the attacker's crew and the target's
+     * health and crew, so any change in the order or grouping of the hits changes the result
+     */
+
+    private static int[] runBattle(ForkJoinPool pool) {
+        World world = new World();
+        Fleet attackers = new Fleet(world, new ShipStats(600, 20, 10, 200), "Attacker", 1, 500);
+        Fleet defenders = new Fleet(world, new ShipStats(600, 20, 10, 20_000), "Defender", 1, 50);
+        BattleEngine engine = new BattleEngine(world, pool);
+
+        Random random = new Random(3);
+        for (Starship ship : attackers.getShips()) {
+            ship.takeDamage(random.nextInt(150));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (Starship target : defenders.getShips()) {
+                engine.order(attackers, target);
+            }
+            engine.order(attackers, defenders.getStarbases().getFirst());
+            engine.order(defenders, attackers.getShips().getFirst());
+            engine.tick();
+        }
+
+        int ships = defenders.getShips().size();
+        int[] state = new int[2 * ships + 2];
+        for (int i = 0; i < ships; i++) {
+            state[2 * i] = defenders.getShips().get(i).getCurrentHealth();
+            state[2 * i + 1] = defenders.getShips().get(i).getCurrentCrew();
+        }
+        state[state.length - 2] = defenders.getStarbases().getFirst().getCurrentHealth();
+        state[state.length - 1] = attackers.getShips().getFirst().getCurrentHealth();
+        return state;
+    }
+
+    @Test
+    public void tickUsesDefenceFromStartOfTick() {
+        World world = new World();
+        // attack 100 against the full-health base's defence of 20; hit by hit the defence would fall to 16 and 13
+        Fleet attackers = new Fleet(world, new ShipStats(1_000, 20, 10, 100), "Attacker", 1, 3);
+        Fleet defenders = new Fleet(world, "Defender", 1, 0);
+        Starbase base = defenders.getStarbases().getFirst();
+        BattleEngine engine = new BattleEngine(world, ForkJoinPool.commonPool());
+
+        engine.order(attackers, base);
+        assertEquals(3, engine.tick());
+
+        assertEquals(500 - 3 * (100 - 20), base.getCurrentHealth());
+        assertEquals(1, engine.getTicks());
+    }
+
+    @Test
+    public void resultDoesNotDependOnParallelism() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+
+        int[] state = runBattle(single);
+        assertArrayEquals(state, runBattle(many));
+        assertTrue(state[0] > 0 && state[0] < 20_000);
+
+        single.shutdown();
+        many.shutdown();
+    }
+
+    @Test
+    public void friendlyOrdersAreIgnored() {
+        Fleet fleet = new Fleet("Attacker", 1, 2);
+        Starship friendly = fleet.getShips().getFirst();
+        BattleEngine engine = new BattleEngine();
+
+        engine.order(fleet, friendly);
+        assertEquals(0, engine.tick());
+        assertEquals(100, friendly.getCurrentHealth());
+    }
+}
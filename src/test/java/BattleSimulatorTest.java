@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for BattleSimulator
+ * @author Oscar Allen
+ */
+public class BattleSimulatorTest {
+
+    @Test
+    public void reportIsReproducibleWhateverTheParallelism() {
+        BattleSimulator.Scenario scenario = new BattleSimulator.Scenario(10, 3, 3, 40, 500);
+
+        SimulationReport single = new BattleSimulator(1).simulate(scenario, 200, 7);
+        SimulationReport many = new BattleSimulator(8).simulate(scenario, 200, 7);
+
+        assertEquals(200, many.getRuns());
+        assertEquals(single.getWins(), many.getWins());
+        assertArrayEquals(single.getRoundsHistogram(), many.getRoundsHistogram());
+        assertArrayEquals(single.getSurvivorsHistogram(), many.getSurvivorsHistogram());
+    }
+
+    @Test
+    public void undefendedStarbaseFallsToAnyFleet() {
+        BattleSimulator.Scenario scenario = new BattleSimulator.Scenario(3, 0, 0, 0, 1000);
+
+        SimulationReport report = new BattleSimulator().simulate(scenario, 50, 1);
+
+        assertEquals(1.0, report.getWinRate());
+        assertEquals(3.0, report.getMeanSurvivors());
+        assertEquals(34, report.getRoundsPercentile(1.0));
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for CombatJournal
+ * @author Oscar Allen
+ */
+public class CombatJournalTest {
+
+    @Test
+    public void hitsAreRecordedAndDecoded(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("combat.journal");
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 2);
+        Fleet defenders = new Fleet(world, "Defender", 1, 1);
+        Starship attacker = attackers.getShips().getFirst();
+        Starship target = defenders.getShips().getFirst();
+        Starbase base = defenders.getStarbases().getFirst();
+
+        try (CombatJournal journal = CombatJournal.create(file)) {
+            world.setJournal(journal);
+            attacker.attack(target);
+            world.advanceTurn();
+            attackers.attackTarget(base);
+            assertEquals(3, journal.size());
+        }
+
+        List<CombatJournalReader.Hit> hits = new ArrayList<>();
+        try (CombatJournalReader reader = new CombatJournalReader(file)) {
+            assertEquals(3, reader.size());
+            reader.forEach(hits::add);
+        }
+
+        CombatJournalReader.Hit first = hits.getFirst();
+        assertEquals(0, first.tick());
+        assertEquals(attacker.getId(), first.attackerId());
+        assertEquals(target.getId(), first.targetId());
+        assertFalse(first.targetIsStarbase());
+        assertEquals(target.getCurrentHealth(), first.resultingHealth());
+        assertEquals(100 - first.damage(), first.resultingHealth());
+
+        CombatJournalReader.Hit last = hits.getLast();
+        assertEquals(1, last.tick());
+        assertTrue(last.targetIsStarbase());
+        assertEquals(base.getId(), last.targetId());
+        assertEquals(base.getCurrentHealth(), last.resultingHealth());
+    }
+
+    @Test
+    public void journalsThatWereNeverClosedCanBeRead(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("crashed.journal");
+        CombatJournal journal = CombatJournal.create(file);
+        for (int i = 1; i <= 3; i++) {
+            journal.record(i, i, 100 + i, CombatJournal.STARSHIP, 5, 100 - 5 * i);
+        }
+        try (CombatJournalReader reader = new CombatJournalReader(file)) {
+            assertEquals(3, reader.size());
+            assertEquals(new CombatJournalReader.Hit(3, 3, 103, false, 5, 85), reader.get(2));
+        }
+
+        journal.flush();
+        journal.record(4, 4, 7, CombatJournal.STARBASE, 9, 491);
+        try (CombatJournalReader reader = new CombatJournalReader(file)) {
+            assertEquals(4, reader.size());
+            assertEquals(new CombatJournalReader.Hit(4, 4, 7, true, 9, 491), reader.get(3));
+        }
+        journal.close();
+    }
+}
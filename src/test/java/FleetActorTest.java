@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for FleetActor
+ * @author Oscar Allen
+ */
+public class FleetActorTest {
+
+    @Test
+    public void concurrentAttacksAreNotLost() throws Exception {
+        World world = new World();
+        Fleet defenders = new Fleet(world, "Defender", 1, 0);
+        List<Fleet> attackers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            attackers.add(new Fleet(world, "Attacker " + i, 1, 10));
+        }
+        FleetActors actors = new FleetActors(world);
+        FleetActor defender = actors.actorOf(defenders);
+        Starbase base = defenders.getStarbases().getFirst();
+
+        List<CompletableFuture<Integer>> attacks = new ArrayList<>();
+        try (ExecutorService players = Executors.newFixedThreadPool(4)) {
+            for (Fleet fleet : attackers) {
+                players.submit(() -> {
+                    for (int i = 0; i < 2; i++) {
+                        CompletableFuture<Integer> attack = actors.actorOf(fleet).attack(defender, base);
+                        synchronized (attacks) {
+                            attacks.add(attack);
+                        }
+                    }
+                });
+            }
+        }
+        CompletableFuture.allOf(attacks.toArray(CompletableFuture[]::new)).get();
+
+        assertEquals(500 - 4 * 10 * 2 * 5, defender.ask(Fleet::getStarbases).get().getFirst().getCurrentHealth());
+    }
+
+    @Test
+    public void concurrentDockingKeepsTheBayConsistent() throws Exception {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player", 1, 50);
+        FleetActor actor = new FleetActors(world).actorOf(fleet);
+        Starbase base = fleet.getStarbases().getFirst();
+
+        List<CompletableFuture<Boolean>> commands = new ArrayList<>();
+        try (ExecutorService players = Executors.newFixedThreadPool(4)) {
+            for (int p = 0; p < 4; p++) {
+                int player = p;
+                players.submit(() -> {
+                    for (int i = player; i < 50; i += 4) {
+                        Starship ship = fleet.getShips().get(i);
+                        synchronized (commands) {
+                            commands.add(actor.dock(ship, base));
+                            if (i % 3 == 0) commands.add(actor.undock(ship));
+                        }
+                    }
+                });
+            }
+        }
+        CompletableFuture.allOf(commands.toArray(CompletableFuture[]::new)).get();
+
+        int docked = actor.ask(f -> (int) f.getShips().stream().filter(Starship::isDocked).count()).get();
+        assertEquals(50 - 17, docked);
+        assertEquals(docked, base.getDockedShips().size());
+        int dockedDefence = fleet.getShips().stream().filter(Starship::isDocked).mapToInt(Starship::getCurrentDefence).sum();
+        assertEquals((int) Math.floor(20 + (double) dockedDefence * docked / 20), base.getCurrentDefence());
+    }
+
+    @Test
+    public void repairsFinishThroughTheWorldMailbox() throws Exception {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player", 1, 1);
+        Fleet enemy = new Fleet(world, "Enemy", 1, 3);
+        FleetActors actors = new FleetActors(world);
+        FleetActor actor = actors.actorOf(fleet);
+        Starship ship = fleet.getShips().getFirst();
+
+        actors.actorOf(enemy).attack(actor, ship).get();
+        assertTrue(actor.dock(ship, fleet.getStarbases().getFirst()).get());
+        assertTrue(actor.repair(ship).get());
+        assertTrue(actor.ask(f -> ship.isUnderRepair()).get());
+
+        assertEquals(1L, actors.endTurn().get());
+        assertFalse(actor.ask(f -> ship.isUnderRepair()).get());
+        assertTrue(actor.undock(ship).get());
+        assertEquals(100, ship.getCurrentHealth());
+    }
+
+    @Test
+    public void commandsOnOtherFleetsShipsFail() throws IOException {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player", 1, 1);
+        Fleet other = new Fleet(world, "Other", 1, 1);
+        FleetActors actors = new FleetActors(world);
+
+        CompletableFuture<Boolean> dock = actors.actorOf(fleet).dock(other.getShips().getFirst(), other.getStarbases().getFirst());
+        ExecutionException e = assertThrows(ExecutionException.class, dock::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertThrows(ExecutionException.class, () -> actors.actorOf(fleet).attack(actors.actorOf(fleet), other.getShips().getFirst()).get());
+
+        Path file = Files.createTempFile("actors", ".journal");
+        try (CombatJournal journal = CombatJournal.create(file)) {
+            world.setJournal(journal);
+            assertThrows(IllegalStateException.class, () -> new FleetActors(world));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void volleysMissTargetsThatMovedAway() throws Exception {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player", 1, 1);
+        Fleet enemy = new Fleet(world, "Enemy", 1, 3);
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        FleetActors actors = new FleetActors(world, tasks::add);
+        FleetActor actor = actors.actorOf(fleet);
+        Starship ship = fleet.getShips().getFirst();
+
+        CompletableFuture<Integer> attack = actors.actorOf(enemy).attack(actor, ship);
+        tasks.poll().run();
+        // the target leaves while the enemy works out its volley
+        CompletableFuture<Void> move = actor.moveSector(ship, 2);
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+
+        assertTrue(move.isDone());
+        assertEquals(100, attack.get());
+        assertEquals(100, ship.getCurrentHealth());
+        assertEquals(2, ship.getSector());
+    }
+
+    @Test
+    public void mailboxesKeepRunningAfterAMessageFails() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Mailbox mailbox = new Mailbox(tasks::add);
+        mailbox.tell(() -> {
+            throw new IllegalStateException("dropped");
+        });
+        CompletableFuture<Integer> failed = mailbox.ask(() -> {
+            throw new AssertionError("reported");
+        });
+        assertThrows(AssertionError.class, () -> tasks.poll().run());
+        assertTrue(failed.isCompletedExceptionally());
+
+        CompletableFuture<Integer> answer = mailbox.ask(() -> 42);
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+        assertEquals(42, answer.join());
+    }
+}
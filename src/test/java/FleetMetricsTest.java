@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for FleetMetrics
+ * @author Oscar Allen
+ */
+public class FleetMetricsTest {
+
+    @Test
+    public void fleetActionsAreCountedAndPublished() throws JMException {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 3);
+        Fleet defenders = new Fleet(world, "Defender", 2, 2);
+        GameMetrics metrics = world.enableMetrics("metrics-test");
+
+        attackers.mobilise(2);
+        attackers.mobilise(2);
+        Starship target = defenders.getShips().getFirst();
+        while (!target.isDestroyed()) {
+            attackers.attackTarget(target);
+        }
+        Starship ship = defenders.getShips().getLast();
+        ship.dockWithStarbase(defenders.getStarbases().getFirst());
+        ship.repair();
+        world.advanceTurn();
+        ship.unDockWithStarbase();
+
+        FleetMetrics attacking = metrics.fleet(attackers.getFleetId());
+        FleetMetrics defending = metrics.fleet(defenders.getFleetId());
+        assertEquals(3, attacking.getSectorMoves());
+        assertEquals(2, attacking.getMobiliseCalls());
+        assertTrue(attacking.getAttackTargetCalls() > 0);
+        assertEquals(3 * attacking.getAttackTargetCalls(), attacking.getAttacks());
+        assertEquals(100, attacking.getDamageDealt(), 20);
+        assertEquals(1, defending.getShipsDestroyed());
+        assertEquals(1, defending.getDocks());
+        assertEquals(1, defending.getUndocks());
+        assertEquals(1, defending.getRepairs());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.objectName("Attacker");
+        assertEquals(attacking.getAttacks(), server.getAttribute(name, "Attacks"));
+        assertEquals(2L, server.getAttribute(name, "MobiliseCalls"));
+
+        world.disableMetrics();
+        assertFalse(server.isRegistered(name));
+        attackers.mobilise(1);
+        assertEquals(3, attacking.getSectorMoves());
+    }
+
+    @Test
+    public void nothingIsCountedUntilMetricsAreEnabled() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player", 1, 2);
+        fleet.mobilise(2);
+        assertNull(world.getMetrics());
+
+        GameMetrics metrics = world.enableMetrics("metrics-test-disabled");
+        try {
+            assertEquals(0, metrics.fleet(fleet.getFleetId()).getSectorMoves());
+            assertNull(metrics.fleet(FleetRegistry.NO_FLEET));
+        } finally {
+            world.disableMetrics();
+        }
+    }
+
+    @Test
+    public void everyFleetIsPublishedBeforeAnythingIsCounted() throws JMException {
+        FleetRegistry registry = new FleetRegistry();
+        for (int i = 0; i < 50; i++) {
+            registry.register("Fleet " + i);
+        }
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName published = new ObjectName(GameMetrics.DOMAIN + ":type=FleetMetrics,*");
+        try (GameMetrics metrics = new GameMetrics("metrics-test-eager", registry, server)) {
+            assertEquals(50, server.queryNames(published, null).size());
+            assertEquals("Fleet 49", metrics.fleet(49).getFleetName());
+
+            int late = registry.register("Late");
+            assertNull(metrics.fleet(late));
+            metrics.publishRegistered();
+            assertSame(metrics.fleet(late), metrics.fleet(late));
+            assertEquals(51, server.queryNames(published, null).size());
+
+            assertThrows(IllegalStateException.class, () -> new GameMetrics("metrics-test-eager", new FleetRegistry(), server));
+            assertEquals(51, server.queryNames(published, null).size());
+        }
+        assertEquals(0, server.queryNames(published, null).size());
+    }
+
+    @Test
+    public void worldsCannotShareAMetricsName() {
+        World world = new World();
+        new Fleet(world, "Attacker", 1, 2);
+        World other = new World();
+        Fleet attackers = new Fleet(other, "Attacker", 1, 2);
+        Fleet defenders = new Fleet(other, "Defender", 1, 2);
+
+        GameMetrics metrics = world.enableMetrics("metrics-test-shared");
+        try {
+            assertThrows(IllegalStateException.class, () -> other.enableMetrics("metrics-test-shared"));
+            assertNull(other.getMetrics());
+            attackers.attackTarget(defenders.getShips().getFirst());
+
+            Fleet late = new Fleet(world, "Late", 2, 1);
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.objectName("Late")));
+            late.mobilise(1);
+            assertEquals(1, metrics.fleet(late.getFleetId()).getSectorMoves());
+        } finally {
+            world.disableMetrics();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for Fleet's live aggregates and the compaction of destroyed ships
+ * @author Oscar Allen
+ */
+public class FleetTest {
+
+    /**
+     * Checks the Fleet's aggregates against a walk over every ship in it
+     */
+
+    private static void assertAggregatesMatchWalk(Fleet fleet) {
+        int live = 0;
+        long health = 0;
+        Map<Integer, Long> strength = new HashMap<>();
+        for (Starship ship : fleet.getShips()) {
+            health += ship.getCurrentHealth();
+            if (ship.isDestroyed()) continue;
+
+            live++;
+            strength.merge(ship.getSector(), (long) ship.getCurrentAtkStrength(), Long::sum);
+        }
+        assertEquals(live, fleet.getLiveShipCount());
+        assertEquals(health, fleet.getTotalHealth());
+        for (int sector = 0; sector <= 4; sector++) {
+            assertEquals(strength.getOrDefault(sector, 0L), fleet.getStrengthInSector(sector));
+        }
+    }
+
+    @Test
+    public void aggregatesFollowDamageRepairMovesAndDestruction() {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 40);
+        Fleet defenders = new Fleet(world, "Defender", 2, 40);
+        Starbase base = defenders.getStarbases().getFirst();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 500; step++) {
+            Starship ship = defenders.getShips().get(random.nextInt(40));
+            switch (random.nextInt(6)) {
+                case 0 -> ship.takeDamage(random.nextInt(60));
+                case 1 -> ship.moveSector(1 + random.nextInt(3));
+                case 2 -> {
+                    ship.moveSector(base.getSector());
+                    ship.dockWithStarbase(base);
+                    ship.repair();
+                }
+                case 3 -> ship.unDockWithStarbase();
+                case 4 -> attackers.attackTarget(ship);
+                default -> {
+                    attackers.mobilise(1 + random.nextInt(3));
+                    world.advanceTurn();
+                }
+            }
+            assertAggregatesMatchWalk(attackers);
+            assertAggregatesMatchWalk(defenders);
+        }
+
+        attackers.addShip(defenders.getShips().get(5));
+        assertAggregatesMatchWalk(attackers);
+        assertAggregatesMatchWalk(defenders);
+    }
+
+    @Test
+    public void destroyedShipsAreDroppedFromTheLiveList() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Fleet", 1, 100);
+        Starbase base = fleet.getStarbases().getFirst();
+        ShipStore store = fleet.getStore();
+        Starship wreck = fleet.getShips().get(3);
+
+        wreck.dockWithStarbase(base);
+        for (int i = 0; i < 40; i++) {
+            fleet.getShips().get(i).takeDamage(100);
+        }
+        fleet.mobilise(2);
+        assertEquals(100, store.listed());
+        assertEquals(1, wreck.getSector());
+
+        for (int i = 40; i < 60; i++) {
+            fleet.getShips().get(i).takeDamage(100);
+        }
+        fleet.mobilise(3);
+        assertEquals(40, store.listed());
+        assertEquals(2, fleet.getShips().get(50).getSector());
+        assertEquals(3, fleet.getShips().get(60).getSector());
+
+        wreck.repair();
+        assertEquals(41, store.listed());
+        assertEquals(41, fleet.getLiveShipCount());
+        for (int turn = 0; turn < 4; turn++) {
+            world.advanceTurn();
+        }
+        wreck.unDockWithStarbase();
+        fleet.mobilise(4);
+        assertEquals(4, wreck.getSector());
+        assertEquals(2, fleet.getShips().get(50).getSector());
+        assertAggregatesMatchWalk(fleet);
+    }
+
+    /**
+     * Sets up a Fleet of ships with different crews, some of which have left the target's sector and come back, so the
+     * sector's targets are no longer in fleet order
+     */
+
+    private static Fleet scrambledFleet(World world, ShipStats stats) {
+        Fleet fleet = new Fleet(world, stats, "Attacker", 1, 6);
+        List<Starship> ships = fleet.getShips();
+        for (int i = 0; i < ships.size(); i++) {
+            ships.get(i).takeDamage(i * 20);
+        }
+        ships.get(0).moveSector(2);
+        ships.get(2).moveSector(2);
+        ships.get(0).moveSector(1);
+        ships.get(2).moveSector(1);
+        return fleet;
+    }
+
+    @Test
+    public void shipsAttackInFleetOrder() {
+        // damage depends on the attacker's crew and the target's health and crew, so the order of the hits matters
+        ShipStats stats = new ShipStats(600, 20, 10, 200);
+        World fleetWorld = new World();
+        Fleet fleet = scrambledFleet(fleetWorld, stats);
+        Starship target = new Fleet(fleetWorld, stats, "Defender", 1, 1).getShips().getFirst();
+        assertNotEquals(new ArrayList<Targetable>(fleet.getShips()), fleet.getTargetsInSector(1));
+
+        World shipWorld = new World();
+        Fleet ships = scrambledFleet(shipWorld, stats);
+        Starship shipTarget = new Fleet(shipWorld, stats, "Defender", 1, 1).getShips().getFirst();
+
+        fleet.attackTarget(target);
+        for (Starship ship : ships.getShips()) {
+            ship.attack(shipTarget);
+        }
+        assertEquals(shipTarget.getCurrentHealth(), target.getCurrentHealth());
+        assertEquals(shipTarget.getCurrentCrew(), target.getCurrentCrew());
+        assertEquals(160, target.getCurrentHealth());
+    }
+
+    @Test
+    public void targetsFromAnotherWorldAreRejected() {
+        // both fleets get id 0 in their own World, so comparing ids would call them friends
+        Fleet attackers = new Fleet(new World(), "Attacker", 1, 2);
+        Fleet strangers = new Fleet(new World(), "Stranger", 1, 2);
+        Starship attacker = attackers.getShips().getFirst();
+        Starship target = strangers.getShips().getFirst();
+        Starbase base = strangers.getStarbases().getFirst();
+        assertEquals(attackers.getFleetId(), strangers.getFleetId());
+
+        assertThrows(IllegalArgumentException.class, () -> attacker.attack(target));
+        assertThrows(IllegalArgumentException.class, () -> attackers.attackTarget(base));
+        assertThrows(IllegalArgumentException.class, () -> attacker.dockWithStarbase(base));
+        assertThrows(IllegalArgumentException.class, () -> attackers.fastForward(base, 1));
+        try (OffHeapStore store = OffHeapStore.allocate(new World(), ShipStats.STANDARD, 1, 0)) {
+            store.addShips("Attacker", 1, 1);
+            assertThrows(IllegalArgumentException.class, () -> store.attack("Attacker", target));
+        }
+        assertEquals(100, target.getCurrentHealth());
+        assertEquals(500, base.getCurrentHealth());
+    }
+
+    @Test
+    public void theDefaultWorldDoesNotKeepItsFleets() {
+        Fleet fleet = new Fleet("Fleet", 1, 2);
+        assertSame(World.DEFAULT, fleet.getStore().getWorld());
+        assertTrue(World.DEFAULT.getFleets().isEmpty());
+        assertThrows(IllegalStateException.class, World.DEFAULT::checkpoint);
+        assertThrows(IllegalStateException.class, () -> World.DEFAULT.setTargetSelector(new TargetSelector(TargetSelector.Priority.WEAKEST)));
+        assertEquals(2, fleet.getLiveShipCount());
+    }
+
+    @Test
+    public void worldResetRestoresTheAggregates() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Fleet", 1, 20);
+        world.checkpoint();
+        for (int i = 0; i < 15; i++) {
+            fleet.getShips().get(i).takeDamage(100);
+        }
+        fleet.mobilise(2);
+
+        world.reset();
+        assertEquals(20, fleet.getLiveShipCount());
+        assertEquals(20 * ShipStats.STANDARD.maxHealth(), fleet.getTotalHealth());
+        assertEquals(0, fleet.getStrengthInSector(2));
+        assertAggregatesMatchWalk(fleet);
+        fleet.mobilise(2);
+        assertEquals(20, fleet.getStore().listed());
+    }
+
+    @Test
+    public void concurrentDamageKeepsTheAggregates() throws Exception {
+        World world = new World();
+        world.setConcurrentCombat(true);
+        Fleet fleet = new Fleet(world, "Fleet", 1, 8);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> hits = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                hits.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        fleet.getShips().get(i % 8).takeDamage(1);
+                    }
+                }));
+            }
+            for (Future<?> hit : hits) {
+                hit.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertAggregatesMatchWalk(fleet);
+        assertEquals(0, fleet.getLiveShipCount());
+    }
+
+    @Test
+    public void fleetsCanAttackEachOtherFromManyThreads() throws Exception {
+        World world = new World();
+        world.setConcurrentCombat(true);
+        ShipStats stats = new ShipStats(300, 10, 1_000, 1_000);
+        Fleet red = new Fleet(world, stats, "Red", 1, 60);
+        Fleet blue = new Fleet(world, stats, "Blue", 1, 60);
+        // the first ten ships of each side are docked, so they do not fire but are destroyed while the others do
+        for (Fleet fleet : List.of(red, blue)) {
+            for (int i = 0; i < 10; i++) {
+                fleet.getShips().get(i).dockWithStarbase(fleet.getStarbases().getFirst());
+            }
+        }
+        GameMetrics metrics = world.enableMetrics("fleet-test-concurrent");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> attacks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Fleet attacker = t % 2 == 0 ? red : blue;
+                Fleet defender = t % 2 == 0 ? blue : red;
+                int offset = t;
+                attacks.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        attacker.attackTarget(defender.getShips().get((i + offset) % 10));
+                    }
+                }));
+            }
+            for (Future<?> attack : attacks) {
+                attack.get();
+            }
+        } finally {
+            pool.shutdown();
+            world.disableMetrics();
+        }
+
+        for (Fleet fleet : List.of(red, blue)) {
+            // every attack is made by the same 50 undocked ships, however the other side's attacks interleave with it
+            assertEquals(4 * 1_000 * 50, metrics.fleet(fleet.getFleetId()).getAttacks());
+            assertEquals(50, fleet.getLiveShipCount());
+            assertAggregatesMatchWalk(fleet);
+            assertEquals(50, fleet.getTargetsInSector(1).stream().filter(t -> t instanceof Starship).count());
+        }
+    }
+}
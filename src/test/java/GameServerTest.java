@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for GameServer
+ * @author Oscar Allen
+ */
+public class GameServerTest {
+
+    @Test
+    public void commandsArePlayedInTheMatchesWorld() throws IOException {
+        try (GameServer server = new GameServer(0);
+             GameClient client = new GameClient("localhost", server.getPort())) {
+            int match = client.createMatch(3);
+            int other = client.createMatch(3);
+            assertNotEquals(match, other);
+            assertEquals(2, server.getMatchCount());
+
+            client.mobilise(match, 0, 2);
+            assertEquals(500 - 3 * 5, client.attack(match, 0, 1, GameProtocol.STARBASE));
+            assertEquals(500, client.attack(other, 0, 1, GameProtocol.STARBASE));
+
+            assertTrue(client.dock(match, 1, 0));
+            assertTrue(client.repair(match, 1, 0));
+            assertFalse(client.undock(match, 1, 0));
+            assertEquals(1, client.endTurn(match));
+            assertTrue(client.undock(match, 1, 0));
+
+            client.closeMatch(other);
+            assertEquals(1, server.getMatchCount());
+            assertThrows(IOException.class, () -> client.endTurn(other));
+            assertThrows(IOException.class, () -> client.dock(match, 1, 99));
+            assertThrows(IOException.class, () -> client.mobilise(match, 2, 1));
+            assertEquals(2, client.endTurn(match));
+        }
+    }
+
+    @Test
+    public void badFramesAreRejected() throws IOException {
+        try (GameServer server = new GameServer(0);
+             SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+            ByteBuffer request = ByteBuffer.allocate(GameProtocol.MAX_REQUEST_SIZE);
+            ByteBuffer response = ByteBuffer.allocate(GameProtocol.RESPONSE_SIZE);
+
+            GameProtocol.putRequest(request, (byte) 42, 1);
+            GameProtocol.writeFully(channel, request);
+            assertTrue(GameProtocol.readFully(channel, response));
+            assertEquals(GameProtocol.BAD_COMMAND, response.get(0));
+
+            GameProtocol.putRequest(request, GameProtocol.MOBILISE, 1);
+            GameProtocol.writeFully(channel, request);
+            response.clear();
+            assertTrue(GameProtocol.readFully(channel, response));
+            assertEquals(GameProtocol.BAD_COMMAND, response.get(0));
+        }
+    }
+
+    @Test
+    public void oversizedMatchesAreRejected() throws IOException {
+        try (GameServer server = new GameServer(0);
+             GameClient client = new GameClient("localhost", server.getPort())) {
+            assertThrows(IOException.class, () -> client.createMatch(Integer.MAX_VALUE));
+            assertThrows(IOException.class, () -> client.createMatch(GameProtocol.MAX_SHIPS_PER_FLEET + 1));
+            assertThrows(IOException.class, () -> client.createMatch(-1));
+            assertEquals(0, server.getMatchCount());
+
+            int match = client.createMatch(1);
+            assertEquals(1, server.getMatchCount());
+            assertEquals(1, client.endTurn(match));
+        }
+    }
+
+    @Test
+    public void matchesAreDroppedWhenTheirConnectionCloses() throws IOException, InterruptedException {
+        try (GameServer server = new GameServer(0)) {
+            try (GameClient client = new GameClient("localhost", server.getPort())) {
+                client.createMatch(2);
+                int closed = client.createMatch(2);
+                client.closeMatch(closed);
+            }
+            try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+                ByteBuffer request = ByteBuffer.allocate(GameProtocol.MAX_REQUEST_SIZE);
+                ByteBuffer response = ByteBuffer.allocate(GameProtocol.RESPONSE_SIZE);
+                GameProtocol.putRequest(request, GameProtocol.CREATE_MATCH, 2);
+                GameProtocol.writeFully(channel, request);
+                assertTrue(GameProtocol.readFully(channel, response));
+                assertEquals(GameProtocol.OK, response.get(0));
+
+                // the connection ends after the length byte of a frame
+                GameProtocol.putRequest(request, GameProtocol.END_TURN, response.getInt(1));
+                request.limit(1);
+                GameProtocol.writeFully(channel, request);
+            }
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getMatchCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, server.getMatchCount());
+        }
+    }
+
+    @Test
+    public void loadTestPlaysManyMatchesAtOnce() throws IOException, InterruptedException {
+        try (GameServer server = new GameServer(0)) {
+            LoadTestClient.Result result = new LoadTestClient("localhost", server.getPort()).run(50, 200);
+            assertTrue(result.commands() >= 50 * 5);
+            assertEquals(result.commands(), result.latency().getCount());
+            assertEquals(0, server.getMatchCount());
+        }
+    }
+}
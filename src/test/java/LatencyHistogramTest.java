@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for LatencyHistogram
+ * @author Oscar Allen
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinThreePercent() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            long lower = LatencyHistogram.lowerBound(bucket);
+            assertTrue(lower <= value, "value " + value);
+            assertTrue(value - lower <= value / 32, "value " + value);
+            if (bucket > 0) assertTrue(LatencyHistogram.lowerBound(bucket - 1) < lower);
+        }
+    }
+
+    @Test
+    public void percentilesComeFromTheRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        histogram.record(-5);
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 / 32.0);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 / 32.0);
+        assertEquals(1_000_000, histogram.getPercentile(100));
+        assertEquals(0, histogram.getPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+}
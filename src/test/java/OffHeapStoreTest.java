@@ -0,0 +1,192 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for OffHeapStore, OffHeapStarship and OffHeapStarbase
+ * @author Oscar Allen
+ */
+public class OffHeapStoreTest {
+
+    @Test
+    public void battleMatchesTheSameBattleOnTheHeap() {
+        World heapWorld = new World();
+        Fleet attackers = new Fleet(heapWorld, "Attacker", 1, 6);
+        Fleet defenders = new Fleet(heapWorld, "Defender", 2, 3);
+        Starship heapDocked = defenders.getShips().get(2);
+        heapDocked.dockWithStarbase(defenders.getStarbases().getFirst());
+
+        World world = new World();
+        try (OffHeapStore store = OffHeapStore.allocate(world, ShipStats.STANDARD, 16, 2)) {
+            store.addShips("Attacker", 1, 6);
+            long firstDefender = store.addShips("Defender", 2, 3);
+            OffHeapStarbase base = store.starbase(store.addStarbase("Defender", 2, Integer.MAX_VALUE));
+            assertTrue(store.ship(firstDefender + 2).dockWithStarbase(base));
+
+            attackers.mobilise(2);
+            assertEquals(6, store.mobilise("Attacker", 2));
+            for (int round = 0; round < 8; round++) {
+                attackers.attackTarget(defenders.getShips().getFirst());
+                attackers.attackTarget(defenders.getStarbases().getFirst());
+                store.attack("Attacker", store.ship(firstDefender));
+                store.attack("Attacker", base);
+            }
+
+            Starship heapTarget = defenders.getShips().getFirst();
+            OffHeapStarship target = store.ship(firstDefender);
+            assertEquals(heapTarget.getCurrentHealth(), target.getCurrentHealth());
+            assertEquals(heapTarget.getCurrentCrew(), target.getCurrentCrew());
+            assertEquals(heapTarget.getCurrentDefence(), target.getCurrentDefence());
+
+            Starbase heapBase = defenders.getStarbases().getFirst();
+            assertEquals(heapBase.getCurrentHealth(), base.getCurrentHealth());
+            assertEquals(heapBase.getCurrentDefence(), base.getCurrentDefence());
+            assertEquals(0, store.attack("Defender", base));
+        }
+    }
+
+    @Test
+    public void dockedShipsAddToTheStarbaseDefence() {
+        World world = new World();
+        try (OffHeapStore store = OffHeapStore.allocate(world, ShipStats.STANDARD, 4, 1)) {
+            long first = store.addShips("Defender", 1, 3);
+            store.addShips("Other", 1, 1);
+            OffHeapStarbase base = store.starbase(store.addStarbase("Defender", 1, 2));
+            OffHeapStarship ship = store.ship(first);
+
+            assertTrue(ship.dockWithStarbase(base));
+            assertTrue(store.ship(first + 1).dockWithStarbase(base));
+            assertFalse(store.ship(first + 2).dockWithStarbase(base));
+            assertFalse(store.ship(3).dockWithStarbase(base));
+            assertEquals(20, base.getTotalDockedDefence());
+            assertEquals(22, base.getCurrentDefence());
+
+            ship.takeDamage(60);
+            assertEquals(ship.getCurrentDefence() + 10, base.getTotalDockedDefence());
+            ship.moveSector(2);
+            assertEquals(1, ship.getSector());
+
+            ship.unDockWithStarbase();
+            assertEquals(10, base.getTotalDockedDefence());
+            assertEquals(1, base.getDockedShips());
+            assertEquals(2, store.mobilise("Defender", 2));
+        }
+    }
+
+    @Test
+    public void mappedStoreCanBeOpenedInAnotherWorld(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ships.bin");
+        World world = new World();
+        long target;
+        int health;
+        try (OffHeapStore store = OffHeapStore.create(world, ShipStats.STANDARD, file, 8, 1)) {
+            store.addShips("Attacker", 1, 3);
+            target = store.addShips("Defender", 1, 2);
+            store.addStarbase("Defender", 1, 4);
+            store.attack("Attacker", store.ship(target));
+            health = store.ship(target).getCurrentHealth();
+            assertTrue(store.isMapped());
+        }
+
+        World other = new World();
+        other.getFleetRegistry().register("Defender");
+        other.getFleetRegistry().register("Local");
+        try (OffHeapStore store = OffHeapStore.open(other, file)) {
+            assertEquals(5, store.getShipCount());
+            assertEquals(8, store.getShipCapacity());
+            assertEquals(health, store.ship(target).getCurrentHealth());
+            assertEquals("Defender", store.ship(target).getFleet());
+            assertEquals("Attacker", store.ship(0).getFleet());
+            assertEquals("Defender", store.starbase(0).getFleet());
+            assertEquals(ShipStats.STANDARD.maxHealth(), store.getStats().maxHealth());
+
+            assertEquals(6, store.addShips("Attacker", 1, 1) + 1);
+            assertEquals(6, store.ship(5).getId());
+            assertEquals(7, other.nextShipId());
+            assertEquals(2, other.nextStarbaseId());
+        }
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> OffHeapStore.open(new World(), file));
+    }
+
+    @Test
+    public void concurrentHitsAreNotLost() throws Exception {
+        World world = new World();
+        world.setConcurrentCombat(true);
+        ShipStats tough = new ShipStats(30, 10, 10, 1_000_000);
+        try (OffHeapStore store = OffHeapStore.allocate(world, tough, 1, 1)) {
+            OffHeapStarship ship = store.ship(store.addShips("Target", 1, 1));
+            OffHeapStarbase base = store.starbase(store.addStarbase("Target", 1, 1));
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> hits = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    hits.add(pool.submit(() -> {
+                        for (int i = 0; i < 10_000; i++) {
+                            ship.takeDamage(1);
+                            if (i < 100) base.takeDamage(1);
+                        }
+                    }));
+                }
+                for (Future<?> hit : hits) {
+                    hit.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(1_000_000 - 40_000, ship.getCurrentHealth());
+            assertEquals(Starbase.MAX_HEALTH - 400, base.getCurrentHealth());
+        }
+    }
+
+    @Test
+    public void destroyedShipsStayPut() {
+        try (OffHeapStore store = OffHeapStore.allocate(new World(), ShipStats.STANDARD, 4, 2)) {
+            long first = store.addShips("Defender", 1, 3);
+            OffHeapStarbase base = store.starbase(store.addStarbase("Defender", 1, Integer.MAX_VALUE));
+            OffHeapStarbase ruin = store.starbase(store.addStarbase("Defender", 1, Integer.MAX_VALUE));
+            store.ship(first).takeDamage(Integer.MAX_VALUE);
+            ruin.takeDamage(Integer.MAX_VALUE);
+
+            assertFalse(store.ship(first).dockWithStarbase(base));
+            assertFalse(store.ship(first + 1).dockWithStarbase(ruin));
+            assertEquals(0, ruin.getDockedShips());
+
+            assertEquals(2, store.mobilise("Defender", 2));
+            assertEquals(1, store.ship(first).getSector());
+            assertEquals(2, store.ship(first + 1).getSector());
+        }
+    }
+
+    @Test
+    public void unknownFleetsAreRejected() {
+        World world = new World();
+        try (OffHeapStore store = OffHeapStore.allocate(world, ShipStats.STANDARD, 2, 0)) {
+            OffHeapStarship target = store.ship(store.addShips("Defender", 1, 1));
+
+            assertThrows(IllegalArgumentException.class, () -> store.mobilise("Atacker", 1));
+            assertThrows(IllegalArgumentException.class, () -> store.attack("Atacker", target));
+            assertEquals(1, world.getFleetRegistry().size());
+        }
+    }
+
+    @Test
+    public void storeIsLimitedToItsCapacity() {
+        try (OffHeapStore store = OffHeapStore.allocate(new World(), ShipStats.STANDARD, 2, 0)) {
+            store.addShips("Fleet", 1, 2);
+            assertThrows(IllegalStateException.class, () -> store.addShips("Fleet", 1, 1));
+            assertThrows(IllegalStateException.class, () -> store.addStarbase("Fleet", 1, 1));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.ship(2));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for RepairScheduler
+ * @author Oscar Allen
+ */
+public class RepairSchedulerTest {
+
+    @Test
+    public void repairFinishesAfterItsTurns() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Defender", 1, 1);
+        Starship ship = fleet.getShips().getFirst();
+        Starbase base = fleet.getStarbases().getFirst();
+
+        ship.takeDamage(80);
+        ship.dockWithStarbase(base);
+        ship.repair();
+        assertTrue(ship.isUnderRepair());
+
+        for (int turn = 1; turn < 4; turn++) {
+            assertEquals(0, world.advanceTurn());
+            ship.unDockWithStarbase();
+            assertTrue(ship.isUnderRepair());
+            assertTrue(ship.isDocked());
+        }
+
+        assertEquals(1, world.advanceTurn());
+        assertFalse(ship.isUnderRepair());
+        ship.unDockWithStarbase();
+        assertFalse(ship.isDocked());
+    }
+
+    @Test
+    public void reschedulingReplacesTheEarlierRepair() {
+        World world = new World();
+        Starship ship = new Starship(new ShipStore(world, 1), 1);
+        RepairScheduler scheduler = world.getRepairScheduler();
+
+        scheduler.schedule(ship, 1);
+        scheduler.schedule(ship, 100);
+        assertEquals(1, scheduler.size());
+
+        for (int turn = 1; turn < 100; turn++) {
+            assertEquals(0, scheduler.advance());
+        }
+        assertEquals(1, scheduler.advance());
+        assertFalse(scheduler.isRepairing(ship));
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for ScriptRunner
+ * @author Oscar Allen
+ */
+public class ScriptRunnerTest {
+
+    private static InputStream script(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void scriptMatchesTheSameCommandsInJava() throws IOException {
+        World world = new World();
+        ScriptRunner runner = new ScriptRunner(world);
+        ScriptRunner.Result result = runner.run(script("""
+                # two fleets meet in sector 2
+                fleet Attacker 1 3
+                fleet Defender 2 2
+
+                mobilise Attacker 2
+                attack Attacker Defender 0
+                fire Attacker 1 Defender base
+                dock Defender 1
+                move Attacker 2 3
+                undock Defender 1
+                repair Defender 0
+                turn
+                """));
+
+        World expectedWorld = new World();
+        Fleet attacker = new Fleet(expectedWorld, "Attacker", 1, 3);
+        Fleet defender = new Fleet(expectedWorld, "Defender", 2, 2);
+        attacker.mobilise(2);
+        attacker.attackTarget(defender.getShips().get(0));
+        attacker.getShips().get(1).attack(defender.getStarbases().getFirst());
+        defender.getShips().get(1).dockWithStarbase(defender.getStarbases().getFirst());
+        attacker.getShips().get(2).moveSector(3);
+        defender.getShips().get(1).unDockWithStarbase();
+        defender.getShips().get(0).repair();
+        expectedWorld.advanceTurn();
+
+        assertEquals(10, result.commands());
+        assertEquals(attacker.toString(), runner.getFleet("Attacker").toString());
+        assertEquals(defender.toString(), runner.getFleet("Defender").toString());
+        assertEquals(expectedWorld.getTurn(), world.getTurn());
+        assertNull(runner.getFleet("Nobody"));
+    }
+
+    @Test
+    public void linesAreReadAcrossBufferBoundaries() throws IOException {
+        StringBuilder text = new StringBuilder("fleet Attacker 1 1\r\nfleet Defender 1 0\r\n");
+        int attacks = 20_000;
+        for (int i = 0; i < attacks; i++) {
+            text.append("attack\tAttacker   Defender base\r\n");
+        }
+        text.append("turn");
+
+        ScriptRunner runner = new ScriptRunner(new World());
+        ScriptRunner.Result result = runner.run(script(text.toString()));
+
+        assertEquals(attacks + 3, result.commands());
+        assertEquals(text.length(), result.bytes());
+        Starbase base = runner.getFleet("Defender").getStarbases().getFirst();
+        assertTrue(base.getCurrentHealth() < base.getMaxHealth());
+    }
+
+    @Test
+    public void invalidLinesReportTheirLineNumber() {
+        assertError("line 2: unknown command 'launch'", "fleet A 1 1\nlaunch A\n");
+        assertError("line 1: unknown fleet 'B'", "mobilise B 2\n");
+        assertError("line 2: fleet 'A' has no ship 5", "fleet A 1 1\nrepair A 5\n");
+        assertError("line 2: 'x' is not a number", "fleet A 1 1\nmobilise A x\n");
+        assertError("line 1: 'mobilise' takes 2 arguments", "mobilise A 2 3\n");
+        assertError("line 2: fleet 'A' already exists", "fleet A 1 1\nfleet A 2 2\n");
+        assertError("line 1 is longer than 65536 bytes", "#" + "x".repeat(1 << 16));
+    }
+
+    private static void assertError(String message, String text) {
+        IOException e = assertThrows(IOException.class, () -> new ScriptRunner(new World()).run(script(text)));
+        assertEquals(message, e.getMessage());
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for SectorGraph and travel along it
+ * @author Oscar Allen
+ */
+public class SectorGraphTest {
+
+    /**
+     * 1 -1- 2 -1- 3 -1- 4, with a slow direct link 1 -5- 4 and 5 on its own
+     */
+
+    private static SectorGraph line() {
+        SectorGraph graph = new SectorGraph();
+        graph.connect(1, 2, 1);
+        graph.connect(2, 3, 1);
+        graph.connect(3, 4, 1);
+        graph.connect(1, 4, 5);
+        graph.connect(5, 6, 1);
+        return graph;
+    }
+
+    @Test
+    public void quickestRouteIsFollowed() {
+        SectorGraph graph = line();
+
+        assertEquals(2, graph.nextHop(1, 4));
+        assertEquals(3, graph.travelTurns(1, 4));
+        assertEquals(3, graph.nextHop(4, 1));
+        assertEquals(5, graph.hopTurns(4, 1));
+        assertEquals(1, graph.nextHop(1, 1));
+        assertEquals(0, graph.travelTurns(1, 1));
+
+        assertEquals(SectorGraph.NO_ROUTE, graph.nextHop(1, 5));
+        assertEquals(SectorGraph.UNREACHABLE, graph.travelTurns(1, 5));
+        assertEquals(SectorGraph.NO_ROUTE, graph.nextHop(1, 99));
+        assertEquals(SectorGraph.UNREACHABLE, graph.hopTurns(1, 3));
+    }
+
+    @Test
+    public void routesAreCachedUntilTheGraphChanges() {
+        SectorGraph graph = line();
+
+        for (int from = 1; from <= 4; from++) {
+            graph.nextHop(from, 4);
+        }
+        assertEquals(1, graph.getCacheMisses());
+        assertEquals(2, graph.getCacheHits());
+
+        graph.connect(1, 4, 1);
+        assertEquals(4, graph.nextHop(1, 4));
+        assertEquals(2, graph.getCacheMisses());
+    }
+
+    @Test
+    public void badLinksAreRejected() {
+        SectorGraph graph = new SectorGraph();
+        assertThrows(IllegalArgumentException.class, () -> graph.connect(1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.connect(1, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> graph.connect(SectorGraph.NO_ROUTE, 2, 1));
+    }
+
+    @Test
+    public void mobilisedFleetTravelsOneHopAtATime() {
+        World world = new World();
+        world.setSectorGraph(line());
+        Fleet fleet = new Fleet(world, "Traveller", 1, 3);
+        Starship docked = fleet.getShips().get(2);
+        docked.dockWithStarbase(fleet.getStarbases().getFirst());
+
+        fleet.mobilise(4);
+        Starship ship = fleet.getShips().getFirst();
+        assertEquals(1, ship.getSector());
+        assertEquals(4, ship.getDestination());
+        assertEquals(1, docked.getDestination());
+
+        for (int expected = 2; expected <= 4; expected++) {
+            world.advanceTurn();
+            assertEquals(expected, ship.getSector());
+            assertEquals(0, fleet.getTargetsInSector(expected - 1).stream().filter(t -> t == ship).count());
+            assertTrue(fleet.getTargetsInSector(expected).contains(ship));
+        }
+        assertEquals(4, ship.getDestination());
+        world.advanceTurn();
+        assertEquals(4, ship.getSector());
+        assertEquals(1, docked.getSector());
+
+        assertThrows(IllegalArgumentException.class, () -> fleet.mobilise(99));
+    }
+
+    @Test
+    public void slowHopsTakeSeveralTurns() {
+        World world = new World();
+        SectorGraph graph = new SectorGraph();
+        graph.connect(1, 2, 3);
+        world.setSectorGraph(graph);
+        Fleet fleet = new Fleet(world, "Traveller", 1, 1);
+        Starship ship = fleet.getShips().getFirst();
+
+        fleet.mobilise(2);
+        world.advanceTurn();
+        world.advanceTurn();
+        assertEquals(1, ship.getSector());
+        ship.dockWithStarbase(fleet.getStarbases().getFirst());
+        world.advanceTurn();
+        world.advanceTurn();
+        assertEquals(1, ship.getSector());
+
+        ship.unDockWithStarbase();
+        world.advanceTurn();
+        assertEquals(2, ship.getSector());
+        assertEquals(2, ship.getDestination());
+    }
+}
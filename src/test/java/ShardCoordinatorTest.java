@@ -0,0 +1,181 @@
+import org.junit.jupiter.api.Test;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for ShardCoordinator, ShardWorker and ShardProtocol
+ * @author Oscar Allen
+ */
+public class ShardCoordinatorTest {
+    private static final ShipStats STATS = new ShipStats(30, 10, 10, 200);
+    private static final int SECTORS = 6;
+    private static final int SHIPS_PER_SECTOR = 7;
+    private static final int FLEET_SIZE = SHIPS_PER_SECTOR * SECTORS + SECTORS / 2;
+
+    /**
+     * Sets up two Fleets spread over every sector, with a Starbase each
+     */
+
+    private static void setUp(ShardCoordinator coordinator) throws IOException {
+        setUp(coordinator, STATS);
+    }
+
+    private static void setUp(ShardCoordinator coordinator, ShipStats stats) throws IOException {
+        int red = coordinator.addFleet("Red", stats);
+        int blue = coordinator.addFleet("Blue", stats);
+        for (int sector = 0; sector < SECTORS; sector++) {
+            coordinator.addShips(red, sector, SHIPS_PER_SECTOR + sector % 2);
+            coordinator.addShips(blue, sector, SHIPS_PER_SECTOR + (sector + 1) % 2);
+        }
+        coordinator.addStarbase(red, 1);
+        coordinator.addStarbase(blue, 4);
+    }
+
+    /**
+     * Moves the Fleets about, so Starships keep crossing from shard to shard
+     */
+
+    private static void order(ShardCoordinator coordinator, int turn) throws IOException {
+        if (turn % 3 == 0) coordinator.mobilise(0, (turn / 3) % SECTORS);
+        if (turn % 4 == 1) coordinator.mobilise(1, (turn / 4 + 3) % SECTORS);
+    }
+
+    @Test
+    public void shardingDoesNotChangeTheBattle() throws IOException {
+        try (ShardCoordinator single = ShardCoordinator.launch(1);
+             ShardCoordinator sharded = ShardCoordinator.launch(3)) {
+            assertEquals(3, sharded.getShardCount());
+            setUp(single);
+            setUp(sharded);
+
+            for (int turn = 0; turn < 30; turn++) {
+                order(single, turn);
+                order(sharded, turn);
+                single.tick();
+                sharded.tick();
+
+                for (int fleet = 0; fleet < 2; fleet++) {
+                    assertEquals(single.getLiveShipCount(fleet), sharded.getLiveShipCount(fleet), "turn " + turn);
+                    assertEquals(single.getTotalHealth(fleet), sharded.getTotalHealth(fleet), "turn " + turn);
+                    assertEquals(single.getStarbaseHealth(fleet), sharded.getStarbaseHealth(fleet), "turn " + turn);
+                    assertEquals(FLEET_SIZE, sharded.getShipCount(fleet));
+                }
+            }
+
+            assertEquals(30, sharded.getTicks());
+            assertEquals(0, single.getHandoffs());
+            assertTrue(sharded.getHandoffs() > 0);
+            assertTrue(single.getLiveShipCount(0) < FLEET_SIZE);
+        }
+    }
+
+    /**
+     * Plays a turn in one World the way ShardWorker.playTurn() describes, with Fleet.attackTarget()
+     */
+
+    private static void playTurn(World world) {
+        List<Fleet> fleets = world.getFleets();
+        for (Fleet fleet : fleets) {
+            for (int sector : fleet.getStore().getSectorIndex().getOccupiedSectors()) {
+                Targetable weakest = null;
+                for (Fleet enemy : fleets) {
+                    if (enemy == fleet) continue;
+
+                    for (Targetable target : enemy.getTargetsInSector(sector)) {
+                        if (weakest == null || target.getCurrentHealth() < weakest.getCurrentHealth()
+                                || target.getCurrentHealth() == weakest.getCurrentHealth()
+                                && (weakest instanceof Starbase && target instanceof Starship
+                                || weakest.getClass() == target.getClass() && target.getId() < weakest.getId())) {
+                            weakest = target;
+                        }
+                    }
+                }
+                if (weakest != null) fleet.attackTarget(weakest);
+            }
+        }
+        world.advanceTurn();
+    }
+
+    @Test
+    public void oneShardPlaysTheBattleAsFleetsWould() throws IOException {
+        // strong enough that each hit lowers the target's defence and crew, so the hits cannot be lumped together
+        ShipStats stats = new ShipStats(1_000, 40, 300, 3_000);
+        World world = new World();
+        List<Fleet> fleets = new ArrayList<>();
+        int lastShipId = 0;
+        int lastStarbaseId = 0;
+        for (String name : List.of("Red", "Blue")) {
+            fleets.add(new Fleet(world, name, new ShipStore(world, stats, 16)));
+        }
+        for (int sector = 0; sector < SECTORS; sector++) {
+            for (int f = 0; f < 2; f++) {
+                ShipStore store = fleets.get(f).getStore();
+                int count = SHIPS_PER_SECTOR + (sector + f) % 2;
+                for (int i = 0; i < count; i++) {
+                    store.receive(++lastShipId, sector, stats.maxHealth(), stats.maxCrew(), fleets.get(f).getFleetId());
+                }
+            }
+        }
+        fleets.get(0).addStarbase(new Starbase(world, ++lastStarbaseId, 1, DockingBay.UNLIMITED, Starbase.MAX_HEALTH));
+        fleets.get(1).addStarbase(new Starbase(world, ++lastStarbaseId, 4, DockingBay.UNLIMITED, Starbase.MAX_HEALTH));
+
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(1)) {
+            setUp(coordinator, stats);
+            for (int turn = 0; turn < 30; turn++) {
+                order(coordinator, turn);
+                if (turn % 3 == 0) fleets.get(0).mobilise((turn / 3) % SECTORS);
+                if (turn % 4 == 1) fleets.get(1).mobilise((turn / 4 + 3) % SECTORS);
+                coordinator.tick();
+                playTurn(world);
+
+                for (int f = 0; f < 2; f++) {
+                    Fleet fleet = fleets.get(f);
+                    assertEquals(fleet.getLiveShipCount(), coordinator.getLiveShipCount(f), "turn " + turn);
+                    assertEquals(fleet.getTotalHealth(), coordinator.getTotalHealth(f), "turn " + turn);
+                    assertEquals(fleet.getStarbases().getFirst().getCurrentHealth(), coordinator.getStarbaseHealth(f), "turn " + turn);
+                }
+            }
+            assertTrue(coordinator.getLiveShipCount(0) < FLEET_SIZE);
+        }
+    }
+
+    @Test
+    public void badCommandsAreRejected() throws IOException {
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2)) {
+            int fleet = coordinator.addFleet("Red", STATS);
+            assertThrows(IllegalArgumentException.class, () -> coordinator.addFleet("Red", STATS));
+            assertThrows(IndexOutOfBoundsException.class, () -> coordinator.addShips(fleet + 1, 0, 1));
+            assertThrows(IllegalArgumentException.class, () -> coordinator.addShips(fleet, 0, -1));
+
+            coordinator.addShips(fleet, 3, 5);
+            coordinator.mobilise(fleet, -2);
+            coordinator.tick();
+            assertEquals(5, coordinator.getLiveShipCount(fleet));
+            assertEquals(5, coordinator.getHandoffs());
+            assertEquals(5L * STATS.maxHealth(), coordinator.getTotalHealth(fleet));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ShardCoordinator.launch(0));
+    }
+
+    @Test
+    public void framesCutShortAreRejected() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (SocketChannel reader = SocketChannel.open(server.getLocalAddress());
+                 SocketChannel writer = server.accept()) {
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(0, 8);
+                GameProtocol.writeFully(writer, length);
+                writer.shutdownOutput();
+                assertThrows(EOFException.class, () -> ShardProtocol.receive(reader, ByteBuffer.allocate(64)));
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for ShipStats
+ * @author Oscar Allen
+ */
+public class ShipStatsTest {
+
+    private static void assertTablesMatchFormula(ShipStats stats, int maxAtkStrength, int maxDefStrength, int maxCrew, int maxHealth) {
+        for (int crew = 0; crew <= maxCrew; crew++) {
+            int expectedAtk = (int) Math.ceil(maxAtkStrength * ((double) crew / maxHealth));
+            assertEquals(expectedAtk, stats.atkStrength(crew), "crew " + crew);
+
+            for (int health = 0; health <= maxHealth; health++) {
+                int expectedDef = (int) Math.floor((double) maxDefStrength * ((health + crew)) / (maxHealth + maxCrew));
+                assertEquals(expectedDef, stats.defStrength(health, crew), "health " + health + ", crew " + crew);
+            }
+        }
+    }
+
+    @Test
+    public void standardTablesMatchFormula() {
+        assertTablesMatchFormula(ShipStats.STANDARD, 30, 10, 10, 100);
+    }
+
+    @Test
+    public void customClassTablesMatchFormula() {
+        assertTablesMatchFormula(new ShipStats(47, 13, 25, 340), 47, 13, 25, 340);
+    }
+
+    @Test
+    public void starshipReadsItsClassTables() {
+        Fleet fleet = new Fleet(new World(), new ShipStats(60, 20, 5, 50), "Heavy", 1, 1);
+        Starship ship = fleet.getShips().getFirst();
+
+        assertEquals(50, ship.getCurrentHealth());
+        assertEquals(6, ship.getCurrentAtkStrength());
+        assertEquals(20, ship.getCurrentDefence());
+    }
+}
@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for ShipStore
+ * @author Oscar Allen
+ */
+public class ShipStoreTest {
+
+    @Test
+    public void adoptMovesAStandaloneShipIntoAFleet() {
+        World world = new World();
+        ShipStore standalone = new ShipStore(world, 1);
+        Starship ship = new Starship(standalone, 3);
+        ship.takeDamage(40);
+        int id = ship.getId();
+        int crew = ship.getCurrentCrew();
+
+        Fleet fleet = new Fleet(world, "Fleet", 1, 2);
+        fleet.addShip(ship);
+
+        assertSame(fleet.getStore(), ship.getStore());
+        assertEquals(0, standalone.size());
+        assertEquals(3, fleet.getStore().size());
+        assertSame(ship, fleet.getStore().ship(ship.getSlot()));
+        assertEquals(id, ship.getId());
+        assertEquals(60, ship.getCurrentHealth());
+        assertEquals(crew, ship.getCurrentCrew());
+        assertEquals(3, ship.getSector());
+        assertEquals("Fleet", ship.getFleet());
+        assertTrue(fleet.getTargetsInSector(3).contains(ship));
+        assertTrue(standalone.getSectorIndex().bucket(3).isEmpty());
+        assertEquals(2L * 100 + 60, fleet.getTotalHealth());
+    }
+
+    @Test
+    public void removedSlotsAreFilledByTheLastShipAndReused() {
+        World world = new World();
+        ShipStore store = new ShipStore(world, 8);
+        List<Starship> ships = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ships.add(new Starship(store, i));
+        }
+        Starship removed = ships.get(1);
+        Starship last = ships.get(4);
+        last.takeDamage(25);
+        int removedId = removed.getId();
+
+        store.release(removed);
+        assertEquals(4, store.size());
+        assertEquals(1, last.getSlot());
+        assertSame(last, store.ship(1));
+        assertEquals(75, last.getCurrentHealth());
+        assertEquals(4, last.getSector());
+        assertTrue(store.getSectorIndex().bucket(1).isEmpty());
+        assertEquals(List.of(last), store.getSectorIndex().bucket(4));
+        assertEquals(4, store.getLiveCount());
+
+        Starship added = new Starship(store, 1);
+        assertEquals(4, added.getSlot());
+        assertEquals(5, store.size());
+        assertNotEquals(removedId, added.getId());
+        assertEquals(List.of(added), store.getSectorIndex().bucket(1));
+        assertEquals(List.of(ships.get(0), last, ships.get(2), ships.get(3), added), store.ships());
+    }
+
+    @Test
+    public void storeGrowsPastItsInitialCapacity() {
+        World world = new World();
+        ShipStore store = new ShipStore(world, 1);
+        List<Starship> ships = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Starship ship = new Starship(store, i % 7);
+            ship.takeDamage(i % 50);
+            ships.add(ship);
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(100, store.getLiveCount());
+        for (int i = 0; i < 100; i++) {
+            Starship ship = ships.get(i);
+            assertEquals(i, ship.getSlot());
+            assertSame(ship, store.ship(i));
+            assertEquals(100 - i % 50, ship.getCurrentHealth());
+            assertEquals(i % 7, ship.getSector());
+        }
+        assertEquals(15, store.getSectorIndex().bucket(0).size());
+    }
+}
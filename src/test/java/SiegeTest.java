@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for Siege and Fleet.fastForward()
+ * @author Oscar Allen
+ */
+public class SiegeTest {
+
+    /**
+     * A World with an attacking and a defending Fleet in sector 1 and the target of the siege
+     */
+
+    private record Battle(World world, Fleet attackers, Fleet defenders, Targetable target) {
+    }
+
+    /**
+     * Sets up a random battle. The same seed always gives the same battle, so it can be played twice
+     */
+
+    private static Battle battle(long seed) {
+        Random random = new Random(seed);
+        World world = new World();
+        if (random.nextBoolean()) world.setTargetSelector(new TargetSelector(TargetSelector.Priority.WEAKEST));
+        ShipStats stats = new ShipStats(5 + random.nextInt(60), 1 + random.nextInt(30), 1 + random.nextInt(12), 20 + random.nextInt(300));
+        Fleet attackers = new Fleet(world, stats, "Attacker", 1, 1 + random.nextInt(40));
+        Fleet defenders = new Fleet(world, stats, "Defender", 1, 1 + random.nextInt(6));
+
+        // damaged attackers have fewer crew and so different attack strengths, and docked ones do not attack
+        for (Starship ship : attackers.getShips()) {
+            if (random.nextInt(3) == 0) ship.takeDamage(random.nextInt(stats.maxHealth() + 1));
+            if (random.nextInt(6) == 0) ship.dockWithStarbase(attackers.getStarbases().getFirst());
+        }
+        List<Starship> defenderShips = defenders.getShips();
+        Starbase base = defenders.getStarbases().getFirst();
+        base.dockAll(defenderShips.subList(0, random.nextInt(defenderShips.size())));
+
+        Targetable target = switch (random.nextInt(3)) {
+            case 0 -> base;
+            case 1 -> defenderShips.get(random.nextInt(defenderShips.size()));
+            default -> {
+                Starbase fortress = new Starbase(world, 99, 1, DockingBay.UNLIMITED, 1 + random.nextInt(200_000));
+                defenders.addStarbase(fortress);
+                yield fortress;
+            }
+        };
+        if (random.nextInt(4) == 0) target.takeDamage(random.nextInt(50));
+        return new Battle(world, attackers, defenders, target);
+    }
+
+    private static void assertSameState(Battle expected, Battle actual) {
+        assertEquals(expected.target().toString(), actual.target().toString());
+        assertEquals(expected.attackers().toString(), actual.attackers().toString());
+        assertEquals(expected.defenders().toString(), actual.defenders().toString());
+        assertEquals(expected.defenders().getLiveShipCount(), actual.defenders().getLiveShipCount());
+        assertEquals(expected.defenders().getTotalHealth(), actual.defenders().getTotalHealth());
+        assertEquals(expected.defenders().getTargetsInSector(1).size(), actual.defenders().getTargetsInSector(1).size());
+
+        TargetSelector selector = expected.world().getTargetSelector();
+        if (selector != null) {
+            Targetable selected = selector.select(1, expected.attackers().getFleetId());
+            Targetable fastSelected = actual.world().getTargetSelector().select(1, actual.attackers().getFleetId());
+            assertEquals(selected == null ? null : selected.toString(), fastSelected == null ? null : fastSelected.toString());
+        }
+    }
+
+    @Test
+    public void fastForwardMatchesPlayingEveryRound() {
+        Random random = new Random(5);
+        for (long seed = 0; seed < 600; seed++) {
+            int maxRounds = random.nextBoolean() ? 1_000_000 : random.nextInt(40);
+            Battle played = battle(seed);
+            Battle fast = battle(seed);
+
+            int crewBefore = played.target() instanceof Starship ship ? ship.getCurrentCrew() : 0;
+            int rounds = 0;
+            while (rounds < maxRounds && !played.target().isDestroyed()) {
+                played.attackers().attackTarget(played.target());
+                rounds++;
+            }
+            int crewLost = played.target() instanceof Starship ship ? crewBefore - ship.getCurrentCrew() : 0;
+
+            Siege.Result result = fast.attackers().fastForward(fast.target(), maxRounds);
+            String context = "seed " + seed + ", maxRounds " + maxRounds;
+            assertEquals(rounds, result.rounds(), context);
+            assertEquals(played.target().getCurrentHealth(), result.health(), context);
+            assertEquals(crewLost, result.crewLost(), context);
+            assertEquals(played.target().isDestroyed(), result.destroyed(), context);
+            assertSameState(played, fast);
+
+            played.attackers().attackTarget(played.target());
+            fast.attackers().attackTarget(fast.target());
+            assertSameState(played, fast);
+        }
+    }
+
+    @Test
+    public void longSiegesAreNotPlayedRoundByRound() {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 3);
+        Starbase fortress = new Starbase(world, 1, 1, DockingBay.UNLIMITED, Integer.MAX_VALUE);
+
+        Siege.Result result = attackers.fastForward(fortress, Integer.MAX_VALUE);
+        assertTrue(result.destroyed());
+        assertEquals(0, result.health());
+        assertTrue(fortress.isDestroyed());
+        assertEquals(0, result.crewLost());
+        // 3 ships dealing at least 5 damage each need at most this many rounds
+        assertTrue(result.rounds() <= Integer.MAX_VALUE / 15 + 1);
+    }
+
+    @Test
+    public void siegesThatCannotHurtTheTargetRunOut() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Fleet", 1, 2);
+        Starbase own = fleet.getStarbases().getFirst();
+        Starbase elsewhere = new Starbase(world, 1, 2, DockingBay.UNLIMITED, 100);
+
+        assertEquals(new Siege.Result(7, 500, 0, false), fleet.fastForward(own, 7));
+        assertEquals(new Siege.Result(7, 100, 0, false), fleet.fastForward(elsewhere, 7));
+        assertEquals(500, own.getCurrentHealth());
+        assertThrows(IllegalArgumentException.class, () -> fleet.fastForward(own, -1));
+
+        elsewhere.takeDamage(100);
+        assertEquals(new Siege.Result(0, 0, 0, true), fleet.fastForward(elsewhere, 7));
+    }
+}
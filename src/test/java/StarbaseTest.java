@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for Starbase
+ * @author Oscar Allen
+ */
+public class StarbaseTest {
+
+    /**
+     * The original docked defence formula, re-summing every docked ship
+     */
+
+    private static int expectedDefence(Starbase base) {
+        int totalDockedDefence = 0;
+        for (Starship ship : base.getDockedShips()) {
+            totalDockedDefence += ship.getCurrentDefence();
+        }
+
+        double healthFactor = (double) base.getCurrentHealth() / 500;
+        double dockedBonus = (double) totalDockedDefence * ((double) base.getDockedShips().size() / 20);
+        return (int) Math.floor(20 * healthFactor + dockedBonus);
+    }
+
+    @Test
+    public void defenceWithNoDockedShips() {
+        Starbase base = new Starbase(1);
+        assertEquals(20, base.getCurrentDefence());
+
+        base.takeDamage(250);
+        assertEquals(10, base.getCurrentDefence());
+    }
+
+    @Test
+    public void runningDefenceMatchesFormula() {
+        Fleet fleet = new Fleet("Defender", 1, 40);
+        Starbase base = fleet.getStarbases().getFirst();
+        List<Starship> ships = fleet.getShips();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 5000; step++) {
+            Starship ship = ships.get(random.nextInt(ships.size()));
+            switch (random.nextInt(6)) {
+                case 0 -> ship.dockWithStarbase(base);
+                case 1 -> ship.unDockWithStarbase();
+                case 2 -> ship.takeDamage(random.nextInt(40));
+                case 3 -> ship.repair();
+                case 4 -> World.DEFAULT.advanceTurn();
+                default -> base.takeDamage(random.nextInt(3));
+            }
+            assertEquals(expectedDefence(base), base.getCurrentDefence(), "step " + step);
+        }
+    }
+
+    @Test
+    public void directDockingFollowsDamage() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Defender", 1, 20);
+        Starbase base = fleet.getStarbases().getFirst();
+
+        for (Starship ship : fleet.getShips()) {
+            assertTrue(base.dockShip(ship));
+            assertTrue(ship.isDocked());
+            assertFalse(base.dockShip(ship));
+        }
+        for (Starship ship : fleet.getShips()) {
+            ship.takeDamage(60);
+        }
+        assertEquals(expectedDefence(base), base.getCurrentDefence());
+
+        Starship undocked = fleet.getShips().getFirst();
+        base.unDockShip(undocked);
+        assertFalse(undocked.isDocked());
+        assertFalse(base.isDocked(undocked));
+        assertEquals(expectedDefence(base), base.getCurrentDefence());
+
+        Starship stranger = new Fleet(world, "Stranger", 1, 1).getShips().getFirst();
+        assertFalse(base.dockShip(stranger));
+        assertFalse(stranger.isDocked());
+    }
+
+    @Test
+    public void bayCapacityLimitsDocking() {
+        Fleet fleet = new Fleet("Defender", 1, 3);
+        Starbase base = new Starbase(1, 2);
+        fleet.addStarbase(base);
+
+        assertEquals(2, base.dockAll(fleet.getShips()));
+        assertTrue(base.getDockingBay().isFull());
+
+        Starship third = fleet.getShips().get(2);
+        third.dockWithStarbase(base);
+        assertFalse(third.isDocked());
+        assertFalse(base.isDocked(third));
+
+        assertEquals(2, base.undockAll());
+        assertTrue(base.getDockedShips().isEmpty());
+        assertEquals(20, base.getCurrentDefence());
+    }
+
+    @Test
+    public void concurrentDamageIsNotLost() {
+        World world = new World();
+        Fleet defenders = new Fleet(world, "Defender", 1, 4);
+        Starbase base = defenders.getStarbases().getFirst();
+        base.dockAll(defenders.getShips());
+        world.setConcurrentCombat(true);
+
+        try (ExecutorService attackers = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                attackers.submit(() -> {
+                    for (int i = 0; i < 28; i++) {
+                        base.takeDamage(2);
+                        defenders.getShips().get(i % 4).takeDamage(1);
+                    }
+                });
+            }
+        }
+
+        assertEquals(500 - 8 * 28 * 2, base.getCurrentHealth());
+        for (Starship ship : defenders.getShips()) {
+            assertEquals(100 - 8 * 28 / 4, ship.getCurrentHealth());
+            assertEquals(1, ship.getCurrentCrew());
+        }
+        assertEquals(expectedDefence(base), base.getCurrentDefence());
+
+        try (ExecutorService attackers = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                attackers.submit(() -> base.takeDamage(10));
+            }
+        }
+        assertTrue(base.isDestroyed());
+        assertTrue(defenders.getTargetsInSector(1).stream().noneMatch(target -> target == base));
+    }
+}
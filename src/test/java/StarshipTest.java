@@ -141,7 +141,10 @@ public class StarshipTest {
         ship.repair();
         ship.unDockWithStarbase();
         assertTrue(ship.isDocked());
+        ship.unDockWithStarbase();
+        assertTrue(ship.isDocked());
 
+        World.DEFAULT.advanceTurn();
         ship.unDockWithStarbase();
         assertFalse(ship.isDocked());
     }
@@ -196,6 +199,40 @@ public class StarshipTest {
         assertNotEquals(ship2SectorBefore, ship2.getSector());
     }
 
+    @Test
+    public void sectorIndexFollowsMovesAndDestruction() {
+        Fleet fleet = new Fleet("Attacker", 1, 2);
+
+        Starship ship1 = fleet.getShips().get(0);
+        Starship ship2 = fleet.getShips().get(1);
+        Starbase base = fleet.getStarbases().getFirst();
+
+        assertEquals(3, fleet.getTargetsInSector(1).size());
+
+        ship1.moveSector(2);
+        assertEquals(List.of(ship1), fleet.getTargetsInSector(2));
+        assertFalse(fleet.getTargetsInSector(1).contains(ship1));
+
+        ship2.takeDamage(1000);
+        base.takeDamage(1000);
+        assertTrue(fleet.getTargetsInSector(1).isEmpty());
+    }
+
+    @Test
+    public void shipsAndBasesOfDifferentWorldsAreNotEqual() {
+        World first = new World();
+        World second = new World();
+        Starship ship = new Starship(new ShipStore(first, 1), 1);
+        Starship other = new Starship(new ShipStore(second, 1), 1);
+        Starbase base = new Starbase(first, 1, DockingBay.UNLIMITED);
+        Starbase otherBase = new Starbase(second, 1, DockingBay.UNLIMITED);
+
+        assertEquals(ship.getId(), other.getId());
+        assertNotEquals(ship, other);
+        assertEquals(base.getId(), otherBase.getId());
+        assertNotEquals(base, otherBase);
+    }
+
     @Test
     public void integrationTest() {
         Fleet player1Fleet = new Fleet("Player 1", 1, 3);
@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for StateWriter
+ * @author Oscar Allen
+ */
+public class StateWriterTest {
+
+    @Test
+    public void writesSelectedFieldsAsJson() throws IOException {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player \"1\"", 3, 2);
+        fleet.getShips().getFirst().dockWithStarbase(fleet.getStarbases().getFirst());
+
+        StringWriter out = new StringWriter();
+        StateWriter writer = new StateWriter(out, StateWriter.Format.JSON);
+        writer.setFields(Set.of("playerName", "ships", "starbases", "dockedShips", "id", "currentHealth", "isDocked"));
+        writer.write(fleet);
+
+        assertEquals("{\"playerName\":\"Player \\\"1\\\"\","
+                + "\"ships\":[{\"id\":1,\"currentHealth\":100,\"isDocked\":true},{\"id\":2,\"currentHealth\":100,\"isDocked\":false}],"
+                + "\"starbases\":[{\"id\":1,\"currentHealth\":500,\"dockedShips\":[{\"id\":1,\"currentHealth\":100,\"isDocked\":true}]}]}\n",
+                out.toString());
+    }
+
+    @Test
+    public void objectsBelowTheDepthLimitAreWrittenAsIds() throws IOException {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Player 1", 3, 2);
+        fleet.getShips().getLast().dockWithStarbase(fleet.getStarbases().getFirst());
+
+        StringWriter out = new StringWriter();
+        StateWriter writer = new StateWriter(out, StateWriter.Format.TEXT);
+        writer.setFields(Set.of("turn", "fleets", "ships", "starbases", "dockedShips", "sector"));
+        writer.setMaxDepth(2);
+        writer.write(world);
+        writer.setMaxDepth(0);
+        writer.write(world);
+
+        assertEquals("World{turn=0, fleets=[Fleet{ships=[Starship{sector=3}, Starship{sector=3}], starbases=[Starbase{sector=3, dockedShips=[2]}]}]}\n"
+                + "World{turn=0, fleets=[0]}\n", out.toString());
+    }
+
+    @Test
+    public void textFormatMatchesToString() throws IOException {
+        Starship ship = new Starship(new ShipStore(new World(), 1), 4);
+        ship.takeDamage(30);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateWriter writer = new StateWriter(bytes, StateWriter.Format.TEXT);
+        writer.setFields(Set.of("maxAtkStrength", "maxDefStrength", "maxCrew", "maxHealth", "currentHealth", "currentCrew",
+                "currentAtkStrength", "currentDefStrength", "fleet", "sector", "skipTurns", "isDocked"));
+        writer.write(ship);
+        writer.flush();
+
+        assertEquals(ship + "\n", bytes.toString(StandardCharsets.UTF_8));
+    }
+}
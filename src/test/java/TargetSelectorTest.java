@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for TargetSelector and Fleet.attackBestTarget()
+ * @author Oscar Allen
+ */
+public class TargetSelectorTest {
+
+    /**
+     * Checks the selector's choice in every sector against a scan of every live enemy target
+     */
+
+    private static void assertSelectionMatchesScan(World world, TargetSelector selector) {
+        List<Targetable> all = new ArrayList<>();
+        for (Fleet fleet : world.getFleets()) {
+            all.addAll(fleet.getShips());
+            all.addAll(fleet.getStarbases());
+        }
+
+        for (Fleet fleet : world.getFleets()) {
+            for (int sector = 1; sector <= 3; sector++) {
+                Integer bestKey = null;
+                for (Targetable target : all) {
+                    if (target.isDestroyed() || target.getSector() != sector || target.getFleetId() == fleet.getFleetId()) continue;
+
+                    int key = selector.getPriority().key(target);
+                    if (bestKey == null || key < bestKey) bestKey = key;
+                }
+
+                Targetable selected = selector.select(sector, fleet.getFleetId());
+                if (bestKey == null) {
+                    assertNull(selected);
+                } else {
+                    assertNotNull(selected);
+                    assertNotEquals(fleet.getFleetId(), selected.getFleetId());
+                    assertEquals(sector, selected.getSector());
+                    assertEquals(bestKey, selector.getPriority().key(selected));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void selectionFollowsTheBattle() {
+        for (TargetSelector.Priority priority : TargetSelector.Priority.values()) {
+            World world = new World();
+            Fleet[] fleets = {new Fleet(world, "Red", 1, 15), new Fleet(world, "Green", 2, 15), new Fleet(world, "Blue", 3, 15)};
+            TargetSelector selector = new TargetSelector(priority);
+            world.setTargetSelector(selector);
+            world.checkpoint();
+            Random random = new Random(11);
+
+            for (int step = 0; step < 400; step++) {
+                Fleet fleet = fleets[random.nextInt(3)];
+                Starship ship = fleet.getShips().get(random.nextInt(15));
+                Starbase base = fleet.getStarbases().getFirst();
+                switch (random.nextInt(7)) {
+                    case 0 -> ship.takeDamage(random.nextInt(40));
+                    case 1 -> ship.moveSector(1 + random.nextInt(3));
+                    case 2 -> {
+                        ship.moveSector(base.getSector());
+                        ship.dockWithStarbase(base);
+                        ship.repair();
+                    }
+                    case 3 -> ship.unDockWithStarbase();
+                    case 4 -> fleet.attackBestTarget(1 + random.nextInt(3));
+                    case 5 -> fleet.mobilise(1 + random.nextInt(3));
+                    default -> world.advanceTurn();
+                }
+                assertSelectionMatchesScan(world, selector);
+            }
+
+            fleets[0].getShips().getFirst().setFleet("Rogue");
+            assertSelectionMatchesScan(world, selector);
+            world.reset();
+            assertSelectionMatchesScan(world, selector);
+        }
+    }
+
+    @Test
+    public void fleetAttacksTheWeakestEnemy() {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 3);
+        Fleet defenders = new Fleet(world, "Defender", 1, 3);
+        world.setTargetSelector(new TargetSelector(TargetSelector.Priority.WEAKEST));
+
+        Starship weakest = defenders.getShips().get(1);
+        weakest.takeDamage(30);
+        assertSame(weakest, attackers.attackBestTarget(1));
+        assertTrue(weakest.getCurrentHealth() < 70);
+        while (!weakest.isDestroyed()) {
+            assertSame(weakest, attackers.attackBestTarget(1));
+        }
+
+        Starship next = (Starship) attackers.attackBestTarget(1);
+        assertNotSame(weakest, next);
+        assertSame(attackers.getShips().getFirst(), defenders.attackBestTarget(1));
+        assertNull(attackers.attackBestTarget(2));
+    }
+
+    @Test
+    public void mostDangerousShipsComeBeforeStarbases() {
+        World world = new World();
+        new Fleet(world, "Attacker", 1, 0);
+        Fleet defenders = new Fleet(world, "Defender", 1, 2);
+        TargetSelector selector = new TargetSelector(TargetSelector.Priority.MOST_DANGEROUS);
+        world.setTargetSelector(selector);
+
+        defenders.getShips().getFirst().takeDamage(50);
+        assertSame(defenders.getShips().get(1), selector.select(1, world.getFleets().getFirst().getFleetId()));
+        assertEquals(4, selector.size());
+    }
+
+    @Test
+    public void selectorBelongsToOneWorld() {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Fleet", 1, 1);
+        assertThrows(IllegalStateException.class, () -> fleet.attackBestTarget(1));
+
+        TargetSelector selector = new TargetSelector(TargetSelector.Priority.WEAKEST);
+        world.setTargetSelector(selector);
+        assertThrows(IllegalStateException.class, () -> new World().setTargetSelector(selector));
+    }
+}
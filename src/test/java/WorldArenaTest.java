@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for WorldArena and World.reset()
+ * @author Oscar Allen
+ */
+public class WorldArenaTest {
+
+    private static final Consumer<World> SCENARIO = world -> {
+        SectorGraph graph = new SectorGraph();
+        graph.connect(1, 2, 1);
+        world.setSectorGraph(graph);
+        Fleet attackers = new Fleet(world, "Attacker", 1, 4);
+        Fleet defenders = new Fleet(world, "Defender", 2, 3);
+        defenders.getShips().get(2).dockWithStarbase(defenders.getStarbases().getFirst());
+    };
+
+    /**
+     * Plays the same battle on a World from the scenario
+     * @return the state of the World afterwards
+     */
+
+    private static String play(World world) {
+        Fleet attackers = world.getFleets().get(0);
+        Fleet defenders = world.getFleets().get(1);
+        Starbase base = defenders.getStarbases().getFirst();
+
+        attackers.mobilise(2);
+        world.advanceTurn();
+        for (int i = 0; i < 10; i++) {
+            attackers.attackTarget(defenders.getShips().getFirst());
+            attackers.attackTarget(base);
+        }
+        Starship damaged = defenders.getShips().get(1);
+        damaged.takeDamage(60);
+        damaged.dockWithStarbase(base);
+        damaged.repair();
+        attackers.getShips().get(3).setFleet("Rogue");
+        world.advanceTurn();
+
+        return world.getTurn() + " " + world.getRepairScheduler().size() + " " + attackers + " " + defenders
+                + " " + defenders.getTargetsInSector(2) + " " + attackers.getTargetsInSector(2) + " " + world.nextShipId();
+    }
+
+    @Test
+    public void resetWorldPlaysTheScenarioAgainIdentically() {
+        WorldArena arena = new WorldArena(SCENARIO);
+        World world = arena.acquire();
+        String initial = world.getFleets().toString();
+        String first = play(world);
+        arena.release(world);
+
+        World again = arena.acquire();
+        assertSame(world, again);
+        assertEquals(initial, again.getFleets().toString());
+        assertEquals(first, play(again));
+
+        World fresh = new World();
+        SCENARIO.accept(fresh);
+        assertEquals(first, play(fresh));
+        assertEquals(1, arena.getCreated());
+    }
+
+    @Test
+    public void eachCallerGetsItsOwnWorld() {
+        WorldArena arena = new WorldArena(SCENARIO);
+        World first = arena.acquire();
+        World second = arena.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, arena.getCreated());
+
+        arena.release(first);
+        arena.release(second);
+        assertEquals(2, arena.getFree());
+        assertThrows(IllegalArgumentException.class, () -> arena.release(first));
+        assertThrows(IllegalArgumentException.class, () -> arena.release(new World()));
+    }
+
+    @Test
+    public void worldsThatChangedShapeCannotBeReset() {
+        World world = new World();
+        assertThrows(IllegalStateException.class, world::reset);
+
+        SCENARIO.accept(world);
+        world.checkpoint();
+        new Starship(world.getFleets().getFirst().getStore(), 1);
+        assertThrows(IllegalStateException.class, world::reset);
+    }
+}
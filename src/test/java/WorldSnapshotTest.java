@@ -0,0 +1,137 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is the JUnit Testing class for WorldSnapshot
+ * @author Oscar Allen
+ */
+public class WorldSnapshotTest {
+
+    @Test
+    public void loadedWorldMatchesSavedWorld(@TempDir Path dir) throws IOException {
+        World world = new World();
+        Fleet attackers = new Fleet(world, "Attacker", 1, 5);
+        Fleet defenders = new Fleet(world, new ShipStats(40, 12, 20, 150), "Defender", 2, 4);
+        Starbase base = defenders.getStarbases().getFirst();
+
+        attackers.mobilise(2);
+        attackers.attackTarget(defenders.getShips().getFirst());
+        defenders.getShips().get(1).dockWithStarbase(base);
+        defenders.getShips().get(2).dockWithStarbase(base);
+        attackers.getShips().get(1).takeDamage(60);
+        attackers.getShips().get(1).repair();
+        attackers.getShips().get(2).setFleet("Rogue");
+        attackers.attackTarget(base);
+        world.advanceTurn();
+
+        Path file = dir.resolve("world.snapshot");
+        WorldSnapshot.save(world, file);
+        World loaded = WorldSnapshot.load(file);
+
+        assertEquals(world.getTurn(), loaded.getTurn());
+        assertEquals(world.getFleets().size(), loaded.getFleets().size());
+        for (int i = 0; i < world.getFleets().size(); i++) {
+            assertSameFleet(world, world.getFleets().get(i), loaded, loaded.getFleets().get(i));
+        }
+
+        Starbase loadedBase = loaded.getFleets().get(1).getStarbases().getFirst();
+        assertEquals(List.of(2, 2), List.of(base.getDockedShips().size(), loadedBase.getDockedShips().size()));
+        assertEquals(base.getCurrentDefence(), loadedBase.getCurrentDefence());
+
+        assertEquals(world.advanceTurn() + world.advanceTurn(), loaded.advanceTurn() + loaded.advanceTurn());
+        assertFalse(loaded.getFleets().getFirst().getShips().get(1).isUnderRepair());
+        assertEquals(world.nextShipId(), loaded.nextShipId());
+        assertEquals(world.nextStarbaseId(), loaded.nextStarbaseId());
+    }
+
+    @Test
+    public void coursesAreSaved(@TempDir Path dir) throws IOException {
+        SectorGraph graph = new SectorGraph();
+        graph.connect(1, 2, 2);
+        graph.connect(2, 3, 1);
+        World world = new World();
+        world.setSectorGraph(graph);
+        Fleet fleet = new Fleet(world, "Traveller", 1, 2);
+        fleet.mobilise(3);
+        world.advanceTurn();
+
+        Path file = dir.resolve("travel.snapshot");
+        WorldSnapshot.save(world, file);
+        World loaded = WorldSnapshot.load(file);
+        assertNull(loaded.getSectorGraph());
+        loaded.setSectorGraph(graph);
+
+        Starship ship = fleet.getShips().getFirst();
+        Starship copy = loaded.getFleets().getFirst().getShips().getFirst();
+        assertEquals(3, copy.getDestination());
+        for (int turn = 0; turn < 3; turn++) {
+            world.advanceTurn();
+            loaded.advanceTurn();
+            assertEquals(ship.getSector(), copy.getSector());
+        }
+        assertEquals(3, copy.getSector());
+    }
+
+    @Test
+    public void emptyWorldRoundTrips(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("empty.snapshot");
+        WorldSnapshot.save(new World(), file);
+        World loaded = WorldSnapshot.load(file);
+
+        assertTrue(loaded.getFleets().isEmpty());
+        assertEquals(0, loaded.getTurn());
+    }
+
+    @Test
+    public void otherFilesAreRejected(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("not.snapshot");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> WorldSnapshot.load(file));
+
+        WorldSnapshot.save(new World(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> WorldSnapshot.load(file));
+    }
+
+    @Test
+    public void shipsDockedAtBasesOutsideEveryFleetAreNotSaved(@TempDir Path dir) throws IOException {
+        World world = new World();
+        Fleet fleet = new Fleet(world, "Attacker", 1, 2);
+        Starship ship = fleet.getShips().getFirst();
+        Starbase stray = new Starbase(world, ship.getSector(), 4);
+        stray.setFleet("Attacker");
+        ship.dockWithStarbase(stray);
+        assertTrue(ship.isDocked());
+
+        Path file = dir.resolve("world.snapshot");
+        assertThrows(IllegalStateException.class, () -> WorldSnapshot.save(world, file));
+        assertFalse(Files.exists(file));
+    }
+
+    private void assertSameFleet(World world, Fleet expected, World loadedWorld, Fleet actual) {
+        assertEquals(expected.getPlayerName(), actual.getPlayerName());
+        assertEquals(expected.getFleetId(), actual.getFleetId());
+        assertEquals(expected.getStore().getStats().maxHealth(), actual.getStore().getStats().maxHealth());
+        assertEquals(expected.getShips().toString(), actual.getShips().toString());
+
+        for (int i = 0; i < expected.getShips().size(); i++) {
+            Starship ship = expected.getShips().get(i);
+            Starship copy = actual.getShips().get(i);
+            assertEquals(ship.getId(), copy.getId());
+            assertEquals(ship.getFleet(), copy.getFleet());
+            assertEquals(ship.isDocked(), copy.isDocked());
+            assertEquals(world.getRepairScheduler().getDueTurn(ship), loadedWorld.getRepairScheduler().getDueTurn(copy));
+        }
+        for (int sector = 1; sector <= 2; sector++) {
+            assertEquals(expected.getTargetsInSector(sector).size(), actual.getTargetsInSector(sector).size());
+        }
+        assertEquals(expected.getStarbases().toString(), actual.getStarbases().toString());
+    }
+}